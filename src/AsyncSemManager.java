@@ -0,0 +1,308 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The AsyncSemManager class is a typed, non-blocking front end to a
+ *          SemManager for programs that embed the store. Inserts, searches
+ *          and deletes are queued and return futures, and the results are
+ *          typed values rather than printed text (the hash table and pool
+ *          still announce when they grow).
+ *
+ *          A single worker thread owns the store. It takes everything that
+ *          has queued up, up to a batch limit, and runs it in the order it
+ *          was submitted; a run of searches in a batch is answered with one
+ *          {@link SemManager#multiGet} call, which reads the records in
+ *          pool order. The queue is bounded: once it is full, submitting
+ *          blocks the caller until the worker catches up, so a fast
+ *          producer is slowed to the pace of the store instead of queueing
+ *          without limit.
+ *
+ *          Futures are completed on the worker thread, so dependent stages
+ *          added without an executor also run there and should be quick.
+ *          The store must not be used directly while this front end is
+ *          open.
+ */
+public class AsyncSemManager implements Closeable {
+    /**
+     * The queue capacity used when none is given.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * The batch limit used when none is given.
+     */
+    public static final int DEFAULT_MAX_BATCH = 128;
+
+    private static final int INSERT = 1;
+    private static final int SEARCH = 2;
+    private static final int DELETE = 3;
+    private static final int STOP = 4;
+
+    private SemManager semManager;
+    private ArrayBlockingQueue<Operation<?>> queue;
+    private int maxBatch;
+    private Thread worker;
+    private volatile boolean closed;
+    private volatile long batches;
+    private volatile long completed;
+
+    /**
+     * Initializes a new instance of the AsyncSemManager class with the
+     * default queue capacity and batch limit, and starts its worker.
+     *
+     * @param semManager
+     *            The store to run operations against.
+     */
+    public AsyncSemManager(SemManager semManager) {
+        this(semManager, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+
+    /**
+     * Initializes a new instance of the AsyncSemManager class and starts
+     * its worker.
+     *
+     * @param semManager
+     *            The store to run operations against.
+     * @param queueCapacity
+     *            The most operations that may wait before submitting
+     *            blocks.
+     * @param maxBatch
+     *            The most operations the worker takes at once.
+     */
+    public AsyncSemManager(
+        SemManager semManager,
+        int queueCapacity,
+        int maxBatch) {
+        this.semManager = semManager;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        worker = new Thread(this::runWorker, "AsyncSemManager-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+
+    /**
+     * Queues a record to be inserted.
+     *
+     * @param record
+     *            The seminar record to insert.
+     * @return A future holding {@code true} if the record was inserted, or
+     *         {@code false} if there is already a record with its ID.
+     */
+    public CompletableFuture<Boolean> insert(SeminarRecord record) {
+        return submit(new Operation<Boolean>(INSERT, record.getId(), record));
+    }
+
+
+    /**
+     * Queues a lookup by ID.
+     *
+     * @param id
+     *            The ID of the record to find.
+     * @return A future holding the record, or {@code null} if there is no
+     *         record with the ID.
+     */
+    public CompletableFuture<SeminarRecord> search(int id) {
+        return submit(new Operation<SeminarRecord>(SEARCH, id, null));
+    }
+
+
+    /**
+     * Queues a record to be deleted.
+     *
+     * @param id
+     *            The ID of the record to delete.
+     * @return A future holding {@code true} if the record was deleted, or
+     *         {@code false} if there is no record with the ID.
+     */
+    public CompletableFuture<Boolean> delete(int id) {
+        return submit(new Operation<Boolean>(DELETE, id, null));
+    }
+
+
+    /**
+     * Gets the number of batches the worker has run.
+     *
+     * @return The number of batches.
+     */
+    public long getBatchCount() {
+        return batches;
+    }
+
+
+    /**
+     * Gets the number of operations the worker has finished.
+     *
+     * @return The number of operations.
+     */
+    public long getCompletedCount() {
+        return completed;
+    }
+
+
+    /**
+     * Stops taking operations, finishes the ones already queued and stops
+     * the worker. The store itself is left open.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(new Operation<Void>(STOP, 0, null));
+            worker.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private <T> CompletableFuture<T> submit(Operation<T> operation) {
+        if (closed) {
+            operation.result.completeExceptionally(
+                new RejectedExecutionException("AsyncSemManager is closed"));
+            return operation.result;
+        }
+        try {
+            queue.put(operation); // blocks while the queue is full
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            operation.result.completeExceptionally(e);
+            return operation.result;
+        }
+        // If close() ran while this was being queued, the worker may already
+        // have made its last pass over the queue; take the operation back
+        // unless the worker got to it first
+        if (closed && queue.remove(operation)) {
+            operation.result.completeExceptionally(
+                new RejectedExecutionException("AsyncSemManager is closed"));
+        }
+        return operation.result;
+    }
+
+
+    private void runWorker() {
+        ArrayList<Operation<?>> batch = new ArrayList<>(maxBatch);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            }
+            catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            stopping = runBatch(batch);
+            batch.clear();
+            batches++;
+        }
+        // Anything submitted as the front end closed is turned away
+        Operation<?> late;
+        while ((late = queue.poll()) != null) {
+            late.result.completeExceptionally(new RejectedExecutionException(
+                "AsyncSemManager is closed"));
+        }
+    }
+
+
+    /**
+     * Runs a batch of operations in order.
+     *
+     * @param batch
+     *            The operations.
+     * @return {@code true} if the batch asked the worker to stop.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean runBatch(ArrayList<Operation<?>> batch) {
+        int i = 0;
+        while (i < batch.size()) {
+            Operation<?> operation = batch.get(i);
+            if (operation.kind == STOP) {
+                for (int j = i + 1; j < batch.size(); j++) {
+                    batch.get(j).result.completeExceptionally(
+                        new RejectedExecutionException(
+                            "AsyncSemManager is closed"));
+                }
+                return true;
+            }
+            if (operation.kind == SEARCH) {
+                // Answer the whole run of searches with one multiGet
+                int end = i;
+                while (end < batch.size() && batch.get(end).kind == SEARCH) {
+                    end++;
+                }
+                int[] ids = new int[end - i];
+                for (int j = i; j < end; j++) {
+                    ids[j - i] = batch.get(j).id;
+                }
+                try {
+                    SeminarRecord[] records = semManager.multiGet(ids);
+                    for (int j = i; j < end; j++) {
+                        ((Operation<SeminarRecord>)batch.get(j)).result
+                            .complete(records[j - i]);
+                    }
+                }
+                catch (Exception e) {
+                    for (int j = i; j < end; j++) {
+                        batch.get(j).result.completeExceptionally(e);
+                    }
+                }
+                completed += end - i;
+                i = end;
+                continue;
+            }
+
+            Operation<Boolean> update = (Operation<Boolean>)operation;
+            try {
+                if (update.kind == INSERT) {
+                    update.result.complete(semManager.insertRecord(
+                        update.record, update.record.serialize()));
+                }
+                else {
+                    update.result.complete(semManager.deleteRecord(
+                        update.id));
+                }
+            }
+            catch (Exception e) {
+                update.result.completeExceptionally(e);
+            }
+            completed++;
+            i++;
+        }
+        return false;
+    }
+
+    /**
+     * The Operation class is one queued request and the future for its
+     * result.
+     *
+     * @param <T>
+     *            The type of the result.
+     */
+    private static class Operation<T> {
+        private int kind;
+        private int id;
+        private SeminarRecord record;
+        private CompletableFuture<T> result;
+
+        Operation(int kind, int id, SeminarRecord record) {
+            this.kind = kind;
+            this.id = id;
+            this.record = record;
+            result = new CompletableFuture<>();
+        }
+    }
+}
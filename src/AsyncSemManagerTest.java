@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The AsyncSemManagerTest class contains test methods for the
+ *          AsyncSemManager class.
+ */
+public class AsyncSemManagerTest extends TestCase {
+    private SemManager semManager;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        semManager = new SemManager(64, 4);
+    }
+
+
+    /**
+     * Tests that queued operations run in order and are batched.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testOperations() throws Exception {
+        AsyncSemManager store = new AsyncSemManager(semManager, 16, 8);
+        ArrayList<CompletableFuture<Boolean>> inserts = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            inserts.add(store.insert(seminar(id)));
+        }
+        CompletableFuture<Boolean> duplicate = store.insert(seminar(5));
+        CompletableFuture<SeminarRecord> found = store.search(42);
+        CompletableFuture<SeminarRecord> missing = store.search(500);
+        CompletableFuture<Boolean> deleted = store.delete(42);
+        CompletableFuture<SeminarRecord> gone = store.search(42);
+
+        for (CompletableFuture<Boolean> insert : inserts) {
+            assertTrue(insert.get());
+        }
+        assertFalse(duplicate.get());
+        assertEquals("About 42", found.get().getDescription());
+        assertNull(missing.get());
+        assertTrue(deleted.get());
+        assertNull(gone.get());
+        store.close();
+
+        assertEquals(105, store.getCompletedCount());
+        assertTrue(store.getBatchCount() < 105);
+        assertEquals(99, semManager.getRecordCount());
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that a full queue makes producers wait rather than fail, and
+     * that a closed front end turns operations away.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBackpressureAndClose() throws Exception {
+        AsyncSemManager store = new AsyncSemManager(semManager, 1, 1);
+        Thread[] producers = new Thread[3];
+        for (int p = 0; p < producers.length; p++) {
+            int first = p * 100;
+            producers[p] = new Thread(() -> {
+                for (int id = first; id < first + 100; id++) {
+                    store.insert(seminar(id));
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(store.search(250).get() != null);
+        store.close();
+        assertEquals(300, semManager.getRecordCount());
+
+        try {
+            store.delete(1).get();
+            fail("closed front end accepted an operation");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that operations submitted while the front end is closing are
+     * either run or turned away, never left waiting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSubmitDuringClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AsyncSemManager store = new AsyncSemManager(semManager, 4, 2);
+            ArrayList<CompletableFuture<SeminarRecord>> searches =
+                new ArrayList<>();
+            Thread producer = new Thread(() -> {
+                for (int id = 0; id < 200; id++) {
+                    CompletableFuture<SeminarRecord> search = store.search(id);
+                    synchronized (searches) {
+                        searches.add(search);
+                    }
+                }
+            });
+            producer.start();
+            store.close();
+            producer.join();
+            for (CompletableFuture<SeminarRecord> search : searches) {
+                try {
+                    search.get(10, TimeUnit.SECONDS);
+                }
+                catch (ExecutionException e) {
+                    assertTrue(e
+                        .getCause() instanceof RejectedExecutionException);
+                }
+            }
+        }
+        semManager.close();
+    }
+
+
+    private static SeminarRecord seminar(int id) {
+        return new SeminarRecord(id, "Seminar " + id, "0610051600", 90,
+            (short)(id % 100), (short)(id % 100), 45, "About " + id,
+            new String[] { "VT" });
+    }
+}
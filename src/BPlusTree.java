@@ -0,0 +1,393 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The BPlusTree class is an in-memory secondary index from seminar
+ *          cost to seminar ID. Each entry is packed into a single
+ *          {@code long} with the cost in the high half and the ID in the low
+ *          half, so duplicate costs are kept apart and ordered by ID, and
+ *          nodes hold plain primitive arrays. Leaves are linked in both
+ *          directions for ordered range scans and top-k iteration.
+ *
+ *          Deletion removes leaves and internal nodes once they are empty but
+ *          does not redistribute keys between siblings, so the tree can
+ *          become sparse after heavy deletes while staying correct.
+ */
+public class BPlusTree {
+    private static final int MAX_KEYS = 64;
+
+    private BNode root;
+    private BNode firstLeaf;
+    private int size;
+
+    /**
+     * Initializes a new, empty instance of the BPlusTree class.
+     */
+    public BPlusTree() {
+        root = new BNode(true);
+        firstLeaf = root;
+        size = 0;
+    }
+
+
+    /**
+     * Inserts a seminar into the index.
+     *
+     * @param cost
+     *            The cost of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the entry was added, {@code false} if it was
+     *         already present.
+     */
+    public boolean insert(int cost, int id) {
+        long key = pack(cost, id);
+        int before = size;
+        BNode sibling = insert(root, key);
+        if (sibling != null) {
+            // The root split, so the tree grows by one level
+            BNode newRoot = new BNode(false);
+            newRoot.keys[0] = smallestKey(sibling);
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+        return size > before;
+    }
+
+
+    /**
+     * Removes a seminar from the index.
+     *
+     * @param cost
+     *            The cost of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the entry was found and removed,
+     *         otherwise {@code false}.
+     */
+    public boolean remove(int cost, int id) {
+        int before = size;
+        remove(root, pack(cost, id));
+        // Collapse internal roots that are left with a single child
+        while (!root.isLeaf && root.count == 0) {
+            if (root.children[0] == null) {
+                root = new BNode(true);
+                firstLeaf = root;
+                break;
+            }
+            root = root.children[0];
+        }
+        return size < before;
+    }
+
+
+    /**
+     * Finds every seminar whose cost is between the given bounds, both
+     * inclusive.
+     *
+     * @param minCost
+     *            The lowest cost to include.
+     * @param maxCost
+     *            The highest cost to include.
+     * @return The IDs of the matching seminars in ascending cost order.
+     */
+    public ArrayList<Integer> rangeSearch(int minCost, int maxCost) {
+        ArrayList<Integer> result = new ArrayList<>();
+        long low = pack(minCost, 0);
+        BNode leaf = findLeaf(low);
+        while (leaf != null) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (leaf.keys[i] < low) {
+                    continue;
+                }
+                if (costOf(leaf.keys[i]) > maxCost) {
+                    return result;
+                }
+                result.add(idOf(leaf.keys[i]));
+            }
+            leaf = leaf.next;
+        }
+        return result;
+    }
+
+
+    /**
+     * Finds the cheapest seminars.
+     *
+     * @param k
+     *            The maximum number of seminars to return.
+     * @return The IDs of up to {@code k} seminars in ascending cost order.
+     */
+    public ArrayList<Integer> cheapest(int k) {
+        ArrayList<Integer> result = new ArrayList<>();
+        BNode leaf = firstLeaf;
+        while (leaf != null && result.size() < k) {
+            for (int i = 0; i < leaf.count && result.size() < k; i++) {
+                result.add(idOf(leaf.keys[i]));
+            }
+            leaf = leaf.next;
+        }
+        return result;
+    }
+
+
+    /**
+     * Gets the number of entries in the index.
+     *
+     * @return The number of entries.
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    /**
+     * Writes the entries in ascending order.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (BNode leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                out.writeLong(leaf.keys[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads a tree written by {@link #write}. The entries arrive in order,
+     * so each one is appended to the last leaf.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The tree.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static BPlusTree read(DataInput in) throws IOException {
+        BPlusTree tree = new BPlusTree();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long key = in.readLong();
+            tree.insert(costOf(key), idOf(key));
+        }
+        return tree;
+    }
+
+
+    private BNode insert(BNode node, long key) {
+        if (node.isLeaf) {
+            int pos = lowerBound(node, key);
+            if (pos < node.count && node.keys[pos] == key) {
+                return null;
+            }
+            System.arraycopy(node.keys, pos, node.keys, pos + 1, node.count
+                - pos);
+            node.keys[pos] = key;
+            node.count++;
+            size++;
+            return node.count > MAX_KEYS ? splitLeaf(node) : null;
+        }
+
+        int childIndex = upperBound(node, key);
+        BNode sibling = insert(node.children[childIndex], key);
+        if (sibling == null) {
+            return null;
+        }
+
+        // Add the new child and its separator right after the split child
+        System.arraycopy(node.keys, childIndex, node.keys, childIndex + 1,
+            node.count - childIndex);
+        System.arraycopy(node.children, childIndex + 1, node.children,
+            childIndex + 2, node.count - childIndex);
+        node.keys[childIndex] = smallestKey(sibling);
+        node.children[childIndex + 1] = sibling;
+        node.count++;
+        return node.count > MAX_KEYS ? splitInternal(node) : null;
+    }
+
+
+    private BNode splitLeaf(BNode leaf) {
+        BNode right = new BNode(true);
+        int half = leaf.count / 2;
+        right.count = leaf.count - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.count);
+        leaf.count = half;
+
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        }
+        leaf.next = right;
+        return right;
+    }
+
+
+    private BNode splitInternal(BNode node) {
+        BNode right = new BNode(false);
+        int middle = node.count / 2;
+        // The middle key moves up; its value is recovered from the leftmost
+        // leaf of the right node by smallestKey()
+        right.count = node.count - middle - 1;
+        System.arraycopy(node.keys, middle + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, middle + 1, right.children, 0,
+            right.count + 1);
+        for (int i = middle + 1; i <= node.count; i++) {
+            node.children[i] = null;
+        }
+        node.count = middle;
+        return right;
+    }
+
+
+    /**
+     * Removes a key below the given node.
+     *
+     * @return {@code true} if the node has become empty and should be
+     *         unlinked from its parent.
+     */
+    private boolean remove(BNode node, long key) {
+        if (node.isLeaf) {
+            int pos = lowerBound(node, key);
+            if (pos == node.count || node.keys[pos] != key) {
+                return false;
+            }
+            System.arraycopy(node.keys, pos + 1, node.keys, pos, node.count
+                - pos - 1);
+            node.count--;
+            size--;
+            if (node.count > 0 || node == root) {
+                return false;
+            }
+            // Unlink the empty leaf from the leaf chain
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            }
+            else {
+                firstLeaf = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+            return true;
+        }
+
+        int childIndex = upperBound(node, key);
+        if (!remove(node.children[childIndex], key)) {
+            return false;
+        }
+
+        if (node.count == 0) {
+            // The only child is gone, so this node is empty as well
+            node.children[0] = null;
+            return node != root;
+        }
+
+        // Drop the empty child along with one neighbouring separator
+        int keyIndex = childIndex == 0 ? 0 : childIndex - 1;
+        System.arraycopy(node.keys, keyIndex + 1, node.keys, keyIndex,
+            node.count - keyIndex - 1);
+        System.arraycopy(node.children, childIndex + 1, node.children,
+            childIndex, node.count - childIndex);
+        node.children[node.count] = null;
+        node.count--;
+        return false;
+    }
+
+
+    private BNode findLeaf(long key) {
+        BNode node = root;
+        while (!node.isLeaf) {
+            node = node.children[upperBound(node, key)];
+        }
+        return node;
+    }
+
+
+    private static long smallestKey(BNode node) {
+        while (!node.isLeaf) {
+            node = node.children[0];
+        }
+        return node.keys[0];
+    }
+
+
+    private static int lowerBound(BNode node, long key) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (node.keys[mid] < key) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+
+    private static int upperBound(BNode node, long key) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (node.keys[mid] <= key) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+
+    private static long pack(int cost, int id) {
+        return ((long)cost << 32) | (id & 0xffffffffL);
+    }
+
+
+    private static int costOf(long key) {
+        return (int)(key >> 32);
+    }
+
+
+    private static int idOf(long key) {
+        return (int)key;
+    }
+
+    /**
+     * The BNode class is a node of the tree. Internal nodes hold
+     * {@code count} separator keys and {@code count + 1} children; leaves
+     * hold {@code count} entries and links to their neighbours.
+     */
+    private static class BNode {
+        final boolean isLeaf;
+        final long[] keys = new long[MAX_KEYS + 1];
+        final BNode[] children;
+        int count;
+        BNode next;
+        BNode prev;
+
+        BNode(boolean isLeaf) {
+            this.isLeaf = isLeaf;
+            this.children = isLeaf ? null : new BNode[MAX_KEYS + 2];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import student.TestCase;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The BPlusTreeTest class contains test methods for the BPlusTree
+ *          class.
+ */
+public class BPlusTreeTest extends TestCase {
+    private BPlusTree tree;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        tree = new BPlusTree();
+        tree.insert(45, 1);
+        tree.insert(30, 2);
+        tree.insert(17, 3);
+        tree.insert(25, 10);
+        tree.insert(30, 7);
+    }
+
+
+    /**
+     * Tests range scans, including duplicate costs which come back in ID
+     * order.
+     */
+    @Test
+    public void testRangeSearch() {
+        assertEquals("[10, 2, 7]", tree.rangeSearch(20, 40).toString());
+        assertEquals("[3, 10, 2, 7, 1]", tree.rangeSearch(0, 100)
+            .toString());
+        assertEquals("[]", tree.rangeSearch(46, 100).toString());
+        assertFalse(tree.insert(30, 2));
+        assertEquals(5, tree.getSize());
+    }
+
+
+    /**
+     * Tests top-k iteration from the cheapest seminar.
+     */
+    @Test
+    public void testCheapest() {
+        assertEquals("[3, 10]", tree.cheapest(2).toString());
+        assertEquals(5, tree.cheapest(100).size());
+    }
+
+
+    /**
+     * Tests the tree against a brute force check across many splits and
+     * deletions, including emptying it completely.
+     */
+    @Test
+    public void testRandomAgainstScan() {
+        Random random = new Random(11);
+        BPlusTree big = new BPlusTree();
+        int[] costs = new int[5000];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = random.nextInt(200);
+            assertTrue(big.insert(costs[i], i));
+        }
+        for (int i = 0; i < costs.length; i += 3) {
+            assertTrue(big.remove(costs[i], i));
+        }
+        assertFalse(big.remove(costs[0], 0));
+
+        ArrayList<Integer> found = big.rangeSearch(50, 99);
+        int expected = 0;
+        for (int i = 0; i < costs.length; i++) {
+            if (i % 3 != 0 && costs[i] >= 50 && costs[i] <= 99) {
+                expected++;
+            }
+        }
+        assertEquals(expected, found.size());
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(costs[found.get(i - 1)] <= costs[found.get(i)]);
+        }
+
+        for (int i = 0; i < costs.length; i++) {
+            if (i % 3 != 0) {
+                assertTrue(big.remove(costs[i], i));
+            }
+        }
+        assertEquals(0, big.getSize());
+        assertEquals(0, big.cheapest(10).size());
+        assertTrue(big.insert(5, 5));
+        assertEquals("[5]", big.cheapest(10).toString());
+    }
+}
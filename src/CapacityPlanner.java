@@ -0,0 +1,299 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The CapacityPlanner class pre-scans a command file to pick initial
+ *          sizes for the memory pool and hash table that the run will never
+ *          outgrow. It reads the file line by line without building seminar
+ *          records: the serialized size of each record is worked out from
+ *          the lengths of its fields, the way {@link SeminarRecord#serialize}
+ *          lays them out.
+ *
+ *          The memory pool is sized by replaying the pool's first-fit
+ *          placement with those sizes, including blocks freed by deletions
+ *          and records moved by updates, and taking the furthest end any
+ *          block reaches. The hash table is sized from the most records
+ *          live at once, rounded up to a power of two so that probe steps
+ *          visit every slot.
+ *
+ *          Keyword encoding, text compression and deduplication make the
+ *          stored records smaller, so the sizes are planned for plain
+ *          records.
+ */
+public class CapacityPlanner {
+    private static final int STREAM_HEADER = 4;
+    private static final int BLOCK_SIZE = 1024;
+    private static final int SHORT_BLOCK = 255;
+    private static final int FIXED_FIELDS = 20; // id, length, x, y, cost
+                                                // and keyword count
+
+    private int inserts;
+    private int peakRecords;
+    private int liveRecords;
+    private long peakExtent;
+    private TreeMap<Integer, Integer> freeBlocks; // start -> size
+    private HashMap<Integer, int[]> blocks; // id -> {start, block, record}
+
+    private CapacityPlanner() {
+        freeBlocks = new TreeMap<>();
+        blocks = new HashMap<>();
+    }
+
+
+    /**
+     * Scans a command file and plans the capacities it needs.
+     *
+     * @param commandFile
+     *            The path to the command file.
+     * @return The plan.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    public static CapacityPlanner scan(String commandFile) throws IOException {
+        CapacityPlanner plan = new CapacityPlanner();
+        try (BufferedReader reader = new BufferedReader(new FileReader(
+            commandFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.trim();
+                boolean insert = command.startsWith("insert");
+                boolean upsert = command.startsWith("upsert");
+                if (!insert && !upsert && !command.startsWith("update")
+                    && !command.startsWith("delete")) {
+                    continue;
+                }
+                int id = Integer.parseInt(command.split("\\s+")[1]);
+                if (command.startsWith("delete")) {
+                    plan.delete(id);
+                    continue;
+                }
+                int size = recordSize(reader);
+                if (size < 0) {
+                    break; // the file ends part way through a record
+                }
+                if (insert) {
+                    plan.insert(id, size);
+                }
+                else {
+                    plan.update(id, size, upsert);
+                }
+            }
+        }
+        plan.blocks = null;
+        plan.freeBlocks = null;
+        return plan;
+    }
+
+
+    /**
+     * Gets the smallest memory pool that holds every record of the run
+     * without expanding.
+     *
+     * @return The pool size in bytes, at least 1.
+     */
+    public int getMemorySize() {
+        return (int)Math.max(1, Math.min(peakExtent, Integer.MAX_VALUE));
+    }
+
+
+    /**
+     * Gets a hash table capacity that keeps the load factor below its
+     * limit for the whole run.
+     *
+     * @return The capacity, a power of two of at least 4.
+     */
+    public int getHashSize() {
+        int capacity = 4;
+        while (capacity < 2 * peakRecords) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+
+    /**
+     * Gets the number of inserts that will succeed.
+     *
+     * @return The number of inserts.
+     */
+    public int getInsertCount() {
+        return inserts;
+    }
+
+
+    /**
+     * Gets the most records that will be live at once.
+     *
+     * @return The peak number of records.
+     */
+    public int getPeakRecords() {
+        return peakRecords;
+    }
+
+
+    private void insert(int id, int size) {
+        if (blocks.containsKey(id)) {
+            return; // rejected as a duplicate
+        }
+        blocks.put(id, new int[] { allocate(size), size, size });
+        inserts++;
+        liveRecords++;
+        peakRecords = Math.max(peakRecords, liveRecords);
+    }
+
+
+    private void update(int id, int size, boolean upsert) {
+        int[] block = blocks.get(id);
+        if (block == null) {
+            if (upsert) {
+                insert(id, size);
+            }
+            return;
+        }
+        if (size <= block[1]) {
+            block[2] = size; // overwritten in place
+            return;
+        }
+        // Moved to a new block that keeps the old slack
+        int length = size + block[1] - block[2];
+        int start = allocate(length);
+        release(block[0], block[1]);
+        block[0] = start;
+        block[1] = length;
+        block[2] = size;
+    }
+
+
+    private void delete(int id) {
+        int[] block = blocks.remove(id);
+        if (block != null) {
+            release(block[0], block[1]);
+            liveRecords--;
+        }
+    }
+
+
+    private int allocate(int length) {
+        for (Map.Entry<Integer, Integer> block : freeBlocks.entrySet()) {
+            if (block.getValue() >= length) {
+                int start = block.getKey();
+                int size = block.getValue();
+                freeBlocks.remove(start);
+                if (size > length) {
+                    freeBlocks.put(start + length, size - length);
+                }
+                return start;
+            }
+        }
+        // Nothing fits, so the block goes at the end, merged with any free
+        // space already there
+        int start = (int)peakExtent;
+        Map.Entry<Integer, Integer> last = freeBlocks.lastEntry();
+        if (last != null && last.getKey() + last.getValue() == peakExtent) {
+            start = last.getKey();
+            freeBlocks.remove(start);
+        }
+        peakExtent = (long)start + length;
+        return start;
+    }
+
+
+    private void release(int start, int length) {
+        Map.Entry<Integer, Integer> before = freeBlocks.floorEntry(start);
+        if (before != null && before.getKey() + before.getValue() == start) {
+            start = before.getKey();
+            length += before.getValue();
+            freeBlocks.remove(start);
+        }
+        Integer after = freeBlocks.remove(start + length);
+        if (after != null) {
+            length += after;
+        }
+        freeBlocks.put(start, length);
+    }
+
+
+    /**
+     * Reads the four lines of a record and works out its serialized size.
+     *
+     * @param reader
+     *            The reader, positioned after the command line.
+     * @return The size in bytes, or -1 if the file ends first.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    private static int recordSize(BufferedReader reader) throws IOException {
+        String title = reader.readLine();
+        String dateLine = reader.readLine();
+        String keywordLine = reader.readLine();
+        String description = reader.readLine();
+        if (description == null) {
+            return -1;
+        }
+        String trimmedDate = dateLine.trim();
+        int dateEnd = 0;
+        while (dateEnd < trimmedDate.length() && !Character.isWhitespace(
+            trimmedDate.charAt(dateEnd))) {
+            dateEnd++;
+        }
+
+        long fields = FIXED_FIELDS;
+        fields += 2 + utfLength(title.trim(), 0, title.trim().length());
+        fields += 2 + utfLength(trimmedDate, 0, dateEnd);
+        fields += 2 + utfLength(description.trim(), 0, description.trim()
+            .length());
+        // Each keyword is written with its own length prefix
+        int i = 0;
+        while (i < keywordLine.length()) {
+            if (Character.isWhitespace(keywordLine.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < keywordLine.length() && !Character.isWhitespace(
+                keywordLine.charAt(i))) {
+                i++;
+            }
+            fields += 2 + utfLength(keywordLine, start, i);
+        }
+        if (keywordLine.trim().isEmpty()) {
+            fields += 2; // one empty keyword
+        }
+
+        // The object stream writes the fields in blocks of up to 1024
+        // bytes, each behind a 2 byte header, or 5 if it is over 255 bytes
+        long full = fields / BLOCK_SIZE;
+        long rest = fields % BLOCK_SIZE;
+        long headers = full * 5;
+        if (rest > 0) {
+            headers += rest <= SHORT_BLOCK ? 2 : 5;
+        }
+        return (int)(STREAM_HEADER + fields + headers);
+    }
+
+
+    private static int utfLength(String text, int from, int to) {
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            }
+            else if (c <= 0x07FF) {
+                length += 2;
+            }
+            else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
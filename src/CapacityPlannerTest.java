@@ -0,0 +1,80 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import student.TestCase;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The CapacityPlannerTest class contains test methods for the
+ *          CapacityPlanner class.
+ */
+public class CapacityPlannerTest extends TestCase {
+
+    /**
+     * Tests that the estimated record sizes match the serialized sizes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRecordSize() throws Exception {
+        File commands = File.createTempFile("commands", ".txt");
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            out.println("insert 1");
+            out.println("  Overview of HCI Research at VT ");
+            out.println("0610051600   90 10 10 45");
+            out.println("HCI   Computer_Science VT Virginia_Tech");
+            out.println("This seminar will present an overview of HCI"
+                + " research");
+        }
+        CapacityPlanner plan = CapacityPlanner.scan(commands.getPath());
+        commands.delete();
+        SeminarRecord record = new SeminarRecord(1,
+            "Overview of HCI Research at VT", "0610051600", 90, (short)10,
+            (short)10, 45, "This seminar will present an overview of HCI"
+                + " research", new String[] { "HCI", "Computer_Science",
+                    "VT", "Virginia_Tech" });
+        assertEquals(record.serialize().length, plan.getMemorySize());
+        assertEquals(1, plan.getInsertCount());
+        assertEquals(4, plan.getHashSize());
+    }
+
+
+    /**
+     * Tests that a run sized from its plan never grows the pool or the
+     * table.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNoGrowth() throws Exception {
+        File commands = File.createTempFile("commands", ".txt");
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setCommands(3000);
+        generator.setMix(50, 20, 30);
+        generator.setIdRange(800);
+        generator.setTextWords(40);
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            generator.generate(out);
+            out.println("update 3");
+            out.println("A much longer title than any the generator writes");
+            out.println("0610051600 90 10 10 45");
+            out.println("VT");
+            out.println("Text");
+        }
+        CapacityPlanner plan = CapacityPlanner.scan(commands.getPath());
+        assertTrue(plan.getPeakRecords() <= 800);
+        assertTrue(plan.getInsertCount() > plan.getPeakRecords());
+
+        SemManager semManager = new SemManager(plan.getMemorySize(), plan
+            .getHashSize());
+        semManager.processCommands(commands.getPath());
+        commands.delete();
+        assertEquals(plan.getMemorySize(), semManager.getPoolSize());
+        assertEquals(plan.getHashSize(), semManager.getTableCapacity());
+        semManager.close();
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ColumnStore class keeps a copy of the fixed-width fields of
+ *          every live seminar (ID, start time, length, location and cost) in
+ *          one primitive array per field, for reporting. Aggregates run as
+ *          plain loops over those arrays without touching the memory pool.
+ *          The pool stays the source of truth: this store is only a side
+ *          copy kept in step by the insert and delete commands. Rows are
+ *          kept dense by moving the last row into the slot of a removed one.
+ */
+public class ColumnStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private int[] ids;
+    private int[] dates; // start time in minutes since the epoch
+    private int[] lengths;
+    private short[] xs;
+    private short[] ys;
+    private int[] costs;
+    private int size;
+    private HashMap<Integer, Integer> rowOfId;
+
+    /**
+     * Initializes a new, empty instance of the ColumnStore class.
+     */
+    public ColumnStore() {
+        ids = new int[INITIAL_CAPACITY];
+        dates = new int[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        xs = new short[INITIAL_CAPACITY];
+        ys = new short[INITIAL_CAPACITY];
+        costs = new int[INITIAL_CAPACITY];
+        size = 0;
+        rowOfId = new HashMap<>();
+    }
+
+
+    /**
+     * Adds the fixed-width fields of a seminar record as a new row.
+     *
+     * @param seminarRecord
+     *            The seminar record to add.
+     */
+    public void add(SeminarRecord seminarRecord) {
+        if (size == ids.length) {
+            int newCapacity = size * 2;
+            ids = Arrays.copyOf(ids, newCapacity);
+            dates = Arrays.copyOf(dates, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            costs = Arrays.copyOf(costs, newCapacity);
+        }
+        ids[size] = seminarRecord.getId();
+        dates[size] = (int)seminarRecord.getStartMinutes();
+        lengths[size] = seminarRecord.getLength();
+        xs[size] = seminarRecord.getX();
+        ys[size] = seminarRecord.getY();
+        costs[size] = seminarRecord.getCost();
+        rowOfId.put(seminarRecord.getId(), size);
+        size++;
+    }
+
+
+    /**
+     * Removes the row of a seminar.
+     *
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the row was found and removed,
+     *         otherwise {@code false}.
+     */
+    public boolean remove(int id) {
+        Integer row = rowOfId.remove(id);
+        if (row == null) {
+            return false;
+        }
+        size--;
+        if (row != size) {
+            ids[row] = ids[size];
+            dates[row] = dates[size];
+            lengths[row] = lengths[size];
+            xs[row] = xs[size];
+            ys[row] = ys[size];
+            costs[row] = costs[size];
+            rowOfId.put(ids[row], row);
+        }
+        return true;
+    }
+
+
+    /**
+     * Gets the number of rows in the store.
+     *
+     * @return The number of rows.
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    /**
+     * Computes the count, sum, minimum and maximum of a field over every
+     * row.
+     *
+     * @param field
+     *            The field to aggregate, either "cost" or "length".
+     * @return An array holding the count, sum, minimum and maximum, in that
+     *         order. The minimum and maximum are 0 when the store is empty.
+     */
+    public long[] summarize(String field) {
+        int[] column = column(field);
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        // Separate simple loops over one array so the JIT can vectorize them
+        for (int i = 0; i < size; i++) {
+            sum += column[i];
+        }
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, column[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, column[i]);
+        }
+        if (size == 0) {
+            min = 0;
+            max = 0;
+        }
+        return new long[] { size, sum, min, max };
+    }
+
+
+    /**
+     * Computes the count, sum, minimum and maximum of a field for each
+     * group of rows.
+     *
+     * @param field
+     *            The field to aggregate, either "cost" or "length".
+     * @param groupBy
+     *            Either "location", grouping by (x, y), or "date", grouping
+     *            by the day the seminar starts.
+     * @return A map from group key to an array holding the count, sum,
+     *         minimum and maximum, ordered by group key. Location keys pack x
+     *         in the high half and y in the low half; date keys are days
+     *         since the epoch.
+     */
+    public TreeMap<Long, long[]> summarizeBy(String field, String groupBy) {
+        int[] column = column(field);
+        long[] keys = new long[size];
+        if (groupBy.equals("location")) {
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long)xs[i] << 32) | (ys[i] & 0xffffffffL);
+            }
+        }
+        else if (groupBy.equals("date")) {
+            for (int i = 0; i < size; i++) {
+                keys[i] = Math.floorDiv(dates[i], MINUTES_PER_DAY);
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Unknown grouping " + groupBy);
+        }
+
+        TreeMap<Long, long[]> groups = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            long[] totals = groups.get(keys[i]);
+            if (totals == null) {
+                totals = new long[] { 0, 0, Integer.MAX_VALUE,
+                    Integer.MIN_VALUE };
+                groups.put(keys[i], totals);
+            }
+            totals[0]++;
+            totals[1] += column[i];
+            totals[2] = Math.min(totals[2], column[i]);
+            totals[3] = Math.max(totals[3], column[i]);
+        }
+        return groups;
+    }
+
+
+    /**
+     * Writes the rows.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(ids[i]);
+            out.writeInt(dates[i]);
+            out.writeInt(lengths[i]);
+            out.writeShort(xs[i]);
+            out.writeShort(ys[i]);
+            out.writeInt(costs[i]);
+        }
+    }
+
+
+    /**
+     * Reads a store written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The store.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static ColumnStore read(DataInput in) throws IOException {
+        ColumnStore store = new ColumnStore();
+        int rows = in.readInt();
+        int capacity = Math.max(rows, INITIAL_CAPACITY);
+        store.ids = new int[capacity];
+        store.dates = new int[capacity];
+        store.lengths = new int[capacity];
+        store.xs = new short[capacity];
+        store.ys = new short[capacity];
+        store.costs = new int[capacity];
+        store.rowOfId = new HashMap<>(rows * 4 / 3 + 1);
+        for (int i = 0; i < rows; i++) {
+            store.ids[i] = in.readInt();
+            store.dates[i] = in.readInt();
+            store.lengths[i] = in.readInt();
+            store.xs[i] = in.readShort();
+            store.ys[i] = in.readShort();
+            store.costs[i] = in.readInt();
+            store.rowOfId.put(store.ids[i], i);
+        }
+        store.size = rows;
+        return store;
+    }
+
+
+    private int[] column(String field) {
+        if (field.equals("cost")) {
+            return costs;
+        }
+        if (field.equals("length")) {
+            return lengths;
+        }
+        throw new IllegalArgumentException("Unknown field " + field);
+    }
+}
@@ -0,0 +1,75 @@
+import student.TestCase;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ColumnStoreTest class contains test methods for the
+ *          ColumnStore class.
+ */
+public class ColumnStoreTest extends TestCase {
+    private ColumnStore store;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        store = new ColumnStore();
+        store.add(new SeminarRecord(1, "A", "0610051600", 90, (short)10,
+            (short)10, 45, "a", new String[] { "VT" }));
+        store.add(new SeminarRecord(2, "B", "0610051800", 60, (short)20,
+            (short)10, 30, "b", new String[] { "VT" }));
+        store.add(new SeminarRecord(3, "C", "0701250830", 30, (short)10,
+            (short)10, 17, "c", new String[] { "VT" }));
+    }
+
+
+    /**
+     * Tests aggregates over every row.
+     */
+    @Test
+    public void testSummarize() {
+        long[] totals = store.summarize("cost");
+        assertEquals(3, totals[0]);
+        assertEquals(92, totals[1]);
+        assertEquals(17, totals[2]);
+        assertEquals(45, totals[3]);
+        assertEquals(180, store.summarize("length")[1]);
+    }
+
+
+    /**
+     * Tests aggregates grouped by location and by day.
+     */
+    @Test
+    public void testSummarizeBy() {
+        TreeMap<Long, long[]> byLocation = store.summarizeBy("cost",
+            "location");
+        assertEquals(2, byLocation.size());
+        assertEquals(62, byLocation.get((10L << 32) | 10)[1]);
+
+        TreeMap<Long, long[]> byDate = store.summarizeBy("length", "date");
+        assertEquals(2, byDate.size());
+        assertEquals(2, byDate.firstEntry().getValue()[0]);
+    }
+
+
+    /**
+     * Tests that removing rows keeps the remaining rows intact.
+     */
+    @Test
+    public void testRemove() {
+        assertTrue(store.remove(1));
+        assertFalse(store.remove(1));
+        assertEquals(2, store.getSize());
+        assertEquals(47, store.summarize("cost")[1]);
+        assertTrue(store.remove(3));
+        assertTrue(store.remove(2));
+        assertEquals(0, store.summarize("cost")[3]);
+    }
+}
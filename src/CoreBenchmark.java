@@ -0,0 +1,420 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The CoreBenchmark class times the building blocks of the store:
+ *          HashTable insert, search and delete at several load factors and
+ *          tombstone ratios, HashTable resizes of a large table on one
+ *          thread and on every core, MemManager insert, remove and get
+ *          under churn, the SeminarRecord codec, processCommands end to
+ *          end, and writing and loading a snapshot.
+ *
+ *          Each benchmark runs a few untimed warmup iterations so the JIT
+ *          settles, then a number of timed iterations. One line of CSV is
+ *          printed per benchmark with the mean, standard deviation and
+ *          minimum time per operation in nanoseconds, so results from
+ *          different revisions can be diffed or loaded into a spreadsheet.
+ *          Results computed by the benchmarks are folded into a sink field
+ *          so the JIT cannot drop the work as dead code.
+ *
+ *          Usage: java CoreBenchmark {filter} {output-file}
+ *          where the optional filter runs only benchmarks whose name
+ *          contains it ("all" runs everything) and the optional output file
+ *          receives a copy of the CSV.
+ */
+public class CoreBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final int TABLE_CAPACITY = 1 << 16;
+    private static final double[] LOAD_FACTORS = { 0.1, 0.25, 0.45 };
+    private static final double[] TOMBSTONE_RATIOS = { 0.0, 0.2 };
+    private static final int POOL_SIZE = 1 << 20;
+    private static final int CHURN_RECORDS = 2000;
+    private static final int CODEC_RECORDS = 2000;
+    private static final int COMMAND_RECORDS = 2000;
+    private static final int SNAPSHOT_RECORDS = 100000;
+    private static final int RESIZE_CAPACITY = 1 << 21;
+
+    private static long sink;
+
+    private String filter;
+    private ArrayList<String> results;
+
+    private CoreBenchmark(String filter) {
+        this.filter = filter;
+        results = new ArrayList<>();
+    }
+
+
+    /**
+     * The entry point of the benchmark suite.
+     *
+     * @param args
+     *            Optional name filter and CSV output file.
+     * @throws Exception
+     *             If a benchmark fails or the output cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        CoreBenchmark suite = new CoreBenchmark(args.length > 0
+            && !args[0].equals("all") ? args[0] : "");
+        System.out.println(header());
+        suite.runAll();
+        if (args.length > 1) {
+            try (PrintWriter out = new PrintWriter(new FileWriter(args[1]))) {
+                out.println(header());
+                for (String line : suite.results) {
+                    out.println(line);
+                }
+            }
+        }
+        if (sink == 42) {
+            System.out.println(); // keeps the sink observable
+        }
+    }
+
+
+    private static String header() {
+        return "benchmark,params,ops_per_iteration,mean_ns_per_op,"
+            + "stddev_ns_per_op,min_ns_per_op";
+    }
+
+
+    private void runAll() throws Exception {
+        for (double load : LOAD_FACTORS) {
+            for (double tombstones : TOMBSTONE_RATIOS) {
+                hashTableBenchmarks(load, tombstones);
+            }
+        }
+        resizeBenchmarks();
+        memManagerBenchmarks();
+        codecBenchmarks();
+        processCommandsBenchmark();
+        snapshotBenchmarks();
+    }
+
+
+    private void hashTableBenchmarks(double load, double tombstones)
+        throws Exception {
+        Random random = new Random(1);
+        HashTable table = new HashTable(TABLE_CAPACITY);
+        int live = (int)(TABLE_CAPACITY * load);
+        int target = (int)(TABLE_CAPACITY * tombstones);
+        // Some churned keys land on earlier tombstones, so more than the
+        // target are set aside for churn
+        int[] keys = distinctKeys(random, live + TABLE_CAPACITY + live);
+        Handle handle = new Handle(0, 1);
+        for (int i = 0; i < live; i++) {
+            table.insert(keys[i], handle);
+        }
+        // Insert and delete one at a time so the table never resizes, until
+        // the table holds the requested share of tombstones
+        int next = live;
+        while (table.getTombstoneCount() < target) {
+            if (next == keys.length - live) {
+                throw new IllegalStateException("Could not reach "
+                    + tombstones + " tombstones at load " + load);
+            }
+            table.insert(keys[next], handle);
+            table.delete(keys[next]);
+            next++;
+        }
+        int[] misses = new int[live];
+        System.arraycopy(keys, keys.length - live, misses, 0, live);
+        String params = "load=" + load + ";tombstones=" + tombstones;
+
+        run("hashtable_search_hit", params, live, () -> {
+            long found = 0;
+            for (int i = 0; i < live; i++) {
+                found += table.search(keys[i]) == null ? 0 : 1;
+            }
+            sink += found;
+        });
+        run("hashtable_search_miss", params, live, () -> {
+            long found = 0;
+            for (int i = 0; i < live; i++) {
+                found += table.search(misses[i]) == null ? 0 : 1;
+            }
+            sink += found;
+        });
+        int batch = Math.min(live, (int)(TABLE_CAPACITY * 0.04));
+        run("hashtable_insert_delete", params, batch * 2, () -> {
+            for (int i = 0; i < batch; i++) {
+                table.insert(misses[i], handle);
+            }
+            for (int i = 0; i < batch; i++) {
+                table.delete(misses[i]);
+            }
+        });
+    }
+
+
+    private void resizeBenchmarks() throws Exception {
+        int entries = (int)(RESIZE_CAPACITY * 0.45);
+        int[] keys = distinctKeys(new Random(4), entries);
+        Handle handle = new Handle(0, 1);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = cores > 1 ? new int[] { 1, cores } : new int[] {
+            1 };
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            // Only the resize itself is timed, using the table's own clock
+            runMeasured("hashtable_resize", "entries=" + entries + ";threads="
+                + threads, entries, () -> {
+                    HashTable table = new HashTable(RESIZE_CAPACITY);
+                    table.setParallelRehash(pool, 0);
+                    for (int key : keys) {
+                        table.insert(key, handle);
+                    }
+                    System.setOut(discard);
+                    try {
+                        table.resize();
+                    }
+                    finally {
+                        System.setOut(console);
+                    }
+                    sink += table.getRecordCount();
+                    return table.getResizeNanos();
+                });
+            pool.shutdown();
+        }
+    }
+
+
+    private void memManagerBenchmarks() throws Exception {
+        Random random = new Random(2);
+        int[] sizes = new int[CHURN_RECORDS];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = 20 + random.nextInt(280);
+        }
+        byte[] data = new byte[300];
+        MemManager memManager = new MemManager(POOL_SIZE);
+        Handle[] handles = new Handle[CHURN_RECORDS];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = memManager.insert(data, sizes[i]);
+        }
+        int[] victims = new int[CHURN_RECORDS];
+        for (int i = 0; i < victims.length; i++) {
+            victims[i] = random.nextInt(CHURN_RECORDS);
+        }
+
+        // Each operation frees a random record and allocates a new one of
+        // a different size, fragmenting the free list over time
+        run("memmanager_churn", "records=" + CHURN_RECORDS, CHURN_RECORDS,
+            () -> {
+                for (int i = 0; i < victims.length; i++) {
+                    int victim = victims[i];
+                    memManager.remove(handles[victim]);
+                    handles[victim] = memManager.insert(data, sizes[(victim
+                        + i) % sizes.length]);
+                }
+            });
+        byte[] output = new byte[300];
+        run("memmanager_get", "records=" + CHURN_RECORDS, CHURN_RECORDS,
+            () -> {
+                long total = 0;
+                for (int i = 0; i < victims.length; i++) {
+                    Handle h = handles[victims[i]];
+                    memManager.get(output, h, h.getRecordLength());
+                    total += output[0];
+                }
+                sink += total;
+            });
+    }
+
+
+    private void codecBenchmarks() throws Exception {
+        Random random = new Random(3);
+        SeminarRecord[] records = new SeminarRecord[CODEC_RECORDS];
+        byte[][] serialized = new byte[CODEC_RECORDS][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new SeminarRecord(i, "Seminar number " + i,
+                "0610051600", 30 + random.nextInt(90), (short)random.nextInt(
+                    100), (short)random.nextInt(100), random.nextInt(100),
+                "This seminar will present an overview of research number "
+                    + i, new String[] { "HCI", "Computer_Science", "VT" });
+            serialized[i] = records[i].serialize();
+        }
+        String params = "records=" + CODEC_RECORDS;
+        run("codec_serialize", params, CODEC_RECORDS, () -> {
+            long bytes = 0;
+            for (SeminarRecord record : records) {
+                bytes += record.serialize().length;
+            }
+            sink += bytes;
+        });
+        run("codec_deserialize", params, CODEC_RECORDS, () -> {
+            long total = 0;
+            for (byte[] bytes : serialized) {
+                total += SeminarRecord.deserialize(bytes).getCost();
+            }
+            sink += total;
+        });
+    }
+
+
+    private void processCommandsBenchmark() throws Exception {
+        File commands = File.createTempFile("semmanager", ".txt");
+        commands.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            for (int i = 0; i < COMMAND_RECORDS; i++) {
+                out.println("insert " + i);
+                out.println("Seminar number " + i);
+                out.println("0610051600 90 " + (i % 100) + " " + (i % 50)
+                    + " 45");
+                out.println("HCI Computer_Science VT");
+                out.println("This seminar will present research number " + i);
+            }
+            for (int i = 0; i < COMMAND_RECORDS; i++) {
+                out.println("search " + i);
+            }
+            for (int i = 0; i < COMMAND_RECORDS; i += 2) {
+                out.println("delete " + i);
+            }
+        }
+        int commandCount = COMMAND_RECORDS * 5 / 2;
+
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        run("process_commands", "records=" + COMMAND_RECORDS, commandCount,
+            () -> {
+                SemManager semManager = new SemManager(1024, 1024);
+                System.setOut(discard);
+                try {
+                    semManager.processCommands(commands.getPath());
+                }
+                finally {
+                    System.setOut(console);
+                }
+                semManager.close();
+            });
+    }
+
+
+    private void snapshotBenchmarks() throws Exception {
+        if (!"snapshot_write snapshot_load".contains(filter)) {
+            return; // building the store is slow, so skip it when filtered
+        }
+        Random random = new Random(5);
+        SemManager semManager = new SemManager(1 << 20, 1 << 10);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        for (int i = 0; i < SNAPSHOT_RECORDS; i++) {
+            SeminarRecord record = new SeminarRecord(i, "Seminar number " + i,
+                String.format("06%02d%02d1600", 1 + random.nextInt(12), 1
+                    + random.nextInt(28)), 30 + random.nextInt(90),
+                (short)random.nextInt(1000), (short)random.nextInt(1000),
+                random.nextInt(100),
+                "This seminar will present an overview of research number "
+                    + i, new String[] { "HCI", "Computer_Science", "VT" });
+            semManager.insertRecord(record, record.serialize());
+        }
+        System.setOut(console);
+        File snapshot = File.createTempFile("semmanager", ".snap");
+        snapshot.deleteOnExit();
+        String params = "records=" + SNAPSHOT_RECORDS;
+        run("snapshot_write", params, SNAPSHOT_RECORDS, () -> {
+            sink += semManager.writeSnapshot(snapshot.getPath());
+        });
+        semManager.writeSnapshot(snapshot.getPath()); // in case it was skipped
+        semManager.close();
+        // A cold start: the records and every index come back from the file
+        run("snapshot_load", params, SNAPSHOT_RECORDS, () -> {
+            SemManager loaded = new SemManager(1024, 1024);
+            sink += loaded.loadSnapshot(snapshot.getPath());
+            loaded.close();
+        });
+    }
+
+
+    private void run(
+        String name,
+        String params,
+        int operations,
+        Body body)
+        throws Exception {
+        runMeasured(name, params, operations, () -> {
+            long start = System.nanoTime();
+            body.run();
+            return System.nanoTime() - start;
+        });
+    }
+
+
+    private void runMeasured(
+        String name,
+        String params,
+        int operations,
+        MeasuredBody body)
+        throws Exception {
+        if (!name.contains(filter)) {
+            return;
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            body.run();
+        }
+        double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            nanosPerOp[i] = (double)body.run() / operations;
+        }
+
+        double mean = 0;
+        double min = Double.MAX_VALUE;
+        for (double value : nanosPerOp) {
+            mean += value;
+            min = Math.min(min, value);
+        }
+        mean /= nanosPerOp.length;
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean);
+        }
+        double stddev = Math.sqrt(variance / (nanosPerOp.length - 1));
+
+        String line = String.format("%s,%s,%d,%.2f,%.2f,%.2f", name, params,
+            operations, mean, stddev, min);
+        results.add(line);
+        System.out.println(line);
+    }
+
+
+    private static int[] distinctKeys(Random random, int count) {
+        int[] keys = new int[count];
+        HashSet<Integer> seen = new HashSet<>();
+        int i = 0;
+        while (i < count) {
+            int key = random.nextInt(Integer.MAX_VALUE);
+            if (seen.add(key)) {
+                keys[i++] = key;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * The Body interface is one timed iteration of a benchmark.
+     */
+    private interface Body {
+        void run() throws Exception;
+    }
+
+    /**
+     * The MeasuredBody interface is one iteration of a benchmark that
+     * times only part of its own work.
+     */
+    private interface MeasuredBody {
+        long run() throws Exception; // returns the measured nanoseconds
+    }
+}
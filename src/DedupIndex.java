@@ -0,0 +1,159 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The DedupIndex class lets records with identical serialized
+ *          payloads share one block in the memory pool. Payloads are found
+ *          by a 64-bit FNV-1a hash of their bytes and compared byte for byte
+ *          before sharing, so a hash collision only costs a missed share.
+ *          Each shared block carries a reference count and goes back to the
+ *          pool when its last reference is released.
+ */
+public class DedupIndex {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private HashMap<Long, Handle> handleOfHash;
+    private HashMap<Handle, long[]> blocks; // handle -> {hash, references}
+    private long sharedBytes;
+
+    /**
+     * Initializes a new, empty instance of the DedupIndex class.
+     */
+    public DedupIndex() {
+        handleOfHash = new HashMap<>();
+        blocks = new HashMap<>();
+        sharedBytes = 0;
+    }
+
+
+    /**
+     * Stores a payload, reusing an identical block already in the pool if
+     * there is one.
+     *
+     * @param payload
+     *            The payload to store.
+     * @param memoryManager
+     *            The memory pool.
+     * @return The handle of the block holding the payload.
+     */
+    public Handle acquire(byte[] payload, MemManager memoryManager) {
+        long hash = hash(payload);
+        Handle existing = handleOfHash.get(hash);
+        if (existing != null && sameContent(existing, payload,
+            memoryManager)) {
+            blocks.get(existing)[1]++;
+            sharedBytes += payload.length;
+            return existing;
+        }
+
+        Handle handle = memoryManager.insert(payload, payload.length);
+        if (existing == null) {
+            handleOfHash.put(hash, handle);
+        }
+        blocks.put(handle, new long[] { hash, 1 });
+        return handle;
+    }
+
+
+    /**
+     * Adds a reference to a block that is already in the pool, as when
+     * rebuilding the index after loading a snapshot.
+     *
+     * @param handle
+     *            The handle of the block.
+     * @param payload
+     *            The bytes of the block.
+     */
+    public void register(Handle handle, byte[] payload) {
+        long[] block = blocks.get(handle);
+        if (block != null) {
+            block[1]++;
+            sharedBytes += payload.length;
+            return;
+        }
+        long hash = hash(payload);
+        handleOfHash.putIfAbsent(hash, handle);
+        blocks.put(handle, new long[] { hash, 1 });
+    }
+
+
+    /**
+     * Drops one reference to a block, removing it from the pool when no
+     * references are left. Blocks this index does not know about are
+     * removed straight away.
+     *
+     * @param handle
+     *            The handle of the block.
+     * @param memoryManager
+     *            The memory pool.
+     * @return {@code true} if the block was removed from the pool.
+     */
+    public boolean release(Handle handle, MemManager memoryManager) {
+        long[] block = blocks.get(handle);
+        if (block == null) {
+            memoryManager.remove(handle);
+            return true;
+        }
+        if (--block[1] > 0) {
+            sharedBytes -= handle.getRecordLength();
+            return false;
+        }
+        blocks.remove(handle);
+        if (handleOfHash.get(block[0]) == handle) {
+            handleOfHash.remove(block[0]);
+        }
+        memoryManager.remove(handle);
+        return true;
+    }
+
+
+    /**
+     * Gets the number of references held on a block.
+     *
+     * @param handle
+     *            The handle of the block.
+     * @return The number of references, or 0 if the block is unknown.
+     */
+    public int getReferenceCount(Handle handle) {
+        long[] block = blocks.get(handle);
+        return block == null ? 0 : (int)block[1];
+    }
+
+
+    /**
+     * Gets the number of pool bytes saved by sharing blocks.
+     *
+     * @return The number of bytes saved.
+     */
+    public long getSharedBytes() {
+        return sharedBytes;
+    }
+
+
+    private static boolean sameContent(
+        Handle handle,
+        byte[] payload,
+        MemManager memoryManager) {
+        if (handle.getRecordLength() != payload.length) {
+            return false;
+        }
+        byte[] stored = new byte[payload.length];
+        memoryManager.get(stored, handle, payload.length);
+        return Arrays.equals(stored, payload);
+    }
+
+
+    private static long hash(byte[] payload) {
+        long hash = FNV_OFFSET;
+        for (byte b : payload) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
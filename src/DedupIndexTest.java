@@ -0,0 +1,69 @@
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The DedupIndexTest class contains test methods for the DedupIndex
+ *          class.
+ */
+public class DedupIndexTest extends TestCase {
+    private DedupIndex dedup;
+    private MemManager memManager;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        dedup = new DedupIndex();
+        memManager = new MemManager(64);
+    }
+
+
+    /**
+     * Tests that identical payloads share one block and that the block is
+     * only freed when the last reference goes away.
+     */
+    @Test
+    public void testSharing() {
+        Handle first = dedup.acquire(new byte[] { 1, 2, 3 }, memManager);
+        Handle second = dedup.acquire(new byte[] { 1, 2, 3 }, memManager);
+        Handle other = dedup.acquire(new byte[] { 1, 2, 4 }, memManager);
+        assertTrue(first == second);
+        assertFalse(first == other);
+        assertEquals(2, dedup.getReferenceCount(first));
+        assertEquals(3, dedup.getSharedBytes());
+
+        assertFalse(dedup.release(first, memManager));
+        assertEquals(1, dedup.getReferenceCount(first));
+        assertTrue(dedup.release(first, memManager));
+        assertEquals(0, dedup.getReferenceCount(first));
+
+        // The freed block is reused by the next payload
+        Handle again = dedup.acquire(new byte[] { 1, 2, 3 }, memManager);
+        assertEquals(0, again.getStartingPosition());
+    }
+
+
+    /**
+     * Tests that seminar records differing only in ID serialize to the
+     * same payload once the ID is cleared.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSeminarPayloads() throws Exception {
+        SeminarRecord record = new SeminarRecord(3, "HPC", "0703301125", 35,
+            (short)0, (short)0, 25, "Learn", new String[] { "HPC", "CSE" });
+        Handle h3 = dedup.acquire(record.withId(0).serialize(), memManager);
+        Handle h10 = dedup.acquire(record.withId(10).withId(0).serialize(),
+            memManager);
+        assertTrue(h3 == h10);
+        assertTrue(record.withId(3) == record);
+        assertEquals(10, record.withId(10).getId());
+    }
+}
@@ -12,6 +12,9 @@
 public class Handle {
     private int startingPosition;
     private int recordLength;
+    private int blockLength;
+    private boolean onDisk;
+    private long diskPosition;
 
     /**
      * Constructs a new `Handle` instance with the specified starting position
@@ -23,8 +26,25 @@ public class Handle {
      *            The length of the data block.
      */
     public Handle(int startingPosition, int recordLength) {
+        this(startingPosition, recordLength, recordLength);
+    }
+
+
+    /**
+     * Constructs a new `Handle` instance for a record stored in a block
+     * that may be larger than the record, leaving room for it to grow.
+     *
+     * @param startingPosition
+     *            The starting position of the data block.
+     * @param recordLength
+     *            The length of the record.
+     * @param blockLength
+     *            The length of the data block holding the record.
+     */
+    public Handle(int startingPosition, int recordLength, int blockLength) {
         this.startingPosition = startingPosition;
         this.recordLength = recordLength;
+        this.blockLength = blockLength;
     }
 
 
@@ -68,4 +88,68 @@ public class Handle {
     public void setRecordLength(int recordLength) {
         this.recordLength = recordLength;
     }
+
+
+    /**
+     * Gets the length of the block reserved for the record, which is at
+     * least the record length.
+     *
+     * @return The length of the reserved block.
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+
+    /**
+     * Sets the length of the block reserved for the record.
+     *
+     * @param blockLength
+     *            The length of the reserved block.
+     */
+    public void setBlockLength(int blockLength) {
+        this.blockLength = blockLength;
+    }
+
+
+    /**
+     * Checks whether the data block has been moved to the spill file.
+     *
+     * @return {@code true} if the data block is on disk.
+     */
+    public boolean isOnDisk() {
+        return onDisk;
+    }
+
+
+    /**
+     * Marks whether the data block has been moved to the spill file.
+     *
+     * @param onDisk
+     *            {@code true} if the data block is on disk.
+     */
+    public void setOnDisk(boolean onDisk) {
+        this.onDisk = onDisk;
+    }
+
+
+    /**
+     * Gets the position of the data block in the spill file.
+     *
+     * @return The position of the data block in the spill file.
+     */
+    public long getDiskPosition() {
+        return diskPosition;
+    }
+
+
+    /**
+     * Sets the position of the data block in the spill file.
+     *
+     * @param diskPosition
+     *            The position to set.
+     */
+    public void setDiskPosition(long diskPosition) {
+        this.diskPosition = diskPosition;
+    }
 }
@@ -1,3 +1,10 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * @author Aayush Bagrecha
  * @author Yash Shrikant
@@ -7,9 +14,22 @@
  * The HashTable class represents a hash table data structure that stores
  * key-value pairs.
  * It provides methods for inserting, deleting, searching, and resizing the
- * table.
+ * table. Optionally the table halves again once deletions leave it sparse;
+ * the shrink threshold is capped well below the growth threshold so a table
+ * near either one does not flip between sizes. It keeps cheap running
+ * counters of its tombstones, probe lengths
+ * and resizes, which are published over JMX.
+ *
+ * Large tables are rehashed in parallel: the old array is split into
+ * ranges walked by a fork-join pool, and each entry is claimed into its
+ * slot of the new array with a compare-and-set, moving along its probe
+ * chain when another thread got there first. Slots are only ever filled
+ * while rehashing, so every entry still sits on its own probe chain before
+ * the first empty slot, though which of two colliding entries ends up
+ * first can differ from run to run. Small tables are rehashed in order so
+ * their layout is repeatable.
  */
-public class HashTable {
+public class HashTable implements HashTableMetricsMXBean {
     /**
      * The array that represents the underlying data structure of the hash
      * table.
@@ -22,6 +42,28 @@ public class HashTable {
     private int capacity;
     private int size;
     private static final double LOAD_FACTOR = 0.5;
+    private static final int PROBE_BUCKETS = 16;
+    private static final int DEFAULT_PARALLEL_REHASH_CAPACITY = 1 << 16;
+    private static final int REHASH_RANGE = 1 << 13;
+    private static final VarHandle SLOTS = MethodHandles
+        .arrayElementVarHandle(Entry[].class);
+
+    private int tombstones;
+    // Lookups run concurrently under a server's read lock, so the lookup
+    // statistics are shared counters and the rest are kept per thread
+    private LongAdder lookups = new LongAdder();
+    private LongAdder totalProbes = new LongAdder();
+    private AtomicLongArray probeHistogram = new AtomicLongArray(
+        PROBE_BUCKETS);
+    private ThreadLocal<long[]> threadProbes = ThreadLocal.withInitial(
+        () -> new long[2]); // {probes on this thread, last probe count}
+    private long resizes;
+    private long resizeNanos;
+    private long shrinks;
+    private double shrinkLoadFactor; // 0 when the table never shrinks
+    private int minimumCapacity;
+    private ForkJoinPool rehashPool;
+    private int parallelRehashCapacity;
 
     /**
      * Initializes a new instance of the HashTable class with the specified
@@ -34,6 +76,48 @@ public class HashTable {
         capacity = initialCapacity;
         size = 0;
         table = new Entry[capacity];
+        shrinkLoadFactor = 0;
+        minimumCapacity = initialCapacity;
+        rehashPool = ForkJoinPool.commonPool();
+        parallelRehashCapacity = DEFAULT_PARALLEL_REHASH_CAPACITY;
+    }
+
+
+    /**
+     * Sets the pool used to rehash large tables and how large a table must
+     * be to use it. A pool with a parallelism of 1 always rehashes on the
+     * calling thread.
+     *
+     * @param pool
+     *            The fork-join pool to rehash with.
+     * @param minCapacity
+     *            The smallest old capacity rehashed in parallel.
+     */
+    public void setParallelRehash(ForkJoinPool pool, int minCapacity) {
+        rehashPool = pool;
+        parallelRehashCapacity = minCapacity;
+    }
+
+
+    /**
+     * Lets the table halve its capacity when a deletion leaves fewer live
+     * entries than the given share of its slots. The share may be at most
+     * a quarter of the growth load factor, so that a halved table is still
+     * at most half as full as it must be to grow again.
+     *
+     * @param lowWater
+     *            The load factor below which the table shrinks, or 0 to
+     *            never shrink.
+     * @param minCapacity
+     *            The capacity the table never shrinks below.
+     */
+    public void setShrinkLoadFactor(double lowWater, int minCapacity) {
+        if (lowWater < 0 || lowWater > LOAD_FACTOR / 4) {
+            throw new IllegalArgumentException("Shrink load factor must be"
+                + " between 0 and " + LOAD_FACTOR / 4);
+        }
+        shrinkLoadFactor = lowWater;
+        minimumCapacity = minCapacity;
     }
 
 
@@ -61,6 +145,9 @@ public class HashTable {
 
             // Insert the key-value pair
             index = findEmptySlot(key);
+            if (table[index] != null) {
+                tombstones--; // reusing a tombstone
+            }
             table[index] = new Entry(key, value);
 
             // System.out.println(table[index].value);
@@ -90,12 +177,36 @@ public class HashTable {
             // Mark the entry as a tombstone
             table[index].isTombstone = true;
             size--;
+            tombstones++;
+            if (size < capacity * shrinkLoadFactor
+                && capacity / 2 >= Math.max(minimumCapacity, 2)) {
+                shrink();
+            }
             return true;
         }
         return false;
     }
 
 
+    /**
+     * Replaces the value associated with a key, probing for it only once.
+     *
+     * @param key
+     *            The key whose value to replace.
+     * @param value
+     *            The new value.
+     * @return {@code true} if the key was found, otherwise {@code false}.
+     */
+    public boolean replace(int key, Handle value) {
+        int index = find(key);
+        if (index == -1) {
+            return false;
+        }
+        table[index].value = value;
+        return true;
+    }
+
+
     /**
      * Searches for a key in the hash table and returns its associated value.
      *
@@ -120,16 +231,17 @@ public class HashTable {
      * including tombstones and the total number of records.
      */
     public void printHashTable() {
-        String output = "Hashtable:\n";
+        StringBuilder output = new StringBuilder("Hashtable:\n");
         for (int i = 0; i < capacity; i++) {
             if (table[i] != null) {
                 if (table[i].isTombstone)
-                    output += i + ": TOMBSTONE\n";
+                    output.append(i).append(": TOMBSTONE\n");
                 else
-                    output += i + ": " + table[i].key + "\n";
+                    output.append(i).append(": ").append(table[i].key)
+                        .append("\n");
             }
         }
-        System.out.println(output + "total records: " + size);
+        System.out.println(output.append("total records: ").append(size));
     }
 
 
@@ -144,10 +256,14 @@ public class HashTable {
         int index = hash(key);
         int step = (((key / capacity) % (capacity / 2)) * 2) + 1;
         int initialIndex = index;
+        int probes = 0;
+        int result = -1; // Key not found
 
         while (table[index] != null) {
+            probes++;
             if (table[index].key == key && !table[index].isTombstone) {
-                return index;
+                result = index;
+                break;
             }
             index = (index + step) % capacity;
 
@@ -157,7 +273,142 @@ public class HashTable {
             }
         }
 
-        return -1; // Key not found
+        lookups.increment();
+        totalProbes.add(probes);
+        long[] mine = threadProbes.get();
+        mine[0] += probes;
+        mine[1] = probes;
+        probeHistogram.incrementAndGet(Math.min(32 - Integer
+            .numberOfLeadingZeros(probes), PROBE_BUCKETS - 1));
+        return result;
+    }
+
+
+    /**
+     * Places an entry directly into a slot without hashing, as when
+     * restoring a saved table layout. Tombstones are restored too so that
+     * probe chains stay intact.
+     *
+     * @param slot
+     *            The slot to fill.
+     * @param key
+     *            The key of the entry.
+     * @param value
+     *            The value associated with the key.
+     * @param isTombstone
+     *            Whether the entry is a tombstone.
+     */
+    public void restoreEntry(
+        int slot,
+        int key,
+        Handle value,
+        boolean isTombstone) {
+        table[slot] = new Entry(key, value);
+        table[slot].isTombstone = isTombstone;
+        if (!isTombstone) {
+            size++;
+        }
+        else {
+            tombstones++;
+        }
+    }
+
+
+    /**
+     * Gets the number of live entries in the hash table.
+     *
+     * @return The number of entries, not counting tombstones.
+     */
+    @Override
+    public int getRecordCount() {
+        return size;
+    }
+
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    @Override
+    public int getTombstoneCount() {
+        return tombstones;
+    }
+
+
+    @Override
+    public double getLoadFactor() {
+        return (double)size / capacity;
+    }
+
+
+    @Override
+    public double getTombstoneRatio() {
+        return (double)tombstones / capacity;
+    }
+
+
+    @Override
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+
+    @Override
+    public long getProbeCount() {
+        return totalProbes.sum();
+    }
+
+
+    /**
+     * Gets the number of slots visited by the key lookups made on the
+     * calling thread, so a thread can tell how many probes its own work
+     * took while others look keys up too.
+     *
+     * @return The number of probes.
+     */
+    public long getThreadProbeCount() {
+        return threadProbes.get()[0];
+    }
+
+
+    @Override
+    public long[] getProbeHistogram() {
+        long[] histogram = new long[PROBE_BUCKETS];
+        for (int i = 0; i < PROBE_BUCKETS; i++) {
+            histogram[i] = probeHistogram.get(i);
+        }
+        return histogram;
+    }
+
+
+    /**
+     * Gets the number of slots visited by the most recent key lookup made
+     * on the calling thread.
+     *
+     * @return The number of probes.
+     */
+    public int getLastProbeCount() {
+        return (int)threadProbes.get()[1];
+    }
+
+
+    @Override
+    public long getResizeCount() {
+        return resizes;
+    }
+
+
+    @Override
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+
+    @Override
+    public long getShrinkCount() {
+        return shrinks;
     }
 
 
@@ -192,28 +443,102 @@ public class HashTable {
      * Resizes the hash table when the load factor is exceeded.
      */
     public void resize() {
-        int newCapacity = capacity * 2;
-        Entry[] newTable = new Entry[newCapacity];
+        System.out.println("Hash table expanded to " + capacity * 2
+            + " records");
+        rehash(capacity * 2);
+    }
+
 
-        System.out.println("Hash table expanded to " + newCapacity
+    /**
+     * Halves the hash table when deletions have left it sparse.
+     */
+    private void shrink() {
+        System.out.println("Hash table shrunk to " + capacity / 2
             + " records");
+        rehash(capacity / 2);
+        shrinks++;
+    }
 
-        for (int i = 0; i < capacity; i++) {
-            if (table[i] != null && !table[i].isTombstone) {
-                int newIndex = hash(table[i].key); // Use the hash function for
-                                                   // indexing
-                while (newTable[newIndex] != null) {
-                    newIndex = (newIndex + 1) % newCapacity;
-                }
-                newTable[newIndex] = table[i];
-            }
-        }
 
+    private void rehash(int newCapacity) {
+        long start = System.nanoTime();
+        Entry[] newTable = new Entry[newCapacity];
+        Entry[] oldTable = table;
+        int oldCapacity = capacity;
+
+        // Switch to the new table first so entries are placed with the same
+        // hash and probe step that find() will use
         table = newTable;
         capacity = newCapacity;
+        if (oldCapacity >= parallelRehashCapacity && rehashPool
+            .getParallelism() > 1) {
+            rehashPool.invoke(new RehashTask(oldTable, 0, oldCapacity));
+        }
+        else {
+            for (int i = 0; i < oldCapacity; i++) {
+                if (oldTable[i] != null && !oldTable[i].isTombstone) {
+                    table[findEmptySlot(oldTable[i].key)] = oldTable[i];
+                }
+            }
+        }
+        tombstones = 0;
+        resizes++;
+        resizeNanos += System.nanoTime() - start;
         // printHashTable();
     }
 
+
+    /**
+     * Claims the first empty slot on an entry's probe chain. Safe to call
+     * from several threads at once while rehashing.
+     *
+     * @param entry
+     *            The entry to place.
+     */
+    private void placeConcurrently(Entry entry) {
+        int index = hash(entry.key);
+        int step = (((entry.key / capacity) % (capacity / 2)) * 2) + 1;
+        while (!SLOTS.compareAndSet(table, index, (Entry)null, entry)) {
+            index = (index + step) % capacity;
+        }
+    }
+
+    /**
+     * The RehashTask class moves the live entries in a range of the old
+     * table into the new one, splitting the range in halves until it is
+     * small enough to walk directly.
+     */
+    private class RehashTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private Entry[] oldTable;
+        private int from;
+        private int to;
+
+        RehashTask(Entry[] oldTable, int from, int to) {
+            this.oldTable = oldTable;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (to - from <= REHASH_RANGE) {
+                for (int i = from; i < to; i++) {
+                    Entry entry = oldTable[i];
+                    if (entry != null && !entry.isTombstone) {
+                        placeConcurrently(entry);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RehashTask(oldTable, from, middle), new RehashTask(
+                oldTable, middle, to));
+        }
+    }
+
     /**
      * The Entry class represents a key-value pair stored in the hash table.
      */
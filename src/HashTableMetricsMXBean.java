@@ -0,0 +1,101 @@
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The HashTableMetricsMXBean interface exposes the health of a
+ *          HashTable over JMX: how full it is, how many tombstones it
+ *          carries, how long its probe chains are and how often it has had
+ *          to grow.
+ */
+public interface HashTableMetricsMXBean {
+    /**
+     * Gets the number of slots in the table.
+     *
+     * @return The capacity.
+     */
+    int getCapacity();
+
+
+    /**
+     * Gets the number of live entries.
+     *
+     * @return The number of entries.
+     */
+    int getRecordCount();
+
+
+    /**
+     * Gets the number of tombstones left by deletions.
+     *
+     * @return The number of tombstones.
+     */
+    int getTombstoneCount();
+
+
+    /**
+     * Gets the share of slots holding live entries.
+     *
+     * @return The load factor, between 0 and 1.
+     */
+    double getLoadFactor();
+
+
+    /**
+     * Gets the share of slots holding tombstones.
+     *
+     * @return The tombstone ratio, between 0 and 1.
+     */
+    double getTombstoneRatio();
+
+
+    /**
+     * Gets the number of key lookups made so far.
+     *
+     * @return The number of lookups.
+     */
+    long getLookupCount();
+
+
+    /**
+     * Gets the total number of slots visited by all lookups so far.
+     *
+     * @return The number of probes.
+     */
+    long getProbeCount();
+
+
+    /**
+     * Gets a histogram of probe chain lengths. Bucket 0 counts lookups
+     * that found an empty home slot, and bucket i counts lookups that
+     * visited between 2^(i-1) and 2^i - 1 slots.
+     *
+     * @return The bucket counts.
+     */
+    long[] getProbeHistogram();
+
+
+    /**
+     * Gets the number of times the table has doubled.
+     *
+     * @return The number of resizes.
+     */
+    long getResizeCount();
+
+
+    /**
+     * Gets the total time spent resizing.
+     *
+     * @return The time in nanoseconds.
+     */
+    long getResizeNanos();
+
+
+    /**
+     * Gets the number of times the table has halved its capacity. Shrinks
+     * are also counted as resizes.
+     *
+     * @return The number of shrinks.
+     */
+    long getShrinkCount();
+}
@@ -1,5 +1,6 @@
 import student.TestCase;
 import java.io.FileNotFoundException;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -478,4 +479,101 @@ public class HashTableTest extends TestCase {
         assertEquals(expectedSize, actualSize);
     }
 
+
+    /**
+     * Tests the tombstone, probe and resize counters.
+     */
+    @Test
+    public void testMetrics() {
+        HashTable table = new HashTable(8);
+        Handle handle = new Handle(0, 1);
+        table.insert(1, handle);
+        table.insert(9, handle); // collides with 1
+        table.delete(1);
+        assertEquals(1, table.getTombstoneCount());
+        assertEquals(0.125, table.getTombstoneRatio(), 0.0001);
+        assertEquals(0.125, table.getLoadFactor(), 0.0001);
+
+        long before = table.getLookupCount();
+        table.search(9);
+        assertEquals(before + 1, table.getLookupCount());
+        assertEquals(2, table.getLastProbeCount());
+
+        table.insert(17, handle); // reuses the tombstone
+        assertEquals(0, table.getTombstoneCount());
+        table.insert(2, handle);
+        table.insert(3, handle);
+        assertEquals(0, table.getResizeCount());
+        table.insert(4, handle);
+        assertEquals(1, table.getResizeCount());
+        assertEquals(16, table.getCapacity());
+        long total = 0;
+        for (long count : table.getProbeHistogram()) {
+            total += count;
+        }
+        assertEquals(table.getLookupCount(), total);
+    }
+
+
+    /**
+     * Tests that the table halves after a purge, no further than its
+     * minimum capacity, and keeps its entries.
+     */
+    @Test
+    public void testShrink() {
+        HashTable table = new HashTable(8);
+        table.setShrinkLoadFactor(0.125, 8);
+        Handle handle = new Handle(0, 1);
+        for (int key = 0; key < 64; key++) {
+            table.insert(key, handle);
+        }
+        assertEquals(128, table.getCapacity());
+        for (int key = 0; key < 60; key++) {
+            table.delete(key);
+        }
+        assertEquals(32, table.getCapacity());
+        assertEquals(2, table.getShrinkCount());
+        assertEquals(4, table.getRecordCount());
+        for (int key = 60; key < 64; key++) {
+            assertEquals(handle, table.search(key));
+        }
+        table.delete(60);
+        assertEquals(16, table.getCapacity());
+        table.delete(61);
+        table.delete(62);
+        assertEquals(8, table.getCapacity());
+        table.delete(63);
+        assertEquals(8, table.getCapacity());
+    }
+
+
+    /**
+     * Tests that tables rehashed in parallel keep every entry findable.
+     */
+    @Test
+    public void testParallelRehash() {
+        HashTable table = new HashTable(4);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        table.setParallelRehash(pool, 0);
+        for (int key = 0; key < 30000; key++) {
+            table.insert(key * 7, new Handle(key, 1));
+        }
+        for (int key = 0; key < 30000; key += 2) {
+            table.delete(key * 7);
+        }
+        table.resize();
+        pool.shutdown();
+        assertEquals(65536 * 2, table.getCapacity());
+        assertEquals(15000, table.getRecordCount());
+        assertEquals(0, table.getTombstoneCount());
+        for (int key = 0; key < 30000; key++) {
+            Handle handle = table.search(key * 7);
+            if (key % 2 == 0) {
+                assertNull(handle);
+            }
+            else {
+                assertEquals(key, handle.getStartingPosition());
+            }
+        }
+    }
 }
@@ -0,0 +1,321 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The IntervalTree class indexes the time window of each seminar.
+ *          It is an AVL tree ordered by start time (ties broken by ID) where
+ *          every node also remembers the largest end time in its subtree, so
+ *          an overlap query can skip any subtree that ends before the query
+ *          starts. Intervals are half-open: a seminar occupies
+ *          [start, end) in minutes.
+ */
+public class IntervalTree {
+    private IntervalNode root;
+    private int size;
+
+    /**
+     * Initializes a new, empty instance of the IntervalTree class.
+     */
+    public IntervalTree() {
+        root = null;
+        size = 0;
+    }
+
+
+    /**
+     * Inserts the time window of a seminar.
+     *
+     * @param start
+     *            The start of the seminar in minutes.
+     * @param end
+     *            The end of the seminar in minutes.
+     * @param id
+     *            The ID of the seminar record.
+     */
+    public void insert(long start, long end, int id) {
+        root = insert(root, start, end, id);
+    }
+
+
+    /**
+     * Removes the time window of a seminar.
+     *
+     * @param start
+     *            The start of the seminar in minutes.
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the interval was found and removed,
+     *         otherwise {@code false}.
+     */
+    public boolean remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+
+    /**
+     * Finds every seminar whose window overlaps [from, to).
+     *
+     * @param from
+     *            The start of the query window in minutes.
+     * @param to
+     *            The end of the query window in minutes.
+     * @return The IDs of the overlapping seminars in start time order.
+     */
+    public ArrayList<Integer> overlapSearch(long from, long to) {
+        ArrayList<Integer> result = new ArrayList<>();
+        overlapSearch(root, from, to, result);
+        return result;
+    }
+
+
+    /**
+     * Gets the number of intervals stored in the tree.
+     *
+     * @return The number of intervals.
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    /**
+     * Writes the intervals in order, so that {@link #read} can build a
+     * balanced tree from them without rotations.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        writeNodes(out, root);
+    }
+
+
+    /**
+     * Reads a tree written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The tree.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static IntervalTree read(DataInput in) throws IOException {
+        int count = in.readInt();
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = in.readLong();
+            ends[i] = in.readLong();
+            ids[i] = in.readInt();
+        }
+        IntervalTree tree = new IntervalTree();
+        tree.root = build(starts, ends, ids, 0, count - 1);
+        tree.size = count;
+        return tree;
+    }
+
+
+    private static void writeNodes(DataOutput out, IntervalNode node)
+        throws IOException {
+        if (node != null) {
+            writeNodes(out, node.left);
+            out.writeLong(node.start);
+            out.writeLong(node.end);
+            out.writeInt(node.id);
+            writeNodes(out, node.right);
+        }
+    }
+
+
+    private static IntervalNode build(
+        long[] starts,
+        long[] ends,
+        int[] ids,
+        int lo,
+        int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        IntervalNode node = new IntervalNode(starts[mid], ends[mid],
+            ids[mid]);
+        node.left = build(starts, ends, ids, lo, mid - 1);
+        node.right = build(starts, ends, ids, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+
+    private void overlapSearch(
+        IntervalNode node,
+        long from,
+        long to,
+        ArrayList<Integer> result) {
+        // Nothing below this node ends after the query starts
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        overlapSearch(node.left, from, to, result);
+        if (node.start < to && node.end > from) {
+            result.add(node.id);
+        }
+        // Everything to the right starts at or after this node
+        if (node.start < to) {
+            overlapSearch(node.right, from, to, result);
+        }
+    }
+
+
+    private IntervalNode insert(
+        IntervalNode node,
+        long start,
+        long end,
+        int id) {
+        if (node == null) {
+            size++;
+            return new IntervalNode(start, end, id);
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, id);
+        }
+        else if (cmp > 0) {
+            node.right = insert(node.right, start, end, id);
+        }
+        else {
+            node.end = end;
+        }
+        return balance(node);
+    }
+
+
+    private IntervalNode remove(IntervalNode node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        }
+        else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        }
+        else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Replace with the smallest node of the right subtree
+            IntervalNode successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            size++; // the recursive call counts the successor removal
+            node.right = remove(node.right, successor.start, successor.id);
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+        }
+        return balance(node);
+    }
+
+
+    private static int compare(long start, int id, IntervalNode node) {
+        if (start != node.start) {
+            return start < node.start ? -1 : 1;
+        }
+        return Integer.compare(id, node.id);
+    }
+
+
+    private static int height(IntervalNode node) {
+        return node == null ? 0 : node.height;
+    }
+
+
+    private static void update(IntervalNode node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > node.maxEnd) {
+            node.maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > node.maxEnd) {
+            node.maxEnd = node.right.maxEnd;
+        }
+    }
+
+
+    private static IntervalNode balance(IntervalNode node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+
+    private static IntervalNode rotateRight(IntervalNode node) {
+        IntervalNode pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+
+    private static IntervalNode rotateLeft(IntervalNode node) {
+        IntervalNode pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * The IntervalNode class is a single node of the tree.
+     */
+    private static class IntervalNode {
+        long start;
+        long end;
+        long maxEnd;
+        int id;
+        int height;
+        IntervalNode left;
+        IntervalNode right;
+
+        IntervalNode(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.id = id;
+            this.height = 1;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import student.TestCase;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+import java.util.ArrayList;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The IntervalTreeTest class contains test methods for the
+ *          IntervalTree class.
+ */
+public class IntervalTreeTest extends TestCase {
+    private IntervalTree tree;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        tree = new IntervalTree();
+        tree.insert(100, 190, 1);
+        tree.insert(150, 210, 2);
+        tree.insert(300, 330, 3);
+        tree.insert(190, 200, 4);
+    }
+
+
+    /**
+     * Tests that overlap queries treat windows as half-open.
+     */
+    @Test
+    public void testOverlapSearch() {
+        assertEquals("[1, 2]", tree.overlapSearch(120, 160).toString());
+        assertEquals("[2, 4]", tree.overlapSearch(190, 191).toString());
+        assertEquals("[]", tree.overlapSearch(210, 300).toString());
+        assertEquals("[3]", tree.overlapSearch(329, 1000).toString());
+    }
+
+
+    /**
+     * Tests that removed intervals are no longer reported.
+     */
+    @Test
+    public void testRemove() {
+        assertTrue(tree.remove(150, 2));
+        assertFalse(tree.remove(150, 2));
+        assertFalse(tree.remove(100, 2));
+        assertEquals(3, tree.getSize());
+        assertEquals("[1]", tree.overlapSearch(120, 160).toString());
+    }
+
+
+    /**
+     * Tests the tree against a brute force check with random intervals.
+     */
+    @Test
+    public void testRandomAgainstScan() {
+        Random random = new Random(7);
+        IntervalTree big = new IntervalTree();
+        long[] starts = new long[500];
+        long[] ends = new long[500];
+        for (int i = 0; i < 500; i++) {
+            starts[i] = random.nextInt(10000);
+            ends[i] = starts[i] + 1 + random.nextInt(200);
+            big.insert(starts[i], ends[i], i);
+        }
+        for (int i = 0; i < 500; i += 2) {
+            assertTrue(big.remove(starts[i], i));
+        }
+        for (int q = 0; q < 50; q++) {
+            long from = random.nextInt(10000);
+            long to = from + random.nextInt(300);
+            ArrayList<Integer> found = big.overlapSearch(from, to);
+            int expected = 0;
+            for (int i = 1; i < 500; i += 2) {
+                if (starts[i] < to && ends[i] > from) {
+                    expected++;
+                    assertTrue(found.contains(i));
+                }
+            }
+            assertEquals(expected, found.size());
+        }
+    }
+
+
+    /**
+     * Tests that a tree read back from its saved form answers the same
+     * queries and can still be changed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Random random = new Random(9);
+        for (int i = 10; i < 300; i++) {
+            long start = 1000 + random.nextInt(5000);
+            tree.insert(start, start + 1 + random.nextInt(100), i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        tree.write(new DataOutputStream(bytes));
+        IntervalTree restored = IntervalTree.read(new DataInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(tree.getSize(), restored.getSize());
+        for (int q = 0; q < 50; q++) {
+            long from = random.nextInt(6000);
+            assertEquals(tree.overlapSearch(from, from + 80), restored
+                .overlapSearch(from, from + 80));
+        }
+        assertTrue(restored.remove(150, 2));
+        restored.insert(120, 130, 5);
+        assertEquals("[1, 5]", restored.overlapSearch(120, 125).toString());
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The KeywordIndex class is an inverted index from keyword to the
+ *          seminars tagged with it. Keywords are turned into codes by a
+ *          shared StringDictionary, so a lookup compares one integer code per
+ *          posting list rather than strings. Each list holds the seminar IDs
+ *          in ascending order.
+ */
+public class KeywordIndex {
+    private StringDictionary dictionary;
+    private HashMap<Integer, int[]> postings;
+    private HashMap<Integer, Integer> counts;
+
+    /**
+     * Initializes a new, empty instance of the KeywordIndex class.
+     *
+     * @param dictionary
+     *            The dictionary that assigns keyword codes.
+     */
+    public KeywordIndex(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        postings = new HashMap<>();
+        counts = new HashMap<>();
+    }
+
+
+    /**
+     * Adds a seminar under each of its keywords.
+     *
+     * @param keywords
+     *            The keywords of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     */
+    public void insert(String[] keywords, int id) {
+        for (String keyword : keywords) {
+            int code = dictionary.encode(keyword);
+            int[] ids = postings.get(code);
+            int count = counts.getOrDefault(code, 0);
+            if (ids == null) {
+                ids = new int[2];
+            }
+            int pos = Arrays.binarySearch(ids, 0, count, id);
+            if (pos >= 0) {
+                continue; // keyword listed twice on the same seminar
+            }
+            pos = -pos - 1;
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, count - pos);
+            ids[pos] = id;
+            postings.put(code, ids);
+            counts.put(code, count + 1);
+        }
+    }
+
+
+    /**
+     * Removes a seminar from under each of its keywords.
+     *
+     * @param keywords
+     *            The keywords of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     */
+    public void remove(String[] keywords, int id) {
+        for (String keyword : keywords) {
+            int code = dictionary.lookup(keyword);
+            int[] ids = postings.get(code);
+            if (ids == null) {
+                continue;
+            }
+            int count = counts.get(code);
+            int pos = Arrays.binarySearch(ids, 0, count, id);
+            if (pos < 0) {
+                continue;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, count - pos - 1);
+            if (count == 1) {
+                postings.remove(code);
+                counts.remove(code);
+            }
+            else {
+                counts.put(code, count - 1);
+            }
+        }
+    }
+
+
+    /**
+     * Finds the seminars tagged with a keyword.
+     *
+     * @param keyword
+     *            The keyword to look up.
+     * @return The IDs of the matching seminars in ascending order.
+     */
+    public ArrayList<Integer> search(String keyword) {
+        ArrayList<Integer> result = new ArrayList<>();
+        int code = dictionary.lookup(keyword);
+        int[] ids = postings.get(code);
+        if (ids != null) {
+            int count = counts.get(code);
+            for (int i = 0; i < count; i++) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Writes the postings by keyword code. The codes are only meaningful
+     * next to the dictionary that handed them out.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(postings.size());
+        for (Map.Entry<Integer, int[]> entry : postings.entrySet()) {
+            int count = counts.get(entry.getKey());
+            out.writeInt(entry.getKey());
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(entry.getValue()[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads an index written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @param dictionary
+     *            The dictionary that assigned the codes when it was
+     *            written.
+     * @return The index.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static KeywordIndex read(DataInput in, StringDictionary dictionary)
+        throws IOException {
+        KeywordIndex index = new KeywordIndex(dictionary);
+        int keywords = in.readInt();
+        for (int k = 0; k < keywords; k++) {
+            int code = in.readInt();
+            int count = in.readInt();
+            int[] ids = new int[Math.max(count, 2)];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readInt();
+            }
+            index.postings.put(code, ids);
+            index.counts.put(code, count);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The LatencyHistogram class counts durations in buckets whose
+ *          width grows with the value, in the style of an HDR histogram.
+ *          Each power of two is split into {@code 2^SUB_BUCKET_BITS} equal
+ *          sub-buckets, so any recorded value is known to within about 3%
+ *          from a nanosecond up to hours, in a fixed array of counters.
+ *          Recording is a few shifts and an increment.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts;
+    private long totalCount;
+    private long max;
+
+    /**
+     * Initializes a new, empty instance of the LatencyHistogram class.
+     */
+    public LatencyHistogram() {
+        counts = new long[(Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+        totalCount = 0;
+        max = 0;
+    }
+
+
+    /**
+     * Records one value.
+     *
+     * @param value
+     *            The value, such as a duration in nanoseconds. Negative
+     *            values count as 0.
+     */
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        counts[bucketOf(clamped)]++;
+        totalCount++;
+        max = Math.max(max, clamped);
+    }
+
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     *
+     * @param other
+     *            The histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+
+    /**
+     * Gets the largest recorded value, exactly.
+     *
+     * @return The largest value, or 0 if none was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+
+    /**
+     * Gets the value below which the given share of recorded values fall.
+     * The result is the upper edge of the bucket holding that value,
+     * capped at the largest recorded value.
+     *
+     * @param percentile
+     *            The percentile, from 0 to 100.
+     * @return The value, or 0 if none was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100
+            * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(upperEdge(bucket), max);
+            }
+        }
+        return max;
+    }
+
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        // The power of two picks the group, the next bits the sub-bucket
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value)
+            - SUB_BUCKET_BITS;
+        int subBucket = (int)(value >>> magnitude) - SUB_BUCKETS;
+        return (magnitude + 1) * SUB_BUCKETS + subBucket;
+    }
+
+
+    private static long upperEdge(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
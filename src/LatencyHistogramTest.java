@@ -0,0 +1,88 @@
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The LatencyHistogramTest class contains test methods for the
+ *          LatencyHistogram class.
+ */
+public class LatencyHistogramTest extends TestCase {
+    private LatencyHistogram histogram;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+
+    /**
+     * Tests that an empty histogram reports zeros.
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+
+    /**
+     * Tests that small values are counted exactly.
+     */
+    @Test
+    public void testSmallValues() {
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+        assertEquals(11, histogram.getTotalCount());
+        assertEquals(10, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+    }
+
+
+    /**
+     * Tests that percentiles of large values are within the bucket
+     * precision and that the maximum is exact.
+     */
+    @Test
+    public void testPrecision() {
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(Math.abs(p50 - 50000000L) <= 50000000L / 16);
+        assertTrue(Math.abs(p99 - 99000000L) <= 99000000L / 16);
+        assertTrue(p50 <= p99);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+
+    /**
+     * Tests merging two histograms.
+     */
+    @Test
+    public void testAdd() {
+        LatencyHistogram other = new LatencyHistogram();
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+            other.record(value + 10);
+        }
+        histogram.add(other);
+        assertEquals(20, histogram.getTotalCount());
+        assertEquals(20, histogram.getMax());
+        assertEquals(10, histogram.getValueAtPercentile(50));
+    }
+}
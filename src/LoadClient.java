@@ -0,0 +1,238 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The LoadClient class drives a SemServer to measure its throughput.
+ *          It reads a command file, deals the requests out round robin to a
+ *          number of connections, and sends each connection's share with up
+ *          to a given number of requests in flight, reading the answers on
+ *          a second thread. Requests are written into a buffer that is
+ *          sent whenever the pipeline fills. It reports requests per second
+ *          and the latency of each request, from being written to its
+ *          answer being read, as "metric,value" lines.
+ *
+ *          Usage: java LoadClient [--host {host}] [--port {port}]
+ *          [--connections {n}] [--pipeline {depth}] {command-file}
+ */
+public class LoadClient {
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private String host = "localhost";
+    private int port = SemServer.DEFAULT_PORT;
+    private int connectionCount = 4;
+    private int pipelineDepth = 16;
+    private LatencyHistogram latencies;
+    private long responseLines;
+
+    /**
+     * The entry point of the client.
+     *
+     * @param args
+     *            Optional flags followed by the command file.
+     * @throws Exception
+     *             If the server cannot be reached.
+     */
+    public static void main(String[] args) throws Exception {
+        LoadClient client = new LoadClient();
+        int next = 0;
+        while (next + 1 < args.length && args[next].startsWith("--")) {
+            String value = args[next + 1];
+            if (args[next].equals("--host")) {
+                client.host = value;
+            }
+            else if (args[next].equals("--port")) {
+                client.port = Integer.parseInt(value);
+            }
+            else if (args[next].equals("--connections")) {
+                client.connectionCount = Integer.parseInt(value);
+            }
+            else if (args[next].equals("--pipeline")) {
+                client.pipelineDepth = Integer.parseInt(value);
+            }
+            else {
+                break;
+            }
+            next += 2;
+        }
+        if (args.length - next != 1) {
+            System.err.println("Usage: java LoadClient [--host {host}]"
+                + " [--port {port}] [--connections {n}]"
+                + " [--pipeline {depth}] {command-file}");
+            System.exit(1);
+        }
+
+        ArrayList<String> requests = readRequests(args[next]);
+        long start = System.nanoTime();
+        client.run(requests);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("metric,value");
+        System.out.println("requests," + requests.size());
+        System.out.println("connections," + client.connectionCount);
+        System.out.println("pipeline_depth," + client.pipelineDepth);
+        System.out.printf("elapsed_ms,%.1f%n", elapsed / 1e6);
+        System.out.printf("requests_per_second,%.0f%n", requests.size() * 1e9
+            / elapsed);
+        for (double percentile : PERCENTILES) {
+            System.out.printf("p%s_us,%.1f%n", percentile == Math.rint(
+                percentile)
+                    ? String.valueOf((int)percentile)
+                    : String.valueOf(percentile), client.latencies
+                        .getValueAtPercentile(percentile) / 1e3);
+        }
+        System.out.printf("max_us,%.1f%n", client.latencies.getMax() / 1e3);
+        System.out.println("response_lines," + client.responseLines);
+    }
+
+
+    /**
+     * Reads a command file into requests, each a command line followed by
+     * the lines of its seminar if it has one.
+     *
+     * @param commandFile
+     *            The path to the command file.
+     * @return The requests, each ending with a newline.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    public static ArrayList<String> readRequests(String commandFile)
+        throws IOException {
+        ArrayList<String> requests = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(
+            commandFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.trim().replaceAll("\\s+", " ");
+                if (command.isEmpty()) {
+                    continue;
+                }
+                StringBuilder request = new StringBuilder(command).append(
+                    '\n');
+                for (int i = 0; i < SemManager.recordLineCount(command); i++) {
+                    String recordLine = reader.readLine();
+                    request.append(recordLine == null ? "" : recordLine)
+                        .append('\n');
+                }
+                requests.add(request.toString());
+            }
+        }
+        return requests;
+    }
+
+
+    private void run(ArrayList<String> requests) throws Exception {
+        latencies = new LatencyHistogram();
+        responseLines = 0;
+        Thread[] senders = new Thread[connectionCount];
+        Exception[] failure = new Exception[1];
+        for (int c = 0; c < connectionCount; c++) {
+            ArrayList<String> share = new ArrayList<>();
+            for (int i = c; i < requests.size(); i += connectionCount) {
+                share.add(requests.get(i));
+            }
+            senders[c] = new Thread(() -> {
+                try {
+                    drive(share);
+                }
+                catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            senders[c].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+
+    /**
+     * Sends one connection's requests, keeping at most the pipeline depth
+     * of them unanswered, while a reader thread collects the answers.
+     *
+     * @param requests
+     *            The requests to send.
+     * @throws Exception
+     *             If the connection fails.
+     */
+    private void drive(ArrayList<String> requests) throws Exception {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(socket
+                .getOutputStream());
+            Semaphore inFlight = new Semaphore(pipelineDepth);
+            ArrayBlockingQueue<Long> sendTimes = new ArrayBlockingQueue<>(
+                pipelineDepth);
+            IOException[] readFailure = new IOException[1];
+
+            Thread reader = new Thread(() -> {
+                LatencyHistogram local = new LatencyHistogram();
+                long lines = 0;
+                try {
+                    for (int i = 0; i < requests.size(); i++) {
+                        String line;
+                        while ((line = in.readLine()) != null && !line.equals(
+                            SemServer.END_OF_RESPONSE)) {
+                            lines++;
+                        }
+                        if (line == null) {
+                            throw new IOException("Server closed the"
+                                + " connection");
+                        }
+                        local.record(System.nanoTime() - sendTimes.take());
+                        inFlight.release();
+                    }
+                }
+                catch (IOException e) {
+                    readFailure[0] = e;
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (this) {
+                    latencies.add(local);
+                    responseLines += lines;
+                }
+            });
+            reader.start();
+
+            for (String request : requests) {
+                inFlight.acquire();
+                sendTimes.put(System.nanoTime());
+                out.write(request.getBytes(StandardCharsets.UTF_8));
+                // Send now if this fills the pipeline, otherwise let
+                // requests gather in the buffer
+                if (inFlight.availablePermits() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+            reader.join();
+            if (readFailure[0] != null) {
+                throw readFailure[0];
+            }
+            out.write("quit\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+}
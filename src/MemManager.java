@@ -1,3 +1,17 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
 /**
  * @author Aayush Bagrecha
  * @author Yash Shrikant
@@ -10,12 +24,37 @@
  *          insertion and retrieval. It ensures efficient utilization of memory
  *          by
  *          dynamically expanding the memory pool when needed.
+ *
+ *          Free space is kept as a list of free blocks ordered by position;
+ *          a new record goes into the first block it fits and neighbouring
+ *          free blocks are merged when a record is removed. Optionally the
+ *          pool can be given a memory budget: once the records held in the
+ *          pool exceed it, the least recently accessed ones are moved to a
+ *          spill file and their handles marked as on disk.
+ *
+ *          The pool can also be given a low-water mark. Once records fill
+ *          less than that share of it, the owner can hand over the live
+ *          handles to {@link #shrink}, which slides the records to the
+ *          front and truncates the pool, halving it until it is at least a
+ *          quarter full again.
  */
-public class MemManager {
+public class MemManager implements MemManagerMetricsMXBean {
     private byte[] memoryPool;
     private int poolSize;
-    private int freeBlockStart;
-    private int freeBlockSize;
+    private TreeMap<Integer, Integer> freeBlocks; // start -> size
+    private long freeBytes;
+    private long allocations;
+    private long allocationFailures;
+    private long expansions;
+    private long shrinks;
+    private double shrinkThreshold; // 0 when the pool never shrinks
+    private int minimumSize;
+
+    private long memoryBudget;
+    private SpillFile spillFile; // null unless a budget is set
+    private boolean promoteOnRead;
+    private LinkedHashMap<Handle, Handle> residentHandles; // access order
+    private long residentBytes;
 
     /**
      * Constructs a new `MemManager` instance with an initial memory pool size.
@@ -26,8 +65,153 @@ public class MemManager {
     public MemManager(int initialSize) {
         memoryPool = new byte[initialSize];
         poolSize = initialSize;
-        freeBlockStart = 0;
-        freeBlockSize = initialSize;
+        freeBlocks = new TreeMap<>();
+        if (initialSize > 0) {
+            freeBlocks.put(0, initialSize);
+        }
+        freeBytes = initialSize;
+        shrinkThreshold = 0;
+        minimumSize = initialSize;
+        memoryBudget = Long.MAX_VALUE;
+        spillFile = null;
+        promoteOnRead = true;
+        residentHandles = null;
+        residentBytes = 0;
+    }
+
+
+    /**
+     * Caps the number of record bytes held in the pool. Records inserted
+     * after this call are tracked in least recently accessed order, and
+     * the coldest ones are moved to the spill file whenever the budget is
+     * exceeded.
+     *
+     * @param budget
+     *            The most record bytes to keep in the pool.
+     * @param spillPath
+     *            The path of the spill file.
+     * @throws IOException
+     *             If the spill file cannot be created.
+     */
+    public void setMemoryBudget(long budget, String spillPath)
+        throws IOException {
+        if (spillFile == null) {
+            spillFile = new SpillFile(spillPath);
+            residentHandles = new LinkedHashMap<>(16, 0.75f, true);
+        }
+        memoryBudget = budget;
+        enforceBudget();
+    }
+
+
+    /**
+     * Sets the share of the pool that records must fill before it is worth
+     * shrinking. The share may be at most a quarter, so that a shrunk pool,
+     * which is left at least a quarter full, does not shrink again at once.
+     *
+     * @param lowWater
+     *            The share of the pool below which it should shrink, or 0
+     *            to never shrink.
+     * @param minSize
+     *            The size the pool never shrinks below.
+     */
+    public void setShrinkThreshold(double lowWater, int minSize) {
+        if (lowWater < 0 || lowWater > 0.25) {
+            throw new IllegalArgumentException("Shrink threshold must be"
+                + " between 0 and 0.25");
+        }
+        shrinkThreshold = lowWater;
+        minimumSize = minSize;
+    }
+
+
+    /**
+     * Checks whether the records fill less of the pool than the shrink
+     * threshold and the pool is more than twice its minimum size.
+     *
+     * @return {@code true} if {@link #shrink} should be called.
+     */
+    public boolean needsShrink() {
+        return getUsedBytes() < poolSize * shrinkThreshold
+            && poolSize / 2 >= Math.max(minimumSize, 1);
+    }
+
+
+    /**
+     * Compacts the records to the front of the pool and truncates it. Each
+     * record keeps its block, slack included; the handles are updated in
+     * place. If the handles do not account for every used byte, the pool
+     * is only truncated down to its last used block.
+     *
+     * @param liveHandles
+     *            The handles of every record stored in the pool. A handle
+     *            shared by several records may appear more than once.
+     * @return The new size of the pool.
+     */
+    public int shrink(Iterable<Handle> liveHandles) {
+        Set<Handle> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayList<Handle> resident = new ArrayList<>();
+        long blockBytes = 0;
+        for (Handle handle : liveHandles) {
+            if (!handle.isOnDisk() && seen.add(handle)) {
+                resident.add(handle);
+                blockBytes += handle.getBlockLength();
+            }
+        }
+        if (blockBytes == getUsedBytes()) {
+            resident.sort(Comparator.comparingInt(
+                Handle::getStartingPosition));
+            int next = 0;
+            for (Handle handle : resident) {
+                int start = handle.getStartingPosition();
+                if (start != next) {
+                    System.arraycopy(memoryPool, start, memoryPool, next,
+                        handle.getBlockLength());
+                    handle.setStartingPosition(next);
+                }
+                next += handle.getBlockLength();
+            }
+            Arrays.fill(memoryPool, next, poolSize, (byte)0);
+            freeBlocks.clear();
+            if (next < poolSize) {
+                freeBlocks.put(next, poolSize - next);
+            }
+        }
+
+        int tailStart = poolSize;
+        Map.Entry<Integer, Integer> last = freeBlocks.lastEntry();
+        if (last != null && last.getKey() + last.getValue() == poolSize) {
+            tailStart = last.getKey();
+        }
+        long used = getUsedBytes();
+        int newSize = poolSize;
+        while (newSize / 2 >= Math.max(Math.max(minimumSize, tailStart), 1)
+            && used <= newSize / 4) {
+            newSize /= 2;
+        }
+        if (newSize < poolSize) {
+            System.out.println("Memory pool shrunk to " + newSize + " bytes");
+            memoryPool = Arrays.copyOf(memoryPool, newSize);
+            freeBlocks.remove(tailStart);
+            if (tailStart < newSize) {
+                freeBlocks.put(tailStart, newSize - tailStart);
+            }
+            freeBytes -= poolSize - newSize;
+            poolSize = newSize;
+            shrinks++;
+        }
+        return poolSize;
+    }
+
+
+    /**
+     * Sets whether reading a spilled record moves it back into the pool.
+     *
+     * @param promote
+     *            {@code true} to promote records on read.
+     */
+    public void setPromoteOnRead(boolean promote) {
+        promoteOnRead = promote;
     }
 
 
@@ -43,21 +227,69 @@ public class MemManager {
      * @return A handle to the inserted data.
      */
     public Handle insert(byte[] data, int length) {
-        if (length > freeBlockSize) {
-            expandMemoryPool(length);
-        }
+        return insert(data, length, length);
+    }
 
-        Handle handle = new Handle(freeBlockStart, length);
-        System.arraycopy(data, 0, memoryPool, freeBlockStart, length);
-        freeBlockStart += length;
-        freeBlockSize -= length;
 
+    /**
+     * Inserts data into a block of the memory pool that may be larger than
+     * the data, so that the record can later grow in place.
+     *
+     * @param data
+     *            The data to be inserted.
+     * @param length
+     *            The length of the data to be inserted.
+     * @param blockLength
+     *            The length of the block to reserve, at least
+     *            {@code length}.
+     * @return A handle to the inserted data.
+     */
+    public Handle insert(byte[] data, int length, int blockLength) {
+        int start = allocate(blockLength);
+        System.arraycopy(data, 0, memoryPool, start, length);
+        Handle handle = new Handle(start, length, blockLength);
+        track(handle);
         return handle;
     }
 
 
+    /**
+     * Overwrites a record in place if the new data fits in its block. The
+     * handle keeps its block, so any slack left over stays reserved for the
+     * record to grow back into.
+     *
+     * @param handle
+     *            The handle to the record to overwrite.
+     * @param data
+     *            The new data.
+     * @param length
+     *            The length of the new data.
+     * @return {@code true} if the record was overwritten, or {@code false}
+     *         if it does not fit or has been spilled to disk.
+     */
+    public boolean update(Handle handle, byte[] data, int length) {
+        if (handle.isOnDisk() || length > handle.getBlockLength()) {
+            return false;
+        }
+        int start = handle.getStartingPosition();
+        int oldLength = handle.getRecordLength();
+        System.arraycopy(data, 0, memoryPool, start, length);
+        for (int i = start + length; i < start + oldLength; i++) {
+            memoryPool[i] = 0;
+        }
+        handle.setRecordLength(length);
+        if (residentHandles != null && residentHandles.get(handle) != null) {
+            residentBytes += length - oldLength;
+            enforceBudget();
+        }
+        return true;
+    }
+
+
     /**
      * Retrieves data from the memory pool using a provided handle and length.
+     * A record that has been spilled is read back from the spill file and,
+     * if promotion is on, moved back into the pool.
      *
      * @param output
      *            The byte array where the retrieved data will be placed.
@@ -67,7 +299,44 @@ public class MemManager {
      *            The length of data to retrieve.
      */
     public void get(byte[] output, Handle handle, int length) {
+        peek(output, handle, length);
+        if (handle != null && handle.getRecordLength() == length) {
+            if (handle.isOnDisk()) {
+                if (promoteOnRead) {
+                    promote(handle, output);
+                }
+            }
+            else if (residentHandles != null) {
+                residentHandles.get(handle); // mark as recently accessed
+            }
+        }
+    }
+
+
+    /**
+     * Retrieves data like {@link #get}, but leaves the pool as it is: a
+     * spilled record stays on disk and no record is marked as recently
+     * accessed. Used to copy every record out, as a snapshot does, without
+     * disturbing the working set.
+     *
+     * @param output
+     *            The byte array where the retrieved data will be placed.
+     * @param handle
+     *            The handle to the data in the memory pool.
+     * @param length
+     *            The length of data to retrieve.
+     */
+    public void peek(byte[] output, Handle handle, int length) {
         if (handle != null && handle.getRecordLength() == length) {
+            if (handle.isOnDisk()) {
+                try {
+                    spillFile.read(handle.getDiskPosition(), output, length);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
             System.arraycopy(memoryPool, handle.getStartingPosition(), output,
                 0, length);
         }
@@ -85,23 +354,270 @@ public class MemManager {
             int blockIndex = handle.getStartingPosition();
             int recordLength = handle.getRecordLength();
 
+            if (handle.isOnDisk()) {
+                spillFile.release(recordLength);
+                return;
+            }
+
             // Fill the memory block with zeros to "delete" the record
             for (int i = blockIndex; i < blockIndex + recordLength; i++) {
                 memoryPool[i] = 0;
             }
 
-            // Update free block information
-            freeBlockStart = Math.min(freeBlockStart, blockIndex);
-            freeBlockSize += recordLength;
+            release(blockIndex, handle.getBlockLength());
+            if (residentHandles != null && residentHandles.remove(
+                handle) != null) {
+                residentBytes -= recordLength;
+            }
         }
     }
 
 
+    /**
+     * Copies a run of records into the pool in one bulk copy, as when
+     * loading a snapshot. The records land back to back starting at the
+     * returned position, expanding the pool if needed. They are not
+     * tracked for spilling until handed to {@link #adopt}.
+     *
+     * @param source
+     *            The buffer holding the records, read from its position.
+     * @param length
+     *            The number of bytes to copy.
+     * @return The pool position of the first copied byte.
+     */
+    public int bulkLoad(ByteBuffer source, int length) {
+        int start = allocate(length);
+        source.get(memoryPool, start, length);
+        return start;
+    }
+
+
+    /**
+     * Starts tracking a record placed in the pool by {@link #bulkLoad}, so
+     * that it counts towards the memory budget and can be spilled like an
+     * inserted record. Nothing happens if no budget is set or the record
+     * is already tracked.
+     *
+     * @param handle
+     *            The handle to the record.
+     */
+    public void adopt(Handle handle) {
+        if (residentHandles != null && !handle.isOnDisk()
+            && !residentHandles.containsKey(handle)) {
+            track(handle);
+        }
+    }
+
+
+    /**
+     * Gets the current size of the memory pool.
+     *
+     * @return The size of the memory pool in bytes.
+     */
+    @Override
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+
+    @Override
+    public long getUsedBytes() {
+        return poolSize - freeBytes;
+    }
+
+
+    @Override
+    public long getFreeBytes() {
+        return freeBytes;
+    }
+
+
+    @Override
+    public int getLargestFreeBlock() {
+        int largest = 0;
+        for (int size : freeBlocks.values()) {
+            largest = Math.max(largest, size);
+        }
+        return largest;
+    }
+
+
+    @Override
+    public int getFreeBlockCount() {
+        return freeBlocks.size();
+    }
+
+
+    @Override
+    public double getFragmentation() {
+        if (freeBytes == 0) {
+            return 0;
+        }
+        return 1 - getLargestFreeBlock() / (double)freeBytes;
+    }
+
+
+    @Override
+    public long getAllocationCount() {
+        return allocations;
+    }
+
+
+    @Override
+    public long getAllocationFailures() {
+        return allocationFailures;
+    }
+
+
+    @Override
+    public long getExpansionCount() {
+        return expansions;
+    }
+
+
+    @Override
+    public long getShrinkCount() {
+        return shrinks;
+    }
+
+
+    /**
+     * Gets the number of bytes of tracked records held in the pool.
+     *
+     * @return The number of resident bytes.
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+
+    /**
+     * Gets the spill file, if a memory budget has been set.
+     *
+     * @return The spill file, or {@code null}.
+     */
+    public SpillFile getSpillFile() {
+        return spillFile;
+    }
+
+
+    /**
+     * Releases the spill file, if any.
+     *
+     * @throws IOException
+     *             If the spill file cannot be closed.
+     */
+    public void close() throws IOException {
+        if (spillFile != null) {
+            spillFile.close();
+        }
+    }
+
+
+    private int allocate(int length) {
+        for (Map.Entry<Integer, Integer> block : freeBlocks.entrySet()) {
+            if (block.getValue() >= length) {
+                int start = block.getKey();
+                int size = block.getValue();
+                freeBlocks.remove(start);
+                if (size > length) {
+                    freeBlocks.put(start + length, size - length);
+                }
+                freeBytes -= length;
+                allocations++;
+                return start;
+            }
+        }
+        allocationFailures++;
+        expandMemoryPool(length);
+        return allocate(length);
+    }
+
+
+    private void release(int start, int length) {
+        freeBytes += length;
+        Map.Entry<Integer, Integer> before = freeBlocks.floorEntry(start);
+        if (before != null && before.getKey() + before.getValue() == start) {
+            start = before.getKey();
+            length += before.getValue();
+            freeBlocks.remove(start);
+        }
+        Integer after = freeBlocks.remove(start + length);
+        if (after != null) {
+            length += after;
+        }
+        freeBlocks.put(start, length);
+    }
+
+
+    private void track(Handle handle) {
+        if (residentHandles != null) {
+            residentHandles.put(handle, handle);
+            residentBytes += handle.getRecordLength();
+            enforceBudget();
+        }
+    }
+
+
+    private void promote(Handle handle, byte[] data) {
+        int length = handle.getRecordLength();
+        spillFile.release(length);
+        int start = allocate(length);
+        System.arraycopy(data, 0, memoryPool, start, length);
+        handle.setStartingPosition(start);
+        handle.setBlockLength(length);
+        handle.setOnDisk(false);
+        track(handle);
+    }
+
+
+    private void enforceBudget() {
+        if (residentHandles == null) {
+            return;
+        }
+        // Always keep the most recent record, even if it alone is over
+        Iterator<Handle> coldest = residentHandles.keySet().iterator();
+        while (residentBytes > memoryBudget && residentHandles.size() > 1) {
+            Handle handle = coldest.next();
+            coldest.remove();
+            spill(handle);
+        }
+    }
+
+
+    private void spill(Handle handle) {
+        int start = handle.getStartingPosition();
+        int length = handle.getRecordLength();
+        try {
+            handle.setDiskPosition(spillFile.append(memoryPool, start,
+                length));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        handle.setOnDisk(true);
+        for (int i = start; i < start + length; i++) {
+            memoryPool[i] = 0;
+        }
+        release(start, handle.getBlockLength());
+        residentBytes -= length;
+    }
+
+
     private void expandMemoryPool(int blockSize) {
+        // Space at the end of the pool that is already free counts towards
+        // the new block
+        int tailStart = poolSize;
+        Map.Entry<Integer, Integer> last = freeBlocks.lastEntry();
+        if (last != null && last.getKey() + last.getValue() == poolSize) {
+            tailStart = last.getKey();
+        }
+
         // Calculate the new size of the memory pool
-        int newSize = poolSize;
-        while (newSize < freeBlockStart + blockSize) {
+        int newSize = Math.max(poolSize, 1);
+        while (newSize < tailStart + blockSize) {
             newSize *= 2;
+            expansions++;
             System.out.println("Memory pool expanded to " + newSize + " bytes");
         }
 
@@ -111,11 +627,10 @@ public class MemManager {
         // Copy the existing data to the new memory pool
         System.arraycopy(memoryPool, 0, newMemoryPool, 0, poolSize);
 
-        // Update the memory pool reference and size
+        // Add the new space to the free list
+        int oldSize = poolSize;
         memoryPool = newMemoryPool;
         poolSize = newSize;
-
-        // Update the freeBlockSize to account for the additional space
-        freeBlockSize = poolSize - freeBlockStart;
+        release(oldSize, newSize - oldSize);
     }
 }
@@ -0,0 +1,94 @@
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The MemManagerMetricsMXBean interface exposes the health of a
+ *          MemManager pool over JMX: its size, how much of it is in use,
+ *          how fragmented the free space is and how often allocations have
+ *          had to grow the pool.
+ */
+public interface MemManagerMetricsMXBean {
+    /**
+     * Gets the current size of the memory pool.
+     *
+     * @return The size in bytes.
+     */
+    int getPoolSize();
+
+
+    /**
+     * Gets the number of bytes in allocated blocks.
+     *
+     * @return The number of used bytes.
+     */
+    long getUsedBytes();
+
+
+    /**
+     * Gets the number of free bytes in the pool.
+     *
+     * @return The number of free bytes.
+     */
+    long getFreeBytes();
+
+
+    /**
+     * Gets the size of the largest free block, which bounds the largest
+     * record that fits without growing the pool.
+     *
+     * @return The size in bytes.
+     */
+    int getLargestFreeBlock();
+
+
+    /**
+     * Gets the number of separate free blocks.
+     *
+     * @return The number of free blocks.
+     */
+    int getFreeBlockCount();
+
+
+    /**
+     * Gets how scattered the free space is, as one minus the share of free
+     * bytes in the largest free block. 0 means all free space is in one
+     * block.
+     *
+     * @return The fragmentation ratio, between 0 and 1.
+     */
+    double getFragmentation();
+
+
+    /**
+     * Gets the number of blocks allocated so far.
+     *
+     * @return The number of allocations.
+     */
+    long getAllocationCount();
+
+
+    /**
+     * Gets the number of allocations that found no free block large
+     * enough and had to grow the pool.
+     *
+     * @return The number of failed allocations.
+     */
+    long getAllocationFailures();
+
+
+    /**
+     * Gets the number of times the pool has doubled in size.
+     *
+     * @return The number of doublings.
+     */
+    long getExpansionCount();
+
+
+    /**
+     * Gets the number of times the pool has been truncated.
+     *
+     * @return The number of shrinks.
+     */
+    long getShrinkCount();
+}
@@ -0,0 +1,239 @@
+import student.TestCase;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The MemManagerTest class contains test methods for the MemManager
+ *          class.
+ */
+public class MemManagerTest extends TestCase {
+    private MemManager memManager;
+    private byte[] block;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        memManager = new MemManager(64);
+        block = new byte[16];
+    }
+
+
+    /**
+     * Tests that freed blocks are reused and merged with their neighbours
+     * instead of growing the pool.
+     */
+    @Test
+    public void testFreeBlockReuse() {
+        Handle h1 = memManager.insert(block, 16);
+        Handle h2 = memManager.insert(block, 16);
+        Handle h3 = memManager.insert(block, 16);
+        memManager.insert(block, 16);
+        memManager.remove(h1);
+        memManager.remove(h2);
+        Handle h5 = memManager.insert(new byte[32], 32);
+        assertEquals(0, h5.getStartingPosition());
+        assertEquals(64, memManager.getPoolSize());
+
+        memManager.remove(h3);
+        Handle h6 = memManager.insert(block, 16);
+        assertEquals(32, h6.getStartingPosition());
+        memManager.insert(block, 16);
+        assertEquals(128, memManager.getPoolSize());
+    }
+
+
+    /**
+     * Tests that a record is overwritten in place while it fits its block,
+     * keeping the slack, and that the whole block is freed on removal.
+     */
+    @Test
+    public void testUpdateInPlace() {
+        Handle h1 = memManager.insert(new byte[] { 1, 2, 3, 4 }, 4, 16);
+        Handle h2 = memManager.insert(block, 16);
+        assertEquals(16, h2.getStartingPosition());
+
+        assertTrue(memManager.update(h1, new byte[] { 9, 8 }, 2));
+        assertEquals(2, h1.getRecordLength());
+        assertEquals(16, h1.getBlockLength());
+        assertTrue(memManager.update(h1, new byte[16], 16));
+        assertFalse(memManager.update(h1, new byte[17], 17));
+
+        byte[] output = new byte[2];
+        assertTrue(memManager.update(h1, new byte[] { 7, 6 }, 2));
+        memManager.get(output, h1, 2);
+        assertEquals(7, output[0]);
+        assertEquals(6, output[1]);
+
+        memManager.remove(h1);
+        Handle h3 = memManager.insert(block, 16);
+        assertEquals(0, h3.getStartingPosition());
+    }
+
+
+    /**
+     * Tests that records over the memory budget go to the spill file and
+     * come back intact, with promotion on read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSpill() throws Exception {
+        File spill = File.createTempFile("semmanager", ".spill");
+        memManager.setMemoryBudget(32, spill.getPath());
+        Handle[] handles = new Handle[4];
+        for (int i = 0; i < 4; i++) {
+            byte[] data = new byte[16];
+            data[0] = (byte)i;
+            handles[i] = memManager.insert(data, 16);
+        }
+        assertTrue(handles[0].isOnDisk());
+        assertTrue(handles[1].isOnDisk());
+        assertFalse(handles[3].isOnDisk());
+        assertEquals(32, memManager.getResidentBytes());
+        assertEquals(32, memManager.getSpillFile().getSize());
+
+        byte[] output = new byte[16];
+        memManager.get(output, handles[0], 16);
+        assertEquals(0, output[0]);
+        assertFalse(handles[0].isOnDisk());
+        assertTrue(handles[2].isOnDisk());
+
+        memManager.setPromoteOnRead(false);
+        memManager.get(output, handles[1], 16);
+        assertEquals(1, output[0]);
+        assertTrue(handles[1].isOnDisk());
+
+        memManager.remove(handles[1]);
+        assertEquals(32, memManager.getSpillFile().getDeadBytes());
+        memManager.close();
+        assertFalse(spill.exists());
+    }
+
+
+    /**
+     * Tests that peeking leaves spilled records on disk, and that records
+     * bulk loaded before a budget was set are spilled once adopted.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPeekAndAdopt() throws Exception {
+        File spill = File.createTempFile("semmanager", ".spill");
+        memManager.setMemoryBudget(32, spill.getPath());
+        Handle[] handles = new Handle[3];
+        for (int i = 0; i < 3; i++) {
+            byte[] data = new byte[16];
+            data[0] = (byte)(i + 1);
+            handles[i] = memManager.insert(data, 16);
+        }
+        byte[] output = new byte[16];
+        memManager.peek(output, handles[0], 16);
+        assertEquals(1, output[0]);
+        assertTrue(handles[0].isOnDisk());
+        assertEquals(32, memManager.getResidentBytes());
+        memManager.close();
+
+        MemManager loaded = new MemManager(16);
+        byte[] records = new byte[48];
+        records[16] = 2;
+        int base = loaded.bulkLoad(ByteBuffer.wrap(records), 48);
+        File loadedSpill = File.createTempFile("semmanager", ".spill");
+        loaded.setMemoryBudget(32, loadedSpill.getPath());
+        Handle[] adopted = new Handle[3];
+        for (int i = 0; i < 3; i++) {
+            adopted[i] = new Handle(base + 16 * i, 16);
+            loaded.adopt(adopted[i]);
+            loaded.adopt(adopted[i]); // a shared block counts once
+        }
+        assertTrue(adopted[0].isOnDisk());
+        assertFalse(adopted[1].isOnDisk());
+        assertEquals(32, loaded.getResidentBytes());
+        loaded.get(output, adopted[1], 16);
+        assertEquals(2, output[0]);
+        loaded.close();
+    }
+
+
+    /**
+     * Tests the free space, fragmentation and expansion counters.
+     */
+    @Test
+    public void testMetrics() {
+        Handle h1 = memManager.insert(block, 16);
+        memManager.insert(block, 16);
+        Handle h3 = memManager.insert(block, 16);
+        assertEquals(48, memManager.getUsedBytes());
+        assertEquals(16, memManager.getFreeBytes());
+
+        memManager.remove(h1);
+        memManager.remove(h3);
+        assertEquals(2, memManager.getFreeBlockCount());
+        assertEquals(32, memManager.getLargestFreeBlock());
+        assertEquals(1 - 32 / 48.0, memManager.getFragmentation(), 0.0001);
+        assertEquals(0, memManager.getAllocationFailures());
+
+        memManager.insert(new byte[40], 40);
+        assertEquals(1, memManager.getAllocationFailures());
+        assertEquals(1, memManager.getExpansionCount());
+        assertEquals(4, memManager.getAllocationCount());
+        assertEquals(memManager.getPoolSize(), memManager.getUsedBytes()
+            + memManager.getFreeBytes());
+    }
+
+
+    /**
+     * Tests that a sparse pool is compacted and truncated, and that the
+     * records survive the move.
+     */
+    @Test
+    public void testShrink() {
+        memManager.setShrinkThreshold(0.25, 64);
+        Handle[] handles = new Handle[32];
+        for (int i = 0; i < handles.length; i++) {
+            byte[] data = new byte[16];
+            data[0] = (byte)i;
+            handles[i] = memManager.insert(data, 16);
+        }
+        assertEquals(512, memManager.getPoolSize());
+        assertFalse(memManager.needsShrink());
+
+        ArrayList<Handle> live = new ArrayList<>();
+        for (int i = 0; i < handles.length; i++) {
+            if (i % 11 == 5) {
+                live.add(handles[i]);
+            }
+            else {
+                memManager.remove(handles[i]);
+            }
+        }
+        assertTrue(memManager.needsShrink());
+        assertEquals(128, memManager.shrink(live));
+        assertEquals(1, memManager.getShrinkCount());
+        assertEquals(48, memManager.getUsedBytes());
+        assertEquals(1, memManager.getFreeBlockCount());
+        byte[] output = new byte[16];
+        memManager.get(output, handles[27], 16);
+        assertEquals(27, output[0]);
+        assertEquals(32, handles[27].getStartingPosition());
+
+        // A pool a quarter full or more stays as it is
+        assertFalse(memManager.needsShrink());
+        assertEquals(128, memManager.shrink(live));
+        try {
+            memManager.setShrinkThreshold(0.5, 64);
+            fail("threshold above a quarter was accepted");
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,463 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The PRQuadTree class is a point-region quadtree over the (x, y)
+ *          locations of the seminars. The world covers the full range of a
+ *          {@code short} in both dimensions and is split into four equal
+ *          quadrants whenever a leaf holds more than a fixed number of
+ *          points. It supports incremental insertion and removal, and
+ *          region and radius searches that only visit the nodes whose box
+ *          touches the query.
+ */
+public class PRQuadTree {
+    private static final int WORLD_MIN = Short.MIN_VALUE;
+    private static final int WORLD_SIZE = 1 << 16;
+    private static final int LEAF_CAPACITY = 8;
+
+    private QuadNode root; // null when the tree is empty
+    private int size;
+    private ThreadLocal<int[]> nodesVisited; // per thread, as searches
+                                             // may run concurrently
+
+    /**
+     * Initializes a new, empty instance of the PRQuadTree class.
+     */
+    public PRQuadTree() {
+        root = null;
+        size = 0;
+        nodesVisited = ThreadLocal.withInitial(() -> new int[1]);
+    }
+
+
+    /**
+     * Inserts a seminar location into the tree.
+     *
+     * @param x
+     *            The X-coordinate of the seminar location.
+     * @param y
+     *            The Y-coordinate of the seminar location.
+     * @param id
+     *            The ID of the seminar record.
+     */
+    public void insert(short x, short y, int id) {
+        root = insert(root, WORLD_MIN, WORLD_MIN, WORLD_SIZE, x, y, id);
+        size++;
+    }
+
+
+    /**
+     * Removes a seminar location from the tree.
+     *
+     * @param x
+     *            The X-coordinate of the seminar location.
+     * @param y
+     *            The Y-coordinate of the seminar location.
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the point was found and removed,
+     *         otherwise {@code false}.
+     */
+    public boolean remove(short x, short y, int id) {
+        int before = size;
+        root = remove(root, WORLD_MIN, WORLD_MIN, WORLD_SIZE, x, y, id);
+        return size < before;
+    }
+
+
+    /**
+     * Finds every seminar whose location lies in the rectangle starting at
+     * (x, y) with the given width and height. The lower edges are
+     * inclusive and the upper edges exclusive.
+     *
+     * @param x
+     *            The X-coordinate of the rectangle corner.
+     * @param y
+     *            The Y-coordinate of the rectangle corner.
+     * @param w
+     *            The width of the rectangle.
+     * @param h
+     *            The height of the rectangle.
+     * @return The IDs of the matching seminars.
+     */
+    public ArrayList<Integer> regionSearch(int x, int y, int w, int h) {
+        ArrayList<Integer> result = new ArrayList<>();
+        int visited = 0;
+        if (w > 0 && h > 0) {
+            visited = regionSearch(root, WORLD_MIN, WORLD_MIN, WORLD_SIZE, x,
+                y, x + w, y + h, result);
+        }
+        nodesVisited.get()[0] = visited;
+        return result;
+    }
+
+
+    /**
+     * Finds every seminar whose location is within the given Euclidean
+     * distance of (x, y).
+     *
+     * @param x
+     *            The X-coordinate of the query point.
+     * @param y
+     *            The Y-coordinate of the query point.
+     * @param radius
+     *            The search radius.
+     * @return The IDs of the matching seminars.
+     */
+    public ArrayList<Integer> nearSearch(int x, int y, int radius) {
+        ArrayList<Integer> result = new ArrayList<>();
+        int visited = 0;
+        if (radius >= 0) {
+            visited = nearSearch(root, WORLD_MIN, WORLD_MIN, WORLD_SIZE, x, y,
+                (long)radius * radius, result);
+        }
+        nodesVisited.get()[0] = visited;
+        return result;
+    }
+
+
+    /**
+     * Gets the number of nodes visited by the most recent search made on
+     * the calling thread.
+     *
+     * @return The number of nodes visited.
+     */
+    public int getNodesVisited() {
+        return nodesVisited.get()[0];
+    }
+
+
+    /**
+     * Gets the number of points stored in the tree.
+     *
+     * @return The number of points.
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    /**
+     * Writes the tree node by node, so that {@link #read} can rebuild the
+     * same nodes without splitting them again.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        writeNode(out, root);
+    }
+
+
+    /**
+     * Reads a tree written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The tree.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static PRQuadTree read(DataInput in) throws IOException {
+        PRQuadTree tree = new PRQuadTree();
+        tree.size = in.readInt();
+        tree.root = readNode(in);
+        return tree;
+    }
+
+
+    private static void writeNode(DataOutput out, QuadNode node)
+        throws IOException {
+        if (node == null) {
+            out.writeByte(0);
+        }
+        else if (node.isLeaf()) {
+            out.writeByte(1);
+            out.writeInt(node.count);
+            for (int i = 0; i < node.count; i++) {
+                out.writeShort(node.xs[i]);
+                out.writeShort(node.ys[i]);
+                out.writeInt(node.ids[i]);
+            }
+        }
+        else {
+            out.writeByte(2);
+            out.writeInt(node.count);
+            for (QuadNode child : node.children) {
+                writeNode(out, child);
+            }
+        }
+    }
+
+
+    private static QuadNode readNode(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        if (kind == 0) {
+            return null;
+        }
+        QuadNode node = new QuadNode();
+        int count = in.readInt();
+        if (kind == 1) {
+            for (int i = 0; i < count; i++) {
+                node.add(in.readShort(), in.readShort(), in.readInt());
+            }
+            return node;
+        }
+        node.count = count;
+        node.children = new QuadNode[4];
+        for (int q = 0; q < 4; q++) {
+            node.children[q] = readNode(in);
+        }
+        return node;
+    }
+
+
+    private QuadNode insert(
+        QuadNode node,
+        int nx,
+        int ny,
+        int nodeSize,
+        short x,
+        short y,
+        int id) {
+        if (node == null) {
+            node = new QuadNode();
+        }
+
+        if (node.isLeaf()) {
+            node.add(x, y, id);
+            // A cell of size 1 can only hold identical points, so it is
+            // never split no matter how many seminars share the location
+            if (node.count > LEAF_CAPACITY && nodeSize > 1) {
+                node = split(node, nx, ny, nodeSize);
+            }
+            return node;
+        }
+
+        int half = nodeSize / 2;
+        int q = quadrant(nx, ny, half, x, y);
+        node.children[q] = insert(node.children[q], nx + (q & 1) * half, ny
+            + (q >> 1) * half, half, x, y, id);
+        node.count++;
+        return node;
+    }
+
+
+    private QuadNode split(QuadNode leaf, int nx, int ny, int nodeSize) {
+        QuadNode internal = new QuadNode();
+        internal.children = new QuadNode[4];
+        for (int i = 0; i < leaf.count; i++) {
+            insert(internal, nx, ny, nodeSize, (short)leaf.xs[i],
+                (short)leaf.ys[i], leaf.ids[i]);
+        }
+        return internal;
+    }
+
+
+    private QuadNode remove(
+        QuadNode node,
+        int nx,
+        int ny,
+        int nodeSize,
+        short x,
+        short y,
+        int id) {
+        if (node == null) {
+            return null;
+        }
+
+        if (node.isLeaf()) {
+            if (node.removeEntry(x, y, id)) {
+                size--;
+            }
+            return node.count == 0 ? null : node;
+        }
+
+        int half = nodeSize / 2;
+        int q = quadrant(nx, ny, half, x, y);
+        int before = size;
+        node.children[q] = remove(node.children[q], nx + (q & 1) * half, ny
+            + (q >> 1) * half, half, x, y, id);
+        if (size < before) {
+            node.count--;
+        }
+
+        if (node.count == 0) {
+            return null;
+        }
+        if (node.count <= LEAF_CAPACITY) {
+            return merge(node);
+        }
+        return node;
+    }
+
+
+    private QuadNode merge(QuadNode internal) {
+        QuadNode leaf = new QuadNode();
+        collect(internal, leaf);
+        return leaf;
+    }
+
+
+    private void collect(QuadNode node, QuadNode leaf) {
+        if (node == null) {
+            return;
+        }
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.count; i++) {
+                leaf.add((short)node.xs[i], (short)node.ys[i], node.ids[i]);
+            }
+            return;
+        }
+        for (QuadNode child : node.children) {
+            collect(child, leaf);
+        }
+    }
+
+
+    private int regionSearch(
+        QuadNode node,
+        int nx,
+        int ny,
+        int nodeSize,
+        int x1,
+        int y1,
+        int x2,
+        int y2,
+        ArrayList<Integer> result) {
+        if (node == null) {
+            return 0;
+        }
+        int visited = 1;
+
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.count; i++) {
+                if (node.xs[i] >= x1 && node.xs[i] < x2 && node.ys[i] >= y1
+                    && node.ys[i] < y2) {
+                    result.add(node.ids[i]);
+                }
+            }
+            return visited;
+        }
+
+        int half = nodeSize / 2;
+        for (int q = 0; q < 4; q++) {
+            int cx = nx + (q & 1) * half;
+            int cy = ny + (q >> 1) * half;
+            // Only descend into quadrants whose box overlaps the query
+            if (cx < x2 && cx + half > x1 && cy < y2 && cy + half > y1) {
+                visited += regionSearch(node.children[q], cx, cy, half, x1,
+                    y1, x2, y2, result);
+            }
+        }
+        return visited;
+    }
+
+
+    private int nearSearch(
+        QuadNode node,
+        int nx,
+        int ny,
+        int nodeSize,
+        int x,
+        int y,
+        long radiusSquared,
+        ArrayList<Integer> result) {
+        if (node == null) {
+            return 0;
+        }
+        int visited = 1;
+
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.count; i++) {
+                long dx = node.xs[i] - x;
+                long dy = node.ys[i] - y;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    result.add(node.ids[i]);
+                }
+            }
+            return visited;
+        }
+
+        int half = nodeSize / 2;
+        for (int q = 0; q < 4; q++) {
+            int cx = nx + (q & 1) * half;
+            int cy = ny + (q >> 1) * half;
+            // Distance from the query point to the closest point of the box
+            long dx = Math.max(0, Math.max(cx - x, x - (cx + half - 1)));
+            long dy = Math.max(0, Math.max(cy - y, y - (cy + half - 1)));
+            if (dx * dx + dy * dy <= radiusSquared) {
+                visited += nearSearch(node.children[q], cx, cy, half, x, y,
+                    radiusSquared, result);
+            }
+        }
+        return visited;
+    }
+
+
+    private static int quadrant(int nx, int ny, int half, int x, int y) {
+        int qx = x >= nx + half ? 1 : 0;
+        int qy = y >= ny + half ? 1 : 0;
+        return (qy << 1) | qx;
+    }
+
+    /**
+     * The QuadNode class is a single node of the tree. Leaves keep their
+     * points in parallel primitive arrays, internal nodes keep four
+     * children (any of which may be {@code null}) and the number of points
+     * below them.
+     */
+    private static class QuadNode {
+        QuadNode[] children;
+        int count;
+        int[] xs;
+        int[] ys;
+        int[] ids;
+
+        boolean isLeaf() {
+            return children == null;
+        }
+
+
+        void add(short x, short y, int id) {
+            if (xs == null) {
+                xs = new int[LEAF_CAPACITY + 1];
+                ys = new int[LEAF_CAPACITY + 1];
+                ids = new int[LEAF_CAPACITY + 1];
+            }
+            else if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            ids[count] = id;
+            count++;
+        }
+
+
+        boolean removeEntry(short x, short y, int id) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == id && xs[i] == x && ys[i] == y) {
+                    count--;
+                    xs[i] = xs[count];
+                    ys[i] = ys[count];
+                    ids[i] = ids[count];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
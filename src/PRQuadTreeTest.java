@@ -0,0 +1,129 @@
+import student.TestCase;
+import java.util.ArrayList;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The PRQuadTreeTest class contains test methods for the PRQuadTree
+ *          class.
+ */
+public class PRQuadTreeTest extends TestCase {
+    private PRQuadTree tree;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        tree = new PRQuadTree();
+        tree.insert((short)10, (short)10, 1);
+        tree.insert((short)20, (short)10, 2);
+        tree.insert((short)30, (short)10, 3);
+        tree.insert((short)0, (short)0, 10);
+    }
+
+
+    /**
+     * Tests that a region search only returns the points inside the
+     * rectangle, with the upper edges excluded.
+     */
+    @Test
+    public void testRegionSearch() {
+        ArrayList<Integer> ids = tree.regionSearch(5, 5, 20, 10);
+        Collections.sort(ids);
+        assertEquals("[1, 2]", ids.toString());
+
+        ids = tree.regionSearch(0, 0, 10, 10);
+        assertEquals("[10]", ids.toString());
+        assertEquals(0, tree.regionSearch(0, 0, 0, 10).size());
+    }
+
+
+    /**
+     * Tests that a radius search uses Euclidean distance and includes
+     * points exactly on the circle.
+     */
+    @Test
+    public void testNearSearch() {
+        ArrayList<Integer> ids = tree.nearSearch(20, 10, 10);
+        Collections.sort(ids);
+        assertEquals("[1, 2, 3]", ids.toString());
+
+        ids = tree.nearSearch(0, 0, 14);
+        assertEquals("[10]", ids.toString());
+        ids = tree.nearSearch(0, 0, 15);
+        Collections.sort(ids);
+        assertEquals("[1, 10]", ids.toString());
+    }
+
+
+    /**
+     * Tests that removed points are no longer found and that removing a
+     * missing point fails.
+     */
+    @Test
+    public void testRemove() {
+        assertTrue(tree.remove((short)20, (short)10, 2));
+        assertFalse(tree.remove((short)20, (short)10, 2));
+        assertFalse(tree.remove((short)11, (short)10, 1));
+        assertEquals(3, tree.getSize());
+        assertEquals("[1]", tree.regionSearch(5, 5, 20, 10).toString());
+    }
+
+
+    /**
+     * Tests that the tree splits and merges correctly with many points,
+     * including many seminars at the same location.
+     */
+    @Test
+    public void testSplitAndMerge() {
+        PRQuadTree big = new PRQuadTree();
+        for (int i = 0; i < 100; i++) {
+            big.insert((short)(i * 100), (short)(-i * 100), i);
+            big.insert((short)5, (short)5, 1000 + i);
+        }
+        assertEquals(200, big.getSize());
+        assertEquals(100, big.nearSearch(5, 5, 0).size());
+        assertEquals(9, big.regionSearch(0, -900, 1000, 900).size());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(big.remove((short)(i * 100), (short)(-i * 100), i));
+        }
+        assertEquals(100, big.getSize());
+        assertEquals(100, big.regionSearch(Short.MIN_VALUE, Short.MIN_VALUE,
+            1 << 16, 1 << 16).size());
+        assertTrue(big.getNodesVisited() > 0);
+    }
+
+
+    /**
+     * Tests that the visit count of a search is not disturbed by searches
+     * on other threads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNodesVisitedPerThread() throws Exception {
+        PRQuadTree big = new PRQuadTree();
+        for (int i = 0; i < 100; i++) {
+            big.insert((short)(i * 100), (short)(-i * 100), i);
+        }
+        big.regionSearch(0, -100, 1, 1);
+        int visited = big.getNodesVisited();
+        int[] other = new int[1];
+        Thread searcher = new Thread(() -> {
+            big.regionSearch(Short.MIN_VALUE, Short.MIN_VALUE, 1 << 16,
+                1 << 16);
+            other[0] = big.getNodesVisited();
+        });
+        searcher.start();
+        searcher.join();
+        assertTrue(other[0] > visited);
+        assertEquals(visited, big.getNodesVisited());
+    }
+}
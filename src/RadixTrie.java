@@ -0,0 +1,406 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The RadixTrie class is a compact (Patricia) trie over seminar
+ *          titles for prefix lookups. Chains of single-child nodes are
+ *          collapsed into one edge label, and each node keeps the IDs of the
+ *          seminars whose title ends there. Titles are matched without
+ *          regard to case.
+ */
+public class RadixTrie {
+    // Rough JVM sizes used by estimateMemory(), assuming compressed
+    // references and compact Latin-1 strings
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_OVERHEAD = 24 + OBJECT_HEADER;
+
+    private TrieNode root;
+    private int size;
+
+    /**
+     * Initializes a new, empty instance of the RadixTrie class.
+     */
+    public RadixTrie() {
+        root = new TrieNode("");
+        size = 0;
+    }
+
+
+    /**
+     * Inserts a seminar title into the trie.
+     *
+     * @param title
+     *            The title of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     */
+    public void insert(String title, int id) {
+        String key = title.toLowerCase();
+        TrieNode node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int index = node.childIndex(key.charAt(pos));
+            if (index < 0) {
+                TrieNode leaf = new TrieNode(key.substring(pos));
+                node.addChild(leaf);
+                node = leaf;
+                pos = key.length();
+                break;
+            }
+
+            TrieNode child = node.children[index];
+            int common = commonPrefix(child.label, key, pos);
+            if (common < child.label.length()) {
+                // Split the edge where the new title leaves it
+                TrieNode middle = new TrieNode(child.label.substring(0,
+                    common));
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            pos += common;
+        }
+        node.addId(id);
+        size++;
+    }
+
+
+    /**
+     * Removes a seminar title from the trie, merging any nodes that are
+     * left with a single child and no IDs.
+     *
+     * @param title
+     *            The title of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the title was found and removed,
+     *         otherwise {@code false}.
+     */
+    public boolean remove(String title, int id) {
+        String key = title.toLowerCase();
+        ArrayList<TrieNode> path = new ArrayList<>();
+        TrieNode node = root;
+        int pos = 0;
+        path.add(node);
+        while (pos < key.length()) {
+            int index = node.childIndex(key.charAt(pos));
+            if (index < 0 || !key.startsWith(node.children[index].label,
+                pos)) {
+                return false;
+            }
+            node = node.children[index];
+            pos += node.label.length();
+            path.add(node);
+        }
+        if (!node.removeId(id)) {
+            return false;
+        }
+        size--;
+
+        // Walk back up, dropping empty leaves and collapsing pass-through
+        // nodes
+        for (int i = path.size() - 1; i > 0; i--) {
+            TrieNode current = path.get(i);
+            TrieNode parent = path.get(i - 1);
+            if (current.idCount == 0 && current.childCount == 0) {
+                parent.removeChild(current);
+            }
+            else if (current.idCount == 0 && current.childCount == 1) {
+                TrieNode only = current.children[0];
+                only.label = current.label + only.label;
+                parent.children[parent.childIndex(current.label.charAt(
+                    0))] = only;
+                break;
+            }
+            else {
+                break;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Finds the seminars whose title starts with the given prefix, in
+     * alphabetical order of title.
+     *
+     * @param prefix
+     *            The title prefix to match.
+     * @param limit
+     *            The maximum number of IDs to return.
+     * @return The IDs of up to {@code limit} matching seminars.
+     */
+    public ArrayList<Integer> prefixSearch(String prefix, int limit) {
+        ArrayList<Integer> result = new ArrayList<>();
+        String key = prefix.toLowerCase();
+        TrieNode node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int index = node.childIndex(key.charAt(pos));
+            if (index < 0) {
+                return result;
+            }
+            TrieNode child = node.children[index];
+            int common = commonPrefix(child.label, key, pos);
+            // The prefix must either run through the whole edge or end
+            // part way along it
+            if (common < child.label.length() && pos + common < key
+                .length()) {
+                return result;
+            }
+            node = child;
+            pos += common;
+        }
+        collect(node, limit, result);
+        return result;
+    }
+
+
+    /**
+     * Gets the number of titles stored in the trie.
+     *
+     * @return The number of titles.
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    /**
+     * Gets the number of nodes in the trie, including the root.
+     *
+     * @return The number of nodes.
+     */
+    public int getNodeCount() {
+        return countNodes(root);
+    }
+
+
+    /**
+     * Estimates the number of heap bytes held by the trie, counting the
+     * nodes, their labels and their child and ID arrays.
+     *
+     * @return The estimated memory footprint in bytes.
+     */
+    public long estimateMemory() {
+        return estimateMemory(root);
+    }
+
+
+    /**
+     * Writes the trie node by node, so that {@link #read} can rebuild the
+     * same nodes without matching the titles again.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        writeNode(out, root);
+    }
+
+
+    /**
+     * Reads a trie written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The trie.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static RadixTrie read(DataInput in) throws IOException {
+        RadixTrie trie = new RadixTrie();
+        trie.size = in.readInt();
+        trie.root = readNode(in);
+        return trie;
+    }
+
+
+    private static void writeNode(DataOutput out, TrieNode node)
+        throws IOException {
+        out.writeUTF(node.label);
+        out.writeInt(node.idCount);
+        for (int i = 0; i < node.idCount; i++) {
+            out.writeInt(node.ids[i]);
+        }
+        out.writeInt(node.childCount);
+        for (int i = 0; i < node.childCount; i++) {
+            writeNode(out, node.children[i]);
+        }
+    }
+
+
+    private static TrieNode readNode(DataInput in) throws IOException {
+        TrieNode node = new TrieNode(in.readUTF());
+        node.idCount = in.readInt();
+        if (node.idCount > 0) {
+            node.ids = new int[node.idCount];
+            for (int i = 0; i < node.idCount; i++) {
+                node.ids[i] = in.readInt();
+            }
+        }
+        node.childCount = in.readInt();
+        if (node.childCount > 0) {
+            // Children were written in label order, which is kept
+            node.children = new TrieNode[node.childCount];
+            for (int i = 0; i < node.childCount; i++) {
+                node.children[i] = readNode(in);
+            }
+        }
+        return node;
+    }
+
+
+    private void collect(TrieNode node, int limit, ArrayList<Integer> result) {
+        for (int i = 0; i < node.idCount && result.size() < limit; i++) {
+            result.add(node.ids[i]);
+        }
+        for (int i = 0; i < node.childCount && result.size() < limit; i++) {
+            collect(node.children[i], limit, result);
+        }
+    }
+
+
+    private int countNodes(TrieNode node) {
+        int count = 1;
+        for (int i = 0; i < node.childCount; i++) {
+            count += countNodes(node.children[i]);
+        }
+        return count;
+    }
+
+
+    private long estimateMemory(TrieNode node) {
+        long bytes = align(OBJECT_HEADER + 3 * REFERENCE + 2 * 4);
+        bytes += align(STRING_OVERHEAD + node.label.length());
+        if (node.children != null) {
+            bytes += align(OBJECT_HEADER + REFERENCE * node.children.length);
+        }
+        if (node.ids != null) {
+            bytes += align(OBJECT_HEADER + 4 * node.ids.length);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            bytes += estimateMemory(node.children[i]);
+        }
+        return bytes;
+    }
+
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * The TrieNode class is a single node of the trie. Children are kept
+     * sorted by the first character of their label.
+     */
+    private static class TrieNode {
+        String label;
+        TrieNode[] children;
+        int childCount;
+        int[] ids;
+        int idCount;
+
+        TrieNode(String label) {
+            this.label = label;
+        }
+
+
+        int childIndex(char first) {
+            int lo = 0;
+            int hi = childCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    lo = mid + 1;
+                }
+                else if (c > first) {
+                    hi = mid - 1;
+                }
+                else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+
+        void addChild(TrieNode child) {
+            if (children == null) {
+                children = new TrieNode[2];
+            }
+            else if (childCount == children.length) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            char first = child.label.charAt(0);
+            int pos = childCount;
+            while (pos > 0 && children[pos - 1].label.charAt(0) > first) {
+                children[pos] = children[pos - 1];
+                pos--;
+            }
+            children[pos] = child;
+            childCount++;
+        }
+
+
+        void removeChild(TrieNode child) {
+            int index = childIndex(child.label.charAt(0));
+            System.arraycopy(children, index + 1, children, index, childCount
+                - index - 1);
+            childCount--;
+            children[childCount] = null;
+            if (childCount == 0) {
+                children = null;
+            }
+        }
+
+
+        void addId(int id) {
+            if (ids == null) {
+                ids = new int[1];
+            }
+            else if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, idCount * 2);
+            }
+            ids[idCount++] = id;
+        }
+
+
+        boolean removeId(int id) {
+            for (int i = 0; i < idCount; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--idCount];
+                    if (idCount == 0) {
+                        ids = null;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
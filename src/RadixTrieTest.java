@@ -0,0 +1,77 @@
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The RadixTrieTest class contains test methods for the RadixTrie
+ *          class.
+ */
+public class RadixTrieTest extends TestCase {
+    private RadixTrie trie;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        trie = new RadixTrie();
+        trie.insert("Overview of HCI Research at VT", 1);
+        trie.insert("Computational Biology and Bioinformatics", 2);
+        trie.insert("Computing Systems Research at VT", 3);
+        trie.insert("Overview of HPC and CSE Research at VT", 10);
+        trie.insert("Overview of HPC and CSE Research at VT", 11);
+    }
+
+
+    /**
+     * Tests prefix matches that end on a node and part way along an edge,
+     * ignoring case.
+     */
+    @Test
+    public void testPrefixSearch() {
+        assertEquals("[1, 10, 11]", trie.prefixSearch("overview", 10)
+            .toString());
+        assertEquals("[2, 3]", trie.prefixSearch("Comput", 10).toString());
+        assertEquals("[10, 11]", trie.prefixSearch("Overview of HP", 10)
+            .toString());
+        assertEquals("[]", trie.prefixSearch("Overview of X", 10).toString());
+        assertEquals("[]", trie.prefixSearch("Computing Systems Research "
+            + "at VT and more", 10).toString());
+        assertEquals(5, trie.prefixSearch("", 10).size());
+    }
+
+
+    /**
+     * Tests that the result limit is honoured.
+     */
+    @Test
+    public void testLimit() {
+        assertEquals("[1, 10]", trie.prefixSearch("o", 2).toString());
+        assertEquals(0, trie.prefixSearch("o", 0).size());
+    }
+
+
+    /**
+     * Tests that removal drops titles and collapses the trie back down.
+     */
+    @Test
+    public void testRemove() {
+        int nodes = trie.getNodeCount();
+        long bytes = trie.estimateMemory();
+        trie.insert("Computing Clusters", 20);
+        assertTrue(trie.getNodeCount() > nodes);
+        assertTrue(trie.remove("computing clusters", 20));
+        assertEquals(nodes, trie.getNodeCount());
+        assertEquals(bytes, trie.estimateMemory());
+
+        assertFalse(trie.remove("Computing", 3));
+        assertFalse(trie.remove("Computing Systems Research at VT", 4));
+        assertTrue(trie.remove("Computing Systems Research at VT", 3));
+        assertEquals("[2]", trie.prefixSearch("comput", 10).toString());
+        assertEquals(4, trie.getSize());
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The RecordSpliterator class walks a fixed list of record IDs and
+ *          their handles, decoding each record from the memory pool only
+ *          when it is handed to the consumer. The list is taken when the
+ *          scan starts, so the store must not be changed until the scan is
+ *          finished. It splits in halves, so it can drive a parallel
+ *          stream.
+ *
+ *          The list can be put in ID order with {@link #sortById}, an LSD
+ *          radix sort over the primitive keys that moves the handles along
+ *          with them, so no boxed keys are created.
+ */
+public class RecordSpliterator implements Spliterator<SeminarRecord> {
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+
+    private int[] ids;
+    private Handle[] handles;
+    private int position;
+    private int end;
+    private boolean sorted;
+    private Decoder decoder;
+
+    /**
+     * Initializes a new instance of the RecordSpliterator class.
+     *
+     * @param ids
+     *            The IDs of the records to visit.
+     * @param handles
+     *            The handles of the records, parallel to the IDs.
+     * @param count
+     *            The number of records to visit from the start.
+     * @param sorted
+     *            Whether the IDs are in increasing order.
+     * @param decoder
+     *            Reads a record from its handle.
+     */
+    public RecordSpliterator(
+        int[] ids,
+        Handle[] handles,
+        int count,
+        boolean sorted,
+        Decoder decoder) {
+        this(ids, handles, 0, count, sorted, decoder);
+    }
+
+
+    private RecordSpliterator(
+        int[] ids,
+        Handle[] handles,
+        int position,
+        int end,
+        boolean sorted,
+        Decoder decoder) {
+        this.ids = ids;
+        this.handles = handles;
+        this.position = position;
+        this.end = end;
+        this.sorted = sorted;
+        this.decoder = decoder;
+    }
+
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SeminarRecord> action) {
+        if (position >= end) {
+            return false;
+        }
+        action.accept(decode(position++));
+        return true;
+    }
+
+
+    @Override
+    public void forEachRemaining(Consumer<? super SeminarRecord> action) {
+        while (position < end) {
+            action.accept(decode(position++));
+        }
+    }
+
+
+    @Override
+    public Spliterator<SeminarRecord> trySplit() {
+        int middle = (position + end) >>> 1;
+        if (middle <= position) {
+            return null;
+        }
+        RecordSpliterator prefix = new RecordSpliterator(ids, handles,
+            position, middle, sorted, decoder);
+        position = middle;
+        return prefix;
+    }
+
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+
+    @Override
+    public int characteristics() {
+        int characteristics = ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT;
+        return sorted ? characteristics | SORTED : characteristics;
+    }
+
+
+    @Override
+    public Comparator<? super SeminarRecord> getComparator() {
+        if (!sorted) {
+            throw new IllegalStateException();
+        }
+        return Comparator.comparingInt(SeminarRecord::getId);
+    }
+
+
+    /**
+     * Sorts the first {@code count} IDs into increasing order, moving each
+     * handle with its ID. Negative IDs sort before positive ones.
+     *
+     * @param ids
+     *            The IDs to sort.
+     * @param handles
+     *            The handles, parallel to the IDs.
+     * @param count
+     *            The number of entries to sort.
+     */
+    public static void sortById(int[] ids, Handle[] handles, int count) {
+        int[] keyBuffer = new int[count];
+        Handle[] handleBuffer = new Handle[count];
+        int[] from = ids;
+        int[] to = keyBuffer;
+        Handle[] fromHandles = handles;
+        Handle[] toHandles = handleBuffer;
+        int[] counts = new int[BUCKETS + 1];
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < count; i++) {
+                counts[digit(from[i], shift) + 1]++;
+            }
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int i = 0; i < count; i++) {
+                int slot = counts[digit(from[i], shift)]++;
+                to[slot] = from[i];
+                toHandles[slot] = fromHandles[i];
+            }
+            int[] keys = from;
+            from = to;
+            to = keys;
+            Handle[] swap = fromHandles;
+            fromHandles = toHandles;
+            toHandles = swap;
+        }
+        // An even number of passes leaves the result back in the inputs
+    }
+
+
+    private static int digit(int key, int shift) {
+        // Flipping the sign bit orders negative keys first
+        return ((key ^ Integer.MIN_VALUE) >>> shift) & (BUCKETS - 1);
+    }
+
+
+    private SeminarRecord decode(int index) {
+        try {
+            return decoder.decode(ids[index], handles[index]);
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new IllegalStateException("Cannot decode record "
+                + ids[index], e);
+        }
+    }
+
+    /**
+     * The Decoder interface reads one record from the memory pool.
+     */
+    public interface Decoder {
+        /**
+         * Reads a record.
+         *
+         * @param id
+         *            The ID of the record.
+         * @param handle
+         *            The handle of the record.
+         * @return The record.
+         * @throws Exception
+         *             If the record cannot be read.
+         */
+        SeminarRecord decode(int id, Handle handle) throws Exception;
+    }
+}
@@ -0,0 +1,488 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import javax.management.ObjectName;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ReplicaFollower class keeps a SemManager in step with a
+ *          primary's by applying the stream of changes sent by a
+ *          {@link ReplicationPrimary}. On connecting it catches up, from a
+ *          snapshot when it is new or has missed too much and from the
+ *          primary's backlog otherwise, and from then on applies each
+ *          insert, update and delete as it arrives, using the serialized
+ *          record the primary sent. If the connection drops it reconnects
+ *          and carries on from the last change it applied.
+ *
+ *          Frames that arrive together are applied as one batch. When the
+ *          copy is being served by a read-only SemServer, each batch is
+ *          applied under the server's write lock, so searches never see a
+ *          change half made.
+ *
+ *          Usage: java ReplicaFollower [--primary-host {host}]
+ *          [--primary-port {port}] [--port {port}] [--address {host}]
+ *          {initial-memory-size} {initial-hash-size}
+ */
+public class ReplicaFollower implements ReplicaMetricsMXBean, Closeable {
+    /**
+     * The port the copy is served on when none is given.
+     */
+    public static final int DEFAULT_PORT = 7072;
+
+    private static final long RETRY_MILLIS = 500;
+    private static final int MAX_APPLY_BATCH = 256;
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 8;
+    private static final int CHECKSUM_SIZE = 8;
+
+    private SemManager semManager;
+    private SemServer server; // null when the copy is not served
+    private InetAddress primaryAddress;
+    private int primaryPort;
+    private Thread receiver;
+    private volatile Socket socket;
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile long epoch; // 0 before the first catch-up
+    private long pendingEpoch; // from HELLO until that primary's first
+                               // snapshot or change is applied, else 0
+    private volatile long appliedSequence;
+    private volatile long appliedTimeMillis;
+    private volatile long primarySequence;
+    private volatile long primaryTimeMillis;
+    private volatile long appliedCount;
+    private volatile long snapshotCount;
+    private ObjectName metricsName; // null when not published over JMX
+
+    /**
+     * Initializes a new instance of the ReplicaFollower class. Nothing is
+     * applied until {@link #start} is called.
+     *
+     * @param semManager
+     *            The store to keep in step with the primary.
+     * @param server
+     *            The server the store is served by, or {@code null} if it
+     *            is not served.
+     * @param primaryAddress
+     *            The address of the primary.
+     * @param primaryPort
+     *            The primary's replication port.
+     */
+    public ReplicaFollower(
+        SemManager semManager,
+        SemServer server,
+        InetAddress primaryAddress,
+        int primaryPort) {
+        this.semManager = semManager;
+        this.server = server;
+        this.primaryAddress = primaryAddress;
+        this.primaryPort = primaryPort;
+        appliedSequence = -1;
+    }
+
+
+    /**
+     * The entry point of a read replica. It serves its copy read-only
+     * until the process is stopped.
+     *
+     * @param args
+     *            Optional {@code --primary-host}, {@code --primary-port},
+     *            {@code --port} and {@code --address} flags followed by the
+     *            initial memory size and initial hash size.
+     * @throws Exception
+     *             If the replica cannot start.
+     */
+    public static void main(String[] args) throws Exception {
+        InetAddress primaryAddress = InetAddress.getLoopbackAddress();
+        int primaryPort = ReplicationPrimary.DEFAULT_PORT;
+        InetAddress address = InetAddress.getLoopbackAddress();
+        int port = DEFAULT_PORT;
+        int next = 0;
+        while (next + 1 < args.length && args[next].startsWith("--")) {
+            String value = args[next + 1];
+            if (args[next].equals("--primary-host")) {
+                primaryAddress = InetAddress.getByName(value);
+            }
+            else if (args[next].equals("--primary-port")) {
+                primaryPort = Integer.parseInt(value);
+            }
+            else if (args[next].equals("--port")) {
+                port = Integer.parseInt(value);
+            }
+            else if (args[next].equals("--address")) {
+                address = InetAddress.getByName(value);
+            }
+            else {
+                break;
+            }
+            next += 2;
+        }
+        if (args.length - next != 2) {
+            System.err.println("Usage: java ReplicaFollower"
+                + " [--primary-host {host}] [--primary-port {port}]"
+                + " [--port {port}] [--address {host}]"
+                + " {initial-memory-size} {initial-hash-size}");
+            System.exit(1);
+        }
+
+        SemManager semManager = new SemManager(Integer.parseInt(args[next]),
+            Integer.parseInt(args[next + 1]));
+        semManager.registerMetrics("replica");
+        SemServer server = new SemServer(semManager);
+        server.setReadOnly(true);
+        server.start(address, port);
+        ReplicaFollower follower = new ReplicaFollower(semManager, server,
+            primaryAddress, primaryPort);
+        follower.registerMetrics("replica");
+        follower.start();
+        System.out.println("Following " + primaryAddress.getHostAddress()
+            + ":" + primaryPort + ", serving on " + address.getHostAddress()
+            + ":" + server.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                follower.close();
+                server.close();
+                semManager.close();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        follower.receiver.join();
+    }
+
+
+    /**
+     * Starts following the primary.
+     */
+    public void start() {
+        running = true;
+        receiver = new Thread(this::follow, "ReplicaFollower-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+
+    /**
+     * Waits until the changes up to a sequence number have been applied.
+     *
+     * @param sequence
+     *            The sequence number.
+     * @param timeoutMillis
+     *            The longest time to wait, in milliseconds.
+     * @return {@code true} if they were applied in time.
+     * @throws InterruptedException
+     *             If the wait is interrupted.
+     */
+    public synchronized boolean awaitSequence(long sequence, long timeoutMillis)
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedSequence < sequence) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+
+    /**
+     * Publishes the replication metrics as an MXBean named
+     * {@code SemManager:type=Replica,name=<name>}. Any bean this
+     * follower published before is withdrawn first.
+     *
+     * @param name
+     *            The name that tells this follower's bean apart.
+     * @throws Exception
+     *             If the bean cannot be registered, including when another
+     *             follower has already published under the name.
+     */
+    public void registerMetrics(String name) throws Exception {
+        unregisterMetrics();
+        ObjectName objectName = new ObjectName("SemManager:type=Replica,name="
+            + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+            objectName);
+        metricsName = objectName;
+    }
+
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+
+    @Override
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+
+    @Override
+    public long getPrimarySequence() {
+        return primarySequence;
+    }
+
+
+    @Override
+    public long getSequenceLag() {
+        return Math.max(0, primarySequence - appliedSequence);
+    }
+
+
+    @Override
+    public long getLagMillis() {
+        if (getSequenceLag() == 0) {
+            return 0;
+        }
+        return Math.max(0, primaryTimeMillis - appliedTimeMillis);
+    }
+
+
+    @Override
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+
+    @Override
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+
+    /**
+     * Stops following the primary and withdraws the published metrics.
+     * The store is left open.
+     *
+     * @throws IOException
+     *             If the connection cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            current.close(); // wakes the receiver blocked reading
+        }
+        receiver.interrupt();
+        try {
+            receiver.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unregisterMetrics();
+    }
+
+
+    private void unregisterMetrics() {
+        if (metricsName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                metricsName);
+        }
+        catch (Exception e) {
+            // Already withdrawn
+        }
+        metricsName = null;
+    }
+
+
+    private void follow() {
+        while (running) {
+            try (Socket connection = new Socket(primaryAddress, primaryPort)) {
+                socket = connection;
+                pendingEpoch = 0;
+                connection.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(connection
+                    .getOutputStream());
+                out.writeLong(epoch);
+                out.writeLong(appliedSequence);
+                out.flush();
+                DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(connection.getInputStream(),
+                        64 * 1024));
+                connected = true;
+                ArrayList<Frame> batch = new ArrayList<>();
+                while (running) {
+                    batch.add(readFrame(in));
+                    while (batch.size() < MAX_APPLY_BATCH && in
+                        .available() > 0) {
+                        batch.add(readFrame(in));
+                    }
+                    apply(batch);
+                    batch.clear();
+                }
+            }
+            catch (Exception e) {
+                if (running && !(e instanceof IOException)) {
+                    e.printStackTrace();
+                }
+            }
+            connected = false;
+            socket = null;
+            if (running) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Applies a batch of frames, under the server's write lock if the
+     * batch changes the store.
+     *
+     * @param batch
+     *            The frames, in the order they arrived.
+     * @throws Exception
+     *             If a change cannot be applied.
+     */
+    private void apply(ArrayList<Frame> batch) throws Exception {
+        boolean changes = false;
+        for (Frame frame : batch) {
+            if (frame.type == ReplicationPrimary.HELLO) {
+                // The epoch is only adopted once something from this
+                // primary is applied: reconnecting with its epoch but
+                // another primary's sequence number would be taken as a
+                // place in its own stream
+                pendingEpoch = ByteBuffer.wrap(frame.payload).getLong();
+                primarySequence = frame.sequence;
+            }
+            else {
+                primarySequence = Math.max(primarySequence, frame.sequence);
+                changes |= frame.type != ReplicationPrimary.HEARTBEAT;
+            }
+            primaryTimeMillis = frame.timeMillis;
+        }
+        if (changes) {
+            if (server == null) {
+                applyChanges(batch);
+            }
+            else {
+                server.callExclusive(() -> {
+                    applyChanges(batch);
+                    return null;
+                });
+            }
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+
+    private void applyChanges(ArrayList<Frame> batch) throws Exception {
+        for (Frame frame : batch) {
+            if (frame.type == ReplicationPrimary.SNAPSHOT) {
+                loadSnapshot(frame.payload);
+                snapshotCount++;
+            }
+            else if (frame.type == ReplicationPrimary.HEARTBEAT
+                || frame.type == ReplicationPrimary.HELLO
+                || frame.sequence <= appliedSequence) {
+                continue;
+            }
+            else if (frame.type == WriteAheadLog.INSERT) {
+                semManager.insertRecord(SeminarRecord.deserialize(
+                    frame.payload), frame.payload);
+                appliedCount++;
+            }
+            else if (frame.type == WriteAheadLog.UPDATE) {
+                semManager.updateRecord(SeminarRecord.deserialize(
+                    frame.payload), frame.payload);
+                appliedCount++;
+            }
+            else if (frame.type == WriteAheadLog.DELETE) {
+                semManager.deleteRecord(frame.id);
+                appliedCount++;
+            }
+            else {
+                throw new IOException("Unknown replication frame type "
+                    + frame.type);
+            }
+            appliedSequence = frame.sequence;
+            appliedTimeMillis = frame.timeMillis;
+            if (pendingEpoch != 0) {
+                epoch = pendingEpoch;
+                pendingEpoch = 0;
+            }
+        }
+    }
+
+
+    /**
+     * Replaces the store's contents with a snapshot sent by the primary.
+     *
+     * @param payload
+     *            The snapshot file.
+     * @throws Exception
+     *             If the snapshot cannot be loaded.
+     */
+    private void loadSnapshot(byte[] payload) throws Exception {
+        File file = File.createTempFile("replica", ".snapshot");
+        try {
+            Files.write(file.toPath(), payload);
+            semManager.loadSnapshot(file.getPath());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+
+    private static Frame readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        byte[] bytes = new byte[HEADER_SIZE + length + CHECKSUM_SIZE];
+        ByteBuffer.wrap(bytes).putInt(length);
+        in.readFully(bytes, 4, bytes.length - 4);
+        ByteBuffer data = ByteBuffer.wrap(bytes, 4, bytes.length - 4);
+        Frame frame = new Frame();
+        frame.type = data.get();
+        frame.id = data.getInt();
+        frame.sequence = data.getLong();
+        frame.timeMillis = data.getLong();
+        frame.payload = new byte[length];
+        data.get(frame.payload);
+        if (data.getLong() != ReplicationPrimary.checksum(bytes, bytes.length
+            - CHECKSUM_SIZE)) {
+            throw new IOException("Replication frame failed its checksum");
+        }
+        return frame;
+    }
+
+    /**
+     * The Frame class is one frame read from the primary.
+     */
+    private static class Frame {
+        private byte type;
+        private int id;
+        private long sequence;
+        private long timeMillis;
+        private byte[] payload;
+    }
+}
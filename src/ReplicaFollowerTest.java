@@ -0,0 +1,221 @@
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import student.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ReplicaFollowerTest class contains test methods for the
+ *          ReplicaFollower and ReplicationPrimary classes, running a primary
+ *          and a follower in one process over a loopback socket.
+ */
+public class ReplicaFollowerTest extends TestCase {
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private SemManager primaryStore;
+    private SemManager replicaStore;
+    private ReplicationPrimary primary;
+    private ReplicaFollower follower;
+
+    /**
+     * Fills a primary store and starts streaming it on a free loopback
+     * port.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        primaryStore = new SemManager(64, 4);
+        replicaStore = new SemManager(64, 4);
+        for (int id = 1; id <= 5; id++) {
+            primaryStore.insertRecord(record(id, "Seminar " + id), record(id,
+                "Seminar " + id).serialize());
+        }
+        primary = new ReplicationPrimary(primaryStore);
+        primary.start(InetAddress.getLoopbackAddress(), 0);
+    }
+
+
+    /**
+     * Stops the follower and the primary and closes both stores, even when
+     * a test fails part way.
+     *
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (follower != null) {
+            follower.close();
+        }
+        primary.close();
+        primaryStore.close();
+        replicaStore.close();
+    }
+
+
+    /**
+     * Tests that a new follower loads a snapshot and then applies the
+     * changes made after it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSnapshotThenStream() throws Exception {
+        follower = new ReplicaFollower(replicaStore, null,
+            InetAddress.getLoopbackAddress(), primary.getPort());
+        follower.start();
+        assertTrue(follower.awaitSequence(0, TIMEOUT_MILLIS));
+        assertEquals(5, replicaStore.getRecordCount());
+        assertEquals(1, follower.getSnapshotCount());
+
+        SeminarRecord renamed = record(2, "Renamed");
+        primaryStore.updateRecord(renamed, renamed.serialize());
+        primaryStore.deleteRecord(3);
+        primaryStore.insertRecord(record(6, "Seminar 6"), record(6,
+            "Seminar 6").serialize());
+        assertEquals(3, primary.getSequence());
+        assertTrue(follower.awaitSequence(3, TIMEOUT_MILLIS));
+
+        SeminarRecord[] found = replicaStore.multiGet(new int[] { 2, 3, 6 });
+        assertEquals("Renamed", found[0].getTitle());
+        assertNull(found[1]);
+        assertEquals("Seminar 6", found[2].getTitle());
+        assertEquals(5, replicaStore.getRecordCount());
+        assertEquals(3, follower.getAppliedCount());
+        assertEquals(0, follower.getSequenceLag());
+        assertEquals(0, follower.getLagMillis());
+    }
+
+
+    /**
+     * Tests that a follower that reconnects catches up from the backlog
+     * without another snapshot.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReconnectFromBacklog() throws Exception {
+        follower = new ReplicaFollower(replicaStore, null,
+            InetAddress.getLoopbackAddress(), primary.getPort());
+        follower.start();
+        assertTrue(follower.awaitSequence(0, TIMEOUT_MILLIS));
+
+        primary.disconnectFollowers();
+        for (int id = 10; id < 20; id++) {
+            primaryStore.insertRecord(record(id, "Seminar " + id), record(id,
+                "Seminar " + id).serialize());
+        }
+        assertTrue(follower.awaitSequence(10, TIMEOUT_MILLIS));
+        assertEquals(15, replicaStore.getRecordCount());
+        assertEquals(1, follower.getSnapshotCount());
+        assertEquals(1, primary.getSnapshotCount());
+        assertEquals(1, primary.getTailCatchUpCount());
+    }
+
+
+    /**
+     * Tests that a follower too far behind for the backlog starts again
+     * from a snapshot.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBehindBacklog() throws Exception {
+        primary.close();
+        primary = new ReplicationPrimary(primaryStore, 4);
+        primary.start(InetAddress.getLoopbackAddress(), 0);
+        follower = new ReplicaFollower(replicaStore, null,
+            InetAddress.getLoopbackAddress(), primary.getPort());
+        follower.start();
+        assertTrue(follower.awaitSequence(0, TIMEOUT_MILLIS));
+
+        primary.disconnectFollowers();
+        for (int id = 10; id < 20; id++) {
+            primaryStore.deleteRecord(id - 10);
+            primaryStore.insertRecord(record(id, "Seminar " + id), record(id,
+                "Seminar " + id).serialize());
+        }
+        assertTrue(follower.awaitSequence(primary.getSequence(),
+            TIMEOUT_MILLIS));
+        assertEquals(10, replicaStore.getRecordCount());
+        assertNull(replicaStore.multiGet(new int[] { 1 })[0]);
+        assertEquals(2, follower.getSnapshotCount());
+    }
+
+
+    /**
+     * Tests that a follower moved to a restarted primary, whose backlog
+     * reaches back past the follower's last sequence number, starts again
+     * from a snapshot, even when its first connection to the new primary
+     * drops right after the greeting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRestartedPrimary() throws Exception {
+        follower = new ReplicaFollower(replicaStore, null, InetAddress
+            .getLoopbackAddress(), primary.getPort());
+        follower.start();
+        primaryStore.deleteRecord(1);
+        primaryStore.deleteRecord(2);
+        assertTrue(follower.awaitSequence(2, TIMEOUT_MILLIS));
+
+        int port = primary.getPort();
+        primary.close();
+        SemManager restartedStore = new SemManager(64, 4);
+        ReplicationPrimary restarted = new ReplicationPrimary(restartedStore);
+        // Greet the follower as the new primary, then hang up before
+        // catching it up
+        try (ServerSocket greeter = new ServerSocket()) {
+            greeter.setReuseAddress(true);
+            greeter.bind(new InetSocketAddress(InetAddress
+                .getLoopbackAddress(), port));
+            try (Socket connection = greeter.accept()) {
+                new DataInputStream(connection.getInputStream()).readFully(
+                    new byte[16]);
+                OutputStream out = connection.getOutputStream();
+                out.write(ReplicationPrimary.frame(ReplicationPrimary.HELLO,
+                    0, 5, System.currentTimeMillis(), ByteBuffer.allocate(8)
+                        .putLong(restarted.getEpoch()).array()));
+                out.flush();
+            }
+        }
+
+        restarted.start(InetAddress.getLoopbackAddress(), port);
+        try {
+            for (int id = 100; id < 105; id++) {
+                restartedStore.insertRecord(record(id, "Seminar " + id),
+                    record(id, "Seminar " + id).serialize());
+            }
+            assertTrue(follower.awaitSequence(5, TIMEOUT_MILLIS));
+            assertEquals(1, restarted.getSnapshotCount());
+            assertEquals(0, restarted.getTailCatchUpCount());
+            assertEquals(5, replicaStore.getRecordCount());
+            SeminarRecord[] found = replicaStore.multiGet(new int[] { 3,
+                100 });
+            assertNull(found[0]);
+            assertEquals("Seminar 100", found[1].getTitle());
+        }
+        finally {
+            follower.close();
+            restarted.close();
+            restartedStore.close();
+        }
+    }
+
+
+    private static SeminarRecord record(int id, String title) {
+        return new SeminarRecord(id, title, "0610051600", 90, (short)10,
+            (short)10, 45, "About " + id, new String[] { "VT" });
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ReplicaMetricsMXBean interface exposes how closely a
+ *          ReplicaFollower keeps up with its primary over JMX: the sequence
+ *          numbers applied and last heard of, the lag between them in
+ *          changes and in time, and how often it has had to start again
+ *          from a snapshot.
+ */
+public interface ReplicaMetricsMXBean {
+    /**
+     * Gets whether the follower is connected to its primary.
+     *
+     * @return {@code true} if it is connected.
+     */
+    boolean isConnected();
+
+
+    /**
+     * Gets the sequence number of the last change applied.
+     *
+     * @return The sequence number, -1 before the first catch-up.
+     */
+    long getAppliedSequence();
+
+
+    /**
+     * Gets the latest sequence number heard from the primary.
+     *
+     * @return The sequence number.
+     */
+    long getPrimarySequence();
+
+
+    /**
+     * Gets the number of changes the primary has made that the follower
+     * has not applied yet.
+     *
+     * @return The lag in changes.
+     */
+    long getSequenceLag();
+
+
+    /**
+     * Gets how far the follower's copy is behind the primary in time: the
+     * time between the primary making the last change applied and the
+     * latest frame heard from it, or 0 when nothing is outstanding.
+     *
+     * @return The lag in milliseconds.
+     */
+    long getLagMillis();
+
+
+    /**
+     * Gets the number of changes applied from the stream.
+     *
+     * @return The number of changes.
+     */
+    long getAppliedCount();
+
+
+    /**
+     * Gets the number of snapshots loaded.
+     *
+     * @return The number of snapshots.
+     */
+    long getSnapshotCount();
+}
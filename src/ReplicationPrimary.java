@@ -0,0 +1,526 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ReplicationPrimary class streams the changes made to a
+ *          SemManager to read replicas (see {@link ReplicaFollower}) over
+ *          TCP. Every insert, update and delete is given the next sequence
+ *          number and sent as a frame laid out like a write-ahead log
+ *          entry, carrying the raw serialized record:
+ *
+ *          <pre>
+ *          int   payload length
+ *          byte  type
+ *          int   seminar ID
+ *          long  sequence number
+ *          long  time sent, in milliseconds since the epoch
+ *          byte[] payload
+ *          long  CRC32 of everything before it
+ *          </pre>
+ *
+ *          A follower opens the connection by sending the epoch of the
+ *          primary it last followed (0 for none) and the last sequence
+ *          number it applied. The primary answers with a HELLO frame
+ *          holding its own epoch, a random number picked when it was
+ *          created, and then catches the follower up: if the epoch matches
+ *          and the changes it missed are still in the backlog of recent
+ *          frames, only those are sent; otherwise a SNAPSHOT frame holding
+ *          a snapshot of the store is sent first. Either way the follower
+ *          then receives every later change as it happens, and a
+ *          HEARTBEAT frame with the latest sequence number every
+ *          {@value #HEARTBEAT_MILLIS} ms so it can tell how far behind it
+ *          is.
+ *
+ *          Changes are framed once, on the thread that made them, while
+ *          the store's lock is held, and queued for each follower's own
+ *          sender thread, so a slow follower never holds up the primary.
+ *          A follower that falls further behind than the backlog is
+ *          disconnected instead of being queued for without limit; it
+ *          reconnects and starts again from a snapshot.
+ */
+public class ReplicationPrimary implements WriteAheadLog.Replayer, Closeable {
+    /**
+     * The port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 7071;
+
+    /**
+     * Frame type for a snapshot of the whole store.
+     */
+    public static final byte SNAPSHOT = 4;
+
+    /**
+     * Frame type for the latest sequence number, sent while idle.
+     */
+    public static final byte HEARTBEAT = 5;
+
+    /**
+     * Frame type for the primary's epoch, sent first on a connection.
+     */
+    public static final byte HELLO = 6;
+
+    /**
+     * The number of recent frames kept for catching up when none is
+     * given.
+     */
+    public static final int DEFAULT_BACKLOG = 65536;
+
+    /**
+     * The interval between heartbeats, in milliseconds.
+     */
+    public static final long HEARTBEAT_MILLIS = 100;
+
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 8;
+    private static final int CHECKSUM_SIZE = 8;
+
+    private SemManager semManager;
+    private long epoch;
+    private int backlogLimit;
+    private long sequence; // the last number given out
+    private ArrayDeque<byte[]> backlog; // frames up to sequence
+    private HashSet<Follower> followers;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private ScheduledExecutorService heartbeat;
+    private long snapshotCount;
+    private long tailCatchUpCount;
+    private volatile boolean running;
+
+    /**
+     * Initializes a new instance of the ReplicationPrimary class with the
+     * default backlog. Nothing is streamed until {@link #start} is called.
+     *
+     * @param semManager
+     *            The store whose changes are streamed.
+     */
+    public ReplicationPrimary(SemManager semManager) {
+        this(semManager, DEFAULT_BACKLOG);
+    }
+
+
+    /**
+     * Initializes a new instance of the ReplicationPrimary class. Nothing
+     * is streamed until {@link #start} is called.
+     *
+     * @param semManager
+     *            The store whose changes are streamed.
+     * @param backlogLimit
+     *            The number of recent frames kept so a follower that
+     *            reconnects can catch up without a snapshot.
+     */
+    public ReplicationPrimary(SemManager semManager, int backlogLimit) {
+        this.semManager = semManager;
+        this.backlogLimit = backlogLimit;
+        backlog = new ArrayDeque<>();
+        followers = new HashSet<>();
+        do {
+            epoch = ThreadLocalRandom.current().nextLong();
+        }
+        while (epoch == 0);
+    }
+
+
+    /**
+     * Starts listening for followers and streaming the store's changes.
+     *
+     * @param address
+     *            The address to listen on.
+     * @param port
+     *            The port to listen on, or 0 for any free port.
+     * @throws IOException
+     *             If the port cannot be opened.
+     */
+    public void start(InetAddress address, int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(address, port));
+        running = true;
+        semManager.setChangeListener(this);
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ReplicationPrimary-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, HEARTBEAT_MILLIS,
+            HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        acceptor = new Thread(this::acceptFollowers,
+            "ReplicationPrimary-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+
+    /**
+     * Gets the port the primary is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+
+    /**
+     * Gets the random number that tells this primary's sequence numbers
+     * apart from those of another primary, or of this store before a
+     * restart.
+     *
+     * @return The epoch, never 0.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+
+    /**
+     * Gets the sequence number of the latest change.
+     *
+     * @return The sequence number, 0 before the first change.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+
+    /**
+     * Gets the number of followers connected.
+     *
+     * @return The number of followers.
+     */
+    public synchronized int getFollowerCount() {
+        return followers.size();
+    }
+
+
+    /**
+     * Gets the number of followers caught up from a snapshot.
+     *
+     * @return The number of snapshots sent.
+     */
+    public synchronized long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+
+    /**
+     * Gets the number of followers caught up from the backlog alone.
+     *
+     * @return The number of catch-ups without a snapshot.
+     */
+    public synchronized long getTailCatchUpCount() {
+        return tailCatchUpCount;
+    }
+
+
+    @Override
+    public void insert(int id, byte[] serializedRecord) {
+        publish(WriteAheadLog.INSERT, id, serializedRecord);
+    }
+
+
+    @Override
+    public void delete(int id) {
+        publish(WriteAheadLog.DELETE, id, new byte[0]);
+    }
+
+
+    @Override
+    public void update(int id, byte[] serializedRecord) {
+        publish(WriteAheadLog.UPDATE, id, serializedRecord);
+    }
+
+
+    /**
+     * Disconnects every follower. Each one reconnects on its own and
+     * catches up.
+     */
+    public synchronized void disconnectFollowers() {
+        for (Follower follower : new ArrayList<>(followers)) {
+            drop(follower);
+        }
+    }
+
+
+    /**
+     * Stops streaming changes, disconnects the followers and stops
+     * listening.
+     *
+     * @throws IOException
+     *             If the listening socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        semManager.setChangeListener(null);
+        heartbeat.shutdownNow();
+        serverSocket.close();
+        disconnectFollowers();
+        try {
+            acceptor.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Lays out one frame.
+     *
+     * @param type
+     *            The frame type.
+     * @param id
+     *            The seminar ID, or 0 if the frame has none.
+     * @param sequence
+     *            The sequence number.
+     * @param timeMillis
+     *            The time the frame was made.
+     * @param payload
+     *            The payload.
+     * @return The frame.
+     */
+    static byte[] frame(
+        byte type,
+        int id,
+        long sequence,
+        long timeMillis,
+        byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length
+            + CHECKSUM_SIZE);
+        frame.putInt(payload.length);
+        frame.put(type);
+        frame.putInt(id);
+        frame.putLong(sequence);
+        frame.putLong(timeMillis);
+        frame.put(payload);
+        frame.putLong(checksum(frame.array(), frame.position()));
+        return frame.array();
+    }
+
+
+    /**
+     * Works out the checksum that ends a frame.
+     *
+     * @param frame
+     *            The bytes of the frame.
+     * @param length
+     *            The number of bytes before the checksum.
+     * @return The CRC32 of those bytes.
+     */
+    static long checksum(byte[] frame, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(frame, 0, length);
+        return crc.getValue();
+    }
+
+
+    private synchronized void publish(byte type, int id, byte[] payload) {
+        sequence++;
+        byte[] frame = frame(type, id, sequence, System.currentTimeMillis(),
+            payload);
+        backlog.addLast(frame);
+        if (backlog.size() > backlogLimit) {
+            backlog.removeFirst();
+        }
+        for (Follower follower : new ArrayList<>(followers)) {
+            if (follower.queue.size() >= backlogLimit) {
+                // Too far behind to catch up from the backlog anyway
+                drop(follower);
+            }
+            else {
+                follower.queue.add(frame);
+            }
+        }
+    }
+
+
+    private synchronized void sendHeartbeat() {
+        if (followers.isEmpty()) {
+            return;
+        }
+        byte[] frame = frame(HEARTBEAT, 0, sequence, System
+            .currentTimeMillis(), new byte[0]);
+        for (Follower follower : followers) {
+            // Frames already waiting carry newer sequence numbers, so a
+            // follower that is behind or stalled gets no heartbeat
+            if (follower.queue.isEmpty()) {
+                follower.queue.add(frame);
+            }
+        }
+    }
+
+
+    private void acceptFollowers() {
+        try {
+            while (running) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Follower follower = new Follower(socket);
+                follower.sender = new Thread(() -> serve(follower),
+                    "ReplicationPrimary-follower");
+                follower.sender.setDaemon(true);
+                follower.sender.start();
+            }
+        }
+        catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+
+    private void serve(Follower follower) {
+        try (Socket socket = follower.socket;
+            OutputStream out = new BufferedOutputStream(socket
+                .getOutputStream())) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                socket.getInputStream()));
+            long knownEpoch = in.readLong();
+            long lastApplied = in.readLong();
+            catchUp(follower, knownEpoch, lastApplied);
+            while (running) {
+                out.write(follower.queue.take());
+                byte[] frame;
+                while ((frame = follower.queue.poll()) != null) {
+                    out.write(frame);
+                }
+                out.flush();
+            }
+        }
+        catch (IOException e) {
+            // The follower went away or was dropped
+        }
+        catch (InterruptedException e) {
+            // The follower was dropped
+        }
+        finally {
+            synchronized (this) {
+                followers.remove(follower);
+            }
+        }
+    }
+
+
+    /**
+     * Queues what a follower needs to catch up and starts sending it
+     * changes. The store's lock is held throughout, so no change can fall
+     * between the snapshot or backlog and the stream.
+     *
+     * @param follower
+     *            The follower.
+     * @param knownEpoch
+     *            The epoch of the primary it last followed.
+     * @param lastApplied
+     *            The last sequence number it applied.
+     * @throws IOException
+     *             If the snapshot cannot be written.
+     */
+    private void catchUp(Follower follower, long knownEpoch, long lastApplied)
+        throws IOException {
+        synchronized (semManager) {
+            synchronized (this) {
+                if (!running) {
+                    throw new IOException("The primary is closed");
+                }
+                long now = System.currentTimeMillis();
+                follower.queue.add(frame(HELLO, 0, sequence, now, ByteBuffer
+                    .allocate(8).putLong(epoch).array()));
+                long firstKept = sequence - backlog.size() + 1;
+                if (knownEpoch == epoch && lastApplied >= firstKept - 1
+                    && lastApplied <= sequence) {
+                    long next = firstKept;
+                    for (byte[] frame : backlog) {
+                        if (next > lastApplied) {
+                            follower.queue.add(frame);
+                        }
+                        next++;
+                    }
+                    tailCatchUpCount++;
+                }
+                else {
+                    follower.queue.add(frame(SNAPSHOT, 0, sequence, now,
+                        snapshot()));
+                    snapshotCount++;
+                }
+                followers.add(follower);
+            }
+        }
+    }
+
+
+    /**
+     * Takes a snapshot of the store for a SNAPSHOT frame.
+     *
+     * @return The payload.
+     * @throws IOException
+     *             If the snapshot cannot be written.
+     */
+    private byte[] snapshot() throws IOException {
+        File file = File.createTempFile("replica", ".snapshot");
+        try {
+            semManager.writeSnapshot(file.getPath());
+            return Files.readAllBytes(file.toPath());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+
+    private void drop(Follower follower) {
+        followers.remove(follower);
+        try {
+            follower.socket.close();
+        }
+        catch (IOException e) {
+            // Already closed
+        }
+        if (follower.sender != null) {
+            follower.sender.interrupt();
+        }
+    }
+
+    /**
+     * The Follower class is one connected replica and the frames waiting
+     * to be sent to it.
+     */
+    private static class Follower {
+        private Socket socket;
+        private Thread sender;
+        private LinkedBlockingQueue<byte[]> queue;
+
+        Follower(Socket socket) {
+            this.socket = socket;
+            queue = new LinkedBlockingQueue<>();
+        }
+    }
+}
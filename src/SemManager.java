@@ -19,8 +19,20 @@
  *
  */
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * @author Aayush Bagrecha
@@ -31,8 +43,42 @@ import java.util.Scanner;
  *          table.
  */
 public class SemManager {
+    private static final int DEFAULT_TITLE_SEARCH_LIMIT = 10;
+    private static final int DEFAULT_TEXT_SEARCH_LIMIT = 10;
+    private static final long DEFAULT_COMMIT_WINDOW_MILLIS = 10;
+    private static final String DEFAULT_SPILL_FILE = "semmanager.spill";
+
     private MemManager memoryManager;
+    private int initialMemorySize;
+    private int initialHashSize;
+    private double tableShrinkLoad; // 0 when the table never shrinks
+    private double poolShrinkThreshold; // 0 when the pool never shrinks
+    private long memoryBudget; // -1 when the pool is not capped
+    private String spillPath;
     private HashTable hashTable;
+    private PRQuadTree spatialIndex;
+    private IntervalTree timeIndex;
+    private BPlusTree costIndex;
+    private RadixTrie titleIndex;
+    private int titleSearchLimit;
+    private TextIndex descriptionIndex;
+    private int textSearchLimit;
+    private ColumnStore columnStore; // null when disabled
+    private WriteAheadLog writeAheadLog; // null when not logging
+    private File startupSnapshot; // null when not starting from one
+    private long snapshotLogPosition;
+    private WriteAheadLog.Replayer changeListener; // null when not
+                                                   // replicating
+    private DedupIndex dedupIndex; // null unless deduplicating
+    private StringDictionary keywordDictionary;
+    private boolean encodeKeywords;
+    private KeywordIndex keywordIndex;
+    private TextCodec textCodec; // null unless compressing text
+    private CommandListener commandListener; // null when not timing
+    private TreeMap<String, LatencyHistogram> commandStats;
+    private long slowCommandNanos; // -1 when not logging slow commands
+    private PrintStream slowCommandLog;
+    private String metricsName; // null when not published over JMX
     public String[] args; // Stores a string argument denoting
                           // the location of the input file
 
@@ -47,6 +93,37 @@ public class SemManager {
     public SemManager(int initialMemorySize, int initialHashSize) {
         memoryManager = new MemManager(initialMemorySize);
         hashTable = new HashTable(initialHashSize);
+        this.initialMemorySize = initialMemorySize;
+        this.initialHashSize = initialHashSize;
+        tableShrinkLoad = 0;
+        poolShrinkThreshold = 0;
+        memoryBudget = -1;
+        titleSearchLimit = DEFAULT_TITLE_SEARCH_LIMIT;
+        textSearchLimit = DEFAULT_TEXT_SEARCH_LIMIT;
+        columnStore = new ColumnStore();
+        keywordDictionary = new StringDictionary();
+        encodeKeywords = false;
+        commandStats = new TreeMap<>();
+        slowCommandNanos = -1;
+        slowCommandLog = System.err;
+        createIndexes();
+    }
+
+
+    /**
+     * Creates empty secondary indexes, keeping the column store only if it
+     * is enabled.
+     */
+    private void createIndexes() {
+        spatialIndex = new PRQuadTree();
+        timeIndex = new IntervalTree();
+        costIndex = new BPlusTree();
+        titleIndex = new RadixTrie();
+        descriptionIndex = new TextIndex();
+        keywordIndex = new KeywordIndex(keywordDictionary);
+        if (columnStore != null) {
+            columnStore = new ColumnStore();
+        }
     }
 
 
@@ -54,25 +131,181 @@ public class SemManager {
      * The entry point of the program.
      *
      * @param args
-     *            Command-line arguments containing initial memory size,
-     *            initial hash size, and a command file.
+     *            Command-line arguments containing optional flags followed
+     *            by the initial memory size, initial hash size, and a
+     *            command file. The flags are {@code --snapshot <file>} to
+     *            start from a checkpoint, {@code --wal <file>} to replay
+     *            and keep a write-ahead log, and {@code --commit-ms <n>} to
+     *            set its group commit window, {@code --memory-budget <n>} to
+     *            cap the bytes of records kept in the pool, and
+     *            {@code --spill-file <file>} to choose where the coldest
+     *            records go once the budget is exceeded. {@code --dedup}
+     *            (which takes no value) stores identical payloads once, and
+     *            {@code --encode-keywords} (no value) stores keywords as
+     *            dictionary codes. {@code --compress-text <n>} compresses
+     *            titles and descriptions of at least n bytes, using the
+     *            preset dictionary file given by
+     *            {@code --text-dictionary <file>} if any.
+     *            {@code --slow-ms <n>} logs commands taking n milliseconds
+     *            or more to standard error, or to the file given by
+     *            {@code --slow-log <file>}. {@code --shrink-table <load>}
+     *            halves the hash table once fewer than that share of its
+     *            slots are live, and {@code --shrink-pool <share>} compacts
+     *            and truncates the pool once records fill less than that
+     *            share of it. {@code --auto-size} (no value) pre-scans the
+     *            command file and raises the initial sizes so that neither
+     *            structure has to grow during the run.
      * @throws Exception
      *             If an error occurs during program execution.
      */
     public static void main(String[] args) throws Exception {
-        if (args.length != 3) {
-            System.err.println("Usage: java SemManager {initial-memory-size}"
+        String logFile = null;
+        String snapshotFile = null;
+        long memoryBudget = -1;
+        String spillFile = DEFAULT_SPILL_FILE;
+        long commitWindowMillis = DEFAULT_COMMIT_WINDOW_MILLIS;
+        boolean dedup = false;
+        boolean encodeKeywords = false;
+        int compressThreshold = -1;
+        String textDictionary = null;
+        long slowMillis = -1;
+        String slowLogFile = null;
+        double tableShrinkLoad = 0;
+        double poolShrinkThreshold = 0;
+        boolean autoSize = false;
+        int next = 0;
+        while (next < args.length && args[next].startsWith("--")) {
+            if (args[next].equals("--dedup")) {
+                dedup = true;
+                next++;
+                continue;
+            }
+            if (args[next].equals("--encode-keywords")) {
+                encodeKeywords = true;
+                next++;
+                continue;
+            }
+            if (args[next].equals("--auto-size")) {
+                autoSize = true;
+                next++;
+                continue;
+            }
+            if (args[next].equals("--wal") && next + 1 < args.length) {
+                logFile = args[next + 1];
+            }
+            else if (args[next].equals("--memory-budget")
+                && next + 1 < args.length) {
+                memoryBudget = Long.parseLong(args[next + 1]);
+            }
+            else if (args[next].equals("--spill-file")
+                && next + 1 < args.length) {
+                spillFile = args[next + 1];
+            }
+            else if (args[next].equals("--snapshot")
+                && next + 1 < args.length) {
+                snapshotFile = args[next + 1];
+            }
+            else if (args[next].equals("--commit-ms")
+                && next + 1 < args.length) {
+                commitWindowMillis = Long.parseLong(args[next + 1]);
+            }
+            else if (args[next].equals("--compress-text")
+                && next + 1 < args.length) {
+                compressThreshold = Integer.parseInt(args[next + 1]);
+            }
+            else if (args[next].equals("--text-dictionary")
+                && next + 1 < args.length) {
+                textDictionary = args[next + 1];
+            }
+            else if (args[next].equals("--slow-ms")
+                && next + 1 < args.length) {
+                slowMillis = Long.parseLong(args[next + 1]);
+            }
+            else if (args[next].equals("--slow-log")
+                && next + 1 < args.length) {
+                slowLogFile = args[next + 1];
+            }
+            else if (args[next].equals("--shrink-table")
+                && next + 1 < args.length) {
+                tableShrinkLoad = Double.parseDouble(args[next + 1]);
+            }
+            else if (args[next].equals("--shrink-pool")
+                && next + 1 < args.length) {
+                poolShrinkThreshold = Double.parseDouble(args[next + 1]);
+            }
+            else {
+                next = args.length; // fall through to the usage message
+                break;
+            }
+            next += 2;
+        }
+
+        if (args.length - next != 3) {
+            System.err.println("Usage: java SemManager"
+                + " [--snapshot {snapshot-file}] [--wal {log-file}]"
+                + " [--commit-ms {window}] [--memory-budget {bytes}]"
+                + " [--spill-file {spill-file}] [--dedup] [--encode-keywords]"
+                + " [--compress-text {threshold}]"
+                + " [--text-dictionary {dictionary-file}]"
+                + " [--slow-ms {millis}] [--slow-log {log-file}]"
+                + " [--shrink-table {load}] [--shrink-pool {share}]"
+                + " [--auto-size]"
+                + " {initial-memory-size}"
                 + " {initial-hash-size} {command-file}");
             System.exit(1);
         }
 
-        int initialMemorySize = Integer.parseInt(args[0]);
-        int initialHashSize = Integer.parseInt(args[1]);
-        String commandFile = args[2];
+        int initialMemorySize = Integer.parseInt(args[next]);
+        int initialHashSize = Integer.parseInt(args[next + 1]);
+        String commandFile = args[next + 2];
+        if (autoSize) {
+            CapacityPlanner plan = CapacityPlanner.scan(commandFile);
+            initialMemorySize = Math.max(initialMemorySize, plan
+                .getMemorySize());
+            initialHashSize = Math.max(initialHashSize, plan.getHashSize());
+            System.out.println("Sized for " + plan.getPeakRecords()
+                + " records: memory pool " + initialMemorySize
+                + " bytes, hash table " + initialHashSize + " slots");
+        }
 
         SemManager semManager = new SemManager(initialMemorySize,
             initialHashSize);
+        if (memoryBudget >= 0) {
+            semManager.setMemoryBudget(memoryBudget, spillFile);
+        }
+        semManager.setDedupEnabled(dedup);
+        semManager.setKeywordEncoding(encodeKeywords);
+        semManager.setShrinkThresholds(tableShrinkLoad, poolShrinkThreshold);
+        semManager.registerMetrics("main");
+        if (slowMillis >= 0) {
+            semManager.setSlowCommandLog(slowMillis * 1000000,
+                slowLogFile == null
+                    ? System.err
+                    : new PrintStream(new FileOutputStream(slowLogFile,
+                        true), true));
+        }
+        if (compressThreshold >= 0) {
+            semManager.setTextCompression(new TextCodec(compressThreshold,
+                textDictionary == null
+                    ? null
+                    : TextCodec.loadDictionary(textDictionary)));
+        }
+        if (snapshotFile != null) {
+            semManager.setStartupSnapshot(snapshotFile);
+        }
+        if (snapshotFile != null && new File(snapshotFile).exists()) {
+            int records = semManager.loadSnapshot(snapshotFile);
+            System.out.println("Loaded " + records + " records from "
+                + snapshotFile);
+        }
+        if (logFile != null) {
+            int entries = semManager.openWriteAheadLog(logFile,
+                commitWindowMillis);
+            System.out.println("Recovered " + entries + " log entries from "
+                + logFile);
+        }
         semManager.processCommands(commandFile);
+        semManager.close();
     }
 
 
@@ -90,27 +323,10 @@ public class SemManager {
                 String command = scanner.nextLine().trim().replaceAll("\\s+",
                     " ");
 
-                if (command.startsWith("insert")) {
-                    int id = Integer.parseInt(command.split("\\s")[1]);
-                    processInsertCommand(scanner, id);
-                }
-                else if (command.startsWith("delete")) {
-                    int id = Integer.parseInt(command.split("\\s")[1]);
-                    processDeleteCommand(scanner, id);
-                }
-                else if (command.startsWith("search")) {
-                    int id = Integer.parseInt(command.split("\\s")[1]);
-                    processSearchCommand(scanner, id);
-                }
-                else if (command.startsWith("print hashtable")) {
-                    hashTable.printHashTable();
-                }
-                else if (command.startsWith("print blocks")) {
-                    // memoryManager.printFreeBlocks();
-                }
-                else {
-                    // System.out.println("command not found");
+                if (command.isEmpty()) {
+                    continue;
                 }
+                executeCommand(command, scanner);
             }
         }
         catch (FileNotFoundException e) {
@@ -119,6 +335,236 @@ public class SemManager {
     }
 
 
+    /**
+     * Runs one command, timing it into the per-kind latency histograms and
+     * the slow-command log. Several read-only commands may run at once
+     * from different threads, but a command that changes the store must
+     * not overlap any other.
+     *
+     * @param command
+     *            The command line, trimmed and with single spaces.
+     * @param scanner
+     *            The scanner to read the lines of a record from.
+     * @throws Exception
+     *             If an error occurs while processing the command.
+     */
+    public void executeCommand(String command, Scanner scanner)
+        throws Exception {
+        long probes = hashTable.getThreadProbeCount();
+        long resizes = hashTable.getResizeCount();
+        long expansions = memoryManager.getExpansionCount();
+        long start = System.nanoTime();
+        processCommand(command, scanner);
+        long nanos = System.nanoTime() - start;
+
+        synchronized (commandStats) {
+            commandStats.computeIfAbsent(commandKind(command),
+                kind -> new LatencyHistogram()).record(nanos);
+        }
+        if (slowCommandNanos >= 0 && nanos >= slowCommandNanos) {
+            logSlowCommand(command, nanos, hashTable.getThreadProbeCount()
+                - probes, hashTable.getResizeCount() - resizes, memoryManager
+                    .getExpansionCount() - expansions);
+        }
+        if (commandListener != null) {
+            commandListener.commandFinished(command, nanos);
+        }
+    }
+
+
+    /**
+     * Checks whether a command only reads the store, so that it can run
+     * alongside other reads.
+     *
+     * @param command
+     *            The command line, trimmed and with single spaces.
+     * @return {@code true} for searches, prints and aggregates.
+     */
+    public static boolean isReadOnly(String command) {
+        return command.startsWith("search") || command.startsWith("print")
+            || command.startsWith("aggregate");
+    }
+
+
+    /**
+     * Gets the number of lines of seminar data that follow a command.
+     *
+     * @param command
+     *            The command line, trimmed and with single spaces.
+     * @return 4 for inserts, updates and upserts, otherwise 0.
+     */
+    public static int recordLineCount(String command) {
+        if (command.startsWith("insert") || command.startsWith("update")
+            || command.startsWith("upsert")) {
+            return 4;
+        }
+        return 0;
+    }
+
+
+    /**
+     * Gets the kind of a command, used to group its timings. Commands are
+     * named by their first word, except those whose second word is not a
+     * number, such as {@code search cost 10 20}, which are named by both
+     * words joined with an underscore.
+     *
+     * @param command
+     *            The command line, trimmed and with single spaces.
+     * @return The kind of command.
+     */
+    public static String commandKind(String command) {
+        String[] words = command.split(" ", 3);
+        if (words.length > 1 && !Character.isDigit(words[1].charAt(0))
+            && !words[1].startsWith("-")) {
+            return words[0] + "_" + words[1];
+        }
+        return words[0];
+    }
+
+
+    private void logSlowCommand(
+        String command,
+        long nanos,
+        long probes,
+        long resizes,
+        long expansions) {
+        String[] words = command.split(" ", 3);
+        String id = words.length > 1 && words[1].matches("-?\\d+")
+            ? words[1]
+            : "-";
+        slowCommandLog.printf("Slow command (%.3f ms): %s [id %s, probes %d,"
+            + " table resizes %d, pool expansions %d]%n", nanos / 1e6,
+            command, id, probes, resizes, expansions);
+    }
+
+
+    /**
+     * Processes the "print stats" command to print latency percentiles for
+     * each kind of command run so far.
+     */
+    private void processPrintStatsCommand() {
+        StringBuilder output = new StringBuilder(
+            "Command latency (microseconds):\n");
+        synchronized (commandStats) {
+            for (Map.Entry<String, LatencyHistogram> entry : commandStats
+                .entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                output.append(String.format("%s: count %d, p50 %.1f,"
+                    + " p99 %.1f, p99.9 %.1f, max %.1f%n", entry.getKey(),
+                    histogram.getTotalCount(), histogram.getValueAtPercentile(
+                        50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3, histogram
+                        .getMax() / 1e3));
+            }
+        }
+        System.out.print(output);
+    }
+
+
+    /**
+     * Runs one command, reading any lines that follow it from the scanner.
+     *
+     * @param command
+     *            The command line, trimmed and with single spaces.
+     * @param scanner
+     *            The scanner positioned after the command line.
+     * @throws Exception
+     *             If an error occurs while processing the command.
+     */
+    private void processCommand(String command, Scanner scanner)
+        throws Exception {
+        if (command.startsWith("insert")) {
+            int id = Integer.parseInt(command.split("\\s")[1]);
+            processInsertCommand(scanner, id);
+        }
+        else if (command.startsWith("update")) {
+            int id = Integer.parseInt(command.split("\\s")[1]);
+            processUpdateCommand(scanner, id, false);
+        }
+        else if (command.startsWith("upsert")) {
+            int id = Integer.parseInt(command.split("\\s")[1]);
+            processUpdateCommand(scanner, id, true);
+        }
+        else if (command.startsWith("delete")) {
+            int id = Integer.parseInt(command.split("\\s")[1]);
+            processDeleteCommand(scanner, id);
+        }
+        else if (command.startsWith("search region")) {
+            String[] parts = command.split("\\s");
+            processRegionSearchCommand(Integer.parseInt(parts[2]),
+                Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+                Integer.parseInt(parts[5]));
+        }
+        else if (command.startsWith("search near")) {
+            String[] parts = command.split("\\s");
+            processNearSearchCommand(Integer.parseInt(parts[2]), Integer
+                .parseInt(parts[3]), Integer.parseInt(parts[4]));
+        }
+        else if (command.startsWith("search dates")) {
+            String[] parts = command.split("\\s");
+            processDatesSearchCommand(parts[2], parts[3]);
+        }
+        else if (command.startsWith("search overlapping")) {
+            int id = Integer.parseInt(command.split("\\s")[2]);
+            processOverlapSearchCommand(id);
+        }
+        else if (command.startsWith("search cost")) {
+            String[] parts = command.split("\\s");
+            processCostSearchCommand(Integer.parseInt(parts[2]),
+                Integer.parseInt(parts[3]));
+        }
+        else if (command.startsWith("search cheapest")) {
+            int k = Integer.parseInt(command.split("\\s")[2]);
+            processCheapestSearchCommand(k);
+        }
+        else if (command.startsWith("search title")) {
+            processTitleSearchCommand(command.substring(
+                "search title".length()).trim());
+        }
+        else if (command.startsWith("search keyword")) {
+            String keyword = command.split("\\s")[2];
+            System.out.println("Seminars with keyword " + keyword
+                + ":");
+            printIds(keywordIndex.search(keyword));
+        }
+        else if (command.startsWith("search ids")) {
+            processMultiSearchCommand(command.split("\\s"));
+        }
+        else if (command.startsWith("search text")) {
+            processTextSearchCommand(command.substring("search text"
+                .length()).trim());
+        }
+        else if (command.startsWith("search")) {
+            int id = Integer.parseInt(command.split("\\s")[1]);
+            processSearchCommand(scanner, id);
+        }
+        else if (command.startsWith("print hashtable")) {
+            hashTable.printHashTable();
+        }
+        else if (command.startsWith("checkpoint")) {
+            processCheckpointCommand(command.split("\\s")[1]);
+        }
+        else if (command.startsWith("aggregate")) {
+            processAggregateCommand(command.split("\\s"));
+        }
+        else if (command.startsWith("print stats")) {
+            processPrintStatsCommand();
+        }
+        else if (command.startsWith("print records")) {
+            processPrintRecordsCommand();
+        }
+        else if (command.startsWith("print trie")) {
+            processPrintTrieCommand();
+        }
+        else if (command.startsWith("print blocks")) {
+            // memoryManager.printFreeBlocks();
+        }
+        else {
+            // System.out.println("command not found");
+        }
+    }
+
+
     /**
      * Processes the "insert" command to add a seminar record.
      *
@@ -131,16 +577,12 @@ public class SemManager {
      */
     private void processInsertCommand(Scanner scanner, int id)
         throws Exception {
-        String title = scanner.nextLine().trim();
-        String dateLine = scanner.nextLine().trim().replaceAll("\\s+", " ");
-        String dateTime = dateLine.split("\\s")[0];
-        int length = Integer.parseInt(dateLine.split("\\s")[1]);
-        short x = Short.parseShort(dateLine.split("\\s")[2]);
-        short y = Short.parseShort(dateLine.split("\\s")[3]);
-        int cost = Short.parseShort(dateLine.split("\\s")[4]);
-        String[] keywords = scanner.nextLine().trim().replaceAll("\\s+", " ")
-            .split(" ");
-        String description = scanner.nextLine().trim();
+        SeminarRecord seminarRecord = readSeminarLines(scanner, id);
+        if (!SeminarRecord.isValidDateTime(seminarRecord.getDateTime())) {
+            System.out.println("Insert FAILED - Invalid date and time "
+                + seminarRecord.getDateTime());
+            return;
+        }
 
         if (hashTable.search(id) != null) {
             System.out.println(
@@ -148,24 +590,9 @@ public class SemManager {
             return;
         }
 
-        // Convert keywords to ArrayList
-        ArrayList<String> keywordList = new ArrayList<>();
-        for (String keyword : keywords) {
-            keywordList.add(keyword);
-        }
-
-        // Create a SeminarRecord
-        SeminarRecord seminarRecord = new SeminarRecord(id, title, dateTime,
-            length, x, y, cost, description, keywords);
-
-        // Serialize the SeminarRecord and insert it into memory
+        // Serialize the SeminarRecord and insert it into the store
         byte[] serializedRecord = seminarRecord.serialize();
-        Handle handle = memoryManager.insert(serializedRecord,
-            serializedRecord.length);
-
-        // // Insert the handle into the hash table
-        boolean insertStatus = hashTable.insert(id, handle);
-        if (insertStatus) {
+        if (insertRecord(seminarRecord, serializedRecord)) {
             System.out.println("Successfully inserted record with ID " + id);
             System.out.println(seminarRecord.toString());
             System.out.println("Size: " + serializedRecord.length);
@@ -177,23 +604,83 @@ public class SemManager {
 
 
     /**
-     * Processes the "delete" command to remove a seminar record.
+     * Processes the "update" command to replace an existing seminar record.
+     * With {@code upsert} set, a missing record is inserted instead.
      *
      * @param scanner
      *            The scanner for reading input.
      * @param id
-     *            The ID of the seminar record to delete.
+     *            The ID of the seminar record to update.
+     * @param upsert
+     *            Whether to insert the record if it does not exist.
+     * @throws Exception
+     *             If an error occurs during the update.
      */
-    private void processDeleteCommand(Scanner scanner, int id) {
-        // Check if the key exists in the hash table
-        Handle handle = hashTable.search(id);
-        if (handle != null) {
-            // Remove the record from the memory manager
-            memoryManager.remove(handle);
+    private void processUpdateCommand(Scanner scanner, int id, boolean upsert)
+        throws Exception {
+        SeminarRecord seminarRecord = readSeminarLines(scanner, id);
+        if (!SeminarRecord.isValidDateTime(seminarRecord.getDateTime())) {
+            System.out.println("Update FAILED -- Invalid date and time "
+                + seminarRecord.getDateTime());
+            return;
+        }
+        byte[] serializedRecord = seminarRecord.serialize();
+        if (updateRecord(seminarRecord, serializedRecord)) {
+            System.out.println("Successfully updated record with ID " + id);
+        }
+        else if (upsert && insertRecord(seminarRecord, serializedRecord)) {
+            System.out.println("Successfully inserted record with ID " + id);
+        }
+        else {
+            System.out.println("Update FAILED -- There is no record with ID "
+                + id);
+            return;
+        }
+        System.out.println(seminarRecord.toString());
+        System.out.println("Size: " + serializedRecord.length);
+    }
+
+
+    /**
+     * Reads the four lines that follow an insert or update command and
+     * builds the seminar record they describe.
+     *
+     * @param scanner
+     *            The scanner for reading input.
+     * @param id
+     *            The ID of the seminar record.
+     * @return The seminar record.
+     */
+    private SeminarRecord readSeminarLines(Scanner scanner, int id) {
+        String title = scanner.nextLine().trim();
+        String dateLine = scanner.nextLine().trim().replaceAll("\\s+", " ");
+        String dateTime = dateLine.split("\\s")[0];
+        int length = Integer.parseInt(dateLine.split("\\s")[1]);
+        short x = Short.parseShort(dateLine.split("\\s")[2]);
+        short y = Short.parseShort(dateLine.split("\\s")[3]);
+        int cost = Short.parseShort(dateLine.split("\\s")[4]);
+        String[] keywords = scanner.nextLine().trim().replaceAll("\\s+", " ")
+            .split(" ");
+        String description = scanner.nextLine().trim();
+
+        return new SeminarRecord(id, title, dateTime, length, x, y, cost,
+            description, keywords);
+    }
 
-            // Delete the entry from the hash table
-            hashTable.delete(id);
 
+    /**
+     * Processes the "delete" command to remove a seminar record.
+     *
+     * @param scanner
+     *            The scanner for reading input.
+     * @param id
+     *            The ID of the seminar record to delete.
+     * @throws Exception
+     *             If an error occurs while reading the record.
+     */
+    private void processDeleteCommand(Scanner scanner, int id)
+        throws Exception {
+        if (deleteRecord(id)) {
             System.out.println("Record with ID " + id
                 + " successfully deleted from database");
         }
@@ -205,50 +692,1326 @@ public class SemManager {
 
 
     /**
-     * Processes the "search" command to find and display a seminar record.
+     * Stores a serialized record in the memory pool, adds it to the hash
+     * table and the secondary indexes, and logs it. Nothing is printed.
      *
-     * @param scanner
-     *            The scanner for reading input.
-     * @param id
-     *            The ID of the seminar record to search for.
+     * @param seminarRecord
+     *            The seminar record to insert.
+     * @param serializedRecord
+     *            The serialized form of the record.
+     * @return {@code true} if the record was inserted, {@code false} if
+     *         there is already a record with the same ID.
+     * @throws IllegalArgumentException
+     *             If the record's date and time is not valid.
      * @throws Exception
-     *             If an error occurs during searching.
+     *             If an error occurs while logging the record.
      */
-    private void processSearchCommand(Scanner scanner, int id)
+    public synchronized boolean insertRecord(
+        SeminarRecord seminarRecord,
+        byte[] serializedRecord)
         throws Exception {
-        // Search for the record in the hash table
-        Handle handle = hashTable.search(id);
-        if (handle != null) {
-            System.out.println("Found record with ID " + id + ":");
-            byte[] serializedRecord = new byte[handle.getRecordLength()];
-            memoryManager.get(serializedRecord, handle,
-                serializedRecord.length);
-            SeminarRecord seminarRecord = SeminarRecord.deserialize(
-                serializedRecord);
-            System.out.println(seminarRecord.toString());
+        checkDateTime(seminarRecord);
+        int id = seminarRecord.getId();
+        if (hashTable.search(id) != null) {
+            return false;
+        }
+        byte[] stored = toPoolForm(seminarRecord, serializedRecord);
+        Handle handle;
+        if (dedupIndex != null) {
+            handle = dedupIndex.acquire(stored, memoryManager);
         }
         else {
-            System.out.println("Search FAILED -- There is no record with ID "
-                + id);
+            handle = memoryManager.insert(stored, stored.length);
+        }
+        hashTable.insert(id, handle);
+        addToIndexes(seminarRecord);
+        if (writeAheadLog != null) {
+            writeAheadLog.logInsert(id, serializedRecord);
         }
+        if (changeListener != null) {
+            changeListener.insert(id, serializedRecord);
+        }
+        return true;
     }
 
 
     /**
-     * Checks if a number is a power of two.
+     * Replaces a stored record with a new version, updates the secondary
+     * indexes, and logs the change. Nothing is printed. The new version is
+     * written over the old one when it fits in the old block; otherwise it
+     * moves to a new block, sized to keep the old block's slack, and the
+     * hash table entry is repointed in a single probe.
      *
-     * @param number
-     *            The number to check.
-     * @return {@code true} if the number is a power of two,
-     *         otherwise {@code false}.
+     * @param seminarRecord
+     *            The new version of the seminar record.
+     * @param serializedRecord
+     *            The serialized form of the new version.
+     * @return {@code true} if the record was updated, {@code false} if
+     *         there is no record with the ID.
+     * @throws IllegalArgumentException
+     *             If the record's date and time is not valid.
+     * @throws Exception
+     *             If an error occurs while reading the old record or
+     *             logging the update.
      */
-    public static boolean isPowerOfTwo(int number) {
-        if (number <= 0) {
+    public synchronized boolean updateRecord(
+        SeminarRecord seminarRecord,
+        byte[] serializedRecord)
+        throws Exception {
+        checkDateTime(seminarRecord);
+        int id = seminarRecord.getId();
+        Handle handle = hashTable.search(id);
+        if (handle == null) {
             return false;
         }
+        removeFromIndexes(readRecord(id, handle));
+        byte[] stored = toPoolForm(seminarRecord, serializedRecord);
+        if (dedupIndex != null) {
+            // A shared block cannot be overwritten, so take a new reference
+            Handle replacement = dedupIndex.acquire(stored, memoryManager);
+            dedupIndex.release(handle, memoryManager);
+            hashTable.replace(id, replacement);
+        }
+        else if (!memoryManager.update(handle, stored, stored.length)) {
+            int slack = handle.getBlockLength() - handle.getRecordLength();
+            Handle replacement = memoryManager.insert(stored, stored.length,
+                stored.length + slack);
+            memoryManager.remove(handle);
+            hashTable.replace(id, replacement);
+        }
+        shrinkPoolIfSparse();
+        addToIndexes(seminarRecord);
+        if (writeAheadLog != null) {
+            writeAheadLog.logUpdate(id, serializedRecord);
+        }
+        if (changeListener != null) {
+            changeListener.update(id, serializedRecord);
+        }
+        return true;
+    }
 
-        // Check if the number has only one bit set to 1
-        // (i.e., it's a power of 2)
-        return (number & (number - 1)) == 0;
+
+    /**
+     * Gets the bytes to keep in the memory pool for a record, applying
+     * keyword encoding, text compression and, when deduplicating, a zero
+     * ID so that identical seminars match.
+     *
+     * @param seminarRecord
+     *            The seminar record.
+     * @param serializedRecord
+     *            The plain serialized form of the record.
+     * @return The bytes to store.
+     * @throws Exception
+     *             If an error occurs during serialization.
+     */
+    private byte[] toPoolForm(
+        SeminarRecord seminarRecord,
+        byte[] serializedRecord)
+        throws Exception {
+        StringDictionary dictionary = encodeKeywords
+            ? keywordDictionary
+            : null;
+        if (dedupIndex != null) {
+            return seminarRecord.withId(0).serialize(dictionary, textCodec);
+        }
+        if (dictionary == null && textCodec == null) {
+            return serializedRecord;
+        }
+        return seminarRecord.serialize(dictionary, textCodec);
+    }
+
+
+    /**
+     * Removes a record from the secondary indexes, the memory pool and the
+     * hash table, and logs the deletion. Nothing is printed.
+     *
+     * @param id
+     *            The ID of the seminar record to delete.
+     * @return {@code true} if the record was deleted, {@code false} if there
+     *         is no record with the ID.
+     * @throws Exception
+     *             If an error occurs while reading the record or logging
+     *             the deletion.
+     */
+    public synchronized boolean deleteRecord(int id) throws Exception {
+        Handle handle = hashTable.search(id);
+        if (handle == null) {
+            return false;
+        }
+        // Drop the record from the secondary indexes while its bytes are
+        // still in the pool
+        removeFromIndexes(readRecord(id, handle));
+        if (dedupIndex != null) {
+            dedupIndex.release(handle, memoryManager);
+        }
+        else {
+            memoryManager.remove(handle);
+        }
+        hashTable.delete(id);
+        shrinkPoolIfSparse();
+        if (writeAheadLog != null) {
+            writeAheadLog.logDelete(id);
+        }
+        if (changeListener != null) {
+            changeListener.delete(id);
+        }
+        return true;
+    }
+
+
+    /**
+     * Compacts and truncates the memory pool if deletions have left it
+     * below its shrink threshold, handing it every live handle in the
+     * hash table so the records can be moved.
+     */
+    private void shrinkPoolIfSparse() {
+        if (!memoryManager.needsShrink()) {
+            return;
+        }
+        ArrayList<Handle> handles = new ArrayList<>(hashTable
+            .getRecordCount());
+        for (HashTable.Entry entry : hashTable.table) {
+            if (entry != null && !entry.isTombstone) {
+                handles.add(entry.value);
+            }
+        }
+        memoryManager.shrink(handles);
+    }
+
+
+    /**
+     * Adds a record to every secondary index.
+     *
+     * @param seminarRecord
+     *            The seminar record to add.
+     */
+    private void addToIndexes(SeminarRecord seminarRecord) {
+        int id = seminarRecord.getId();
+        spatialIndex.insert(seminarRecord.getX(), seminarRecord.getY(), id);
+        timeIndex.insert(seminarRecord.getStartMinutes(), seminarRecord
+            .getEndMinutes(), id);
+        costIndex.insert(seminarRecord.getCost(), id);
+        titleIndex.insert(seminarRecord.getTitle(), id);
+        descriptionIndex.insert(seminarRecord.getDescription(), id);
+        keywordIndex.insert(seminarRecord.getKeywords(), id);
+        if (columnStore != null) {
+            columnStore.add(seminarRecord);
+        }
+    }
+
+
+    /**
+     * Removes a record from every secondary index.
+     *
+     * @param seminarRecord
+     *            The seminar record to remove.
+     */
+    private void removeFromIndexes(SeminarRecord seminarRecord) {
+        int id = seminarRecord.getId();
+        spatialIndex.remove(seminarRecord.getX(), seminarRecord.getY(), id);
+        timeIndex.remove(seminarRecord.getStartMinutes(), id);
+        costIndex.remove(seminarRecord.getCost(), id);
+        titleIndex.remove(seminarRecord.getTitle(), id);
+        descriptionIndex.remove(seminarRecord.getDescription(), id);
+        keywordIndex.remove(seminarRecord.getKeywords(), id);
+        if (columnStore != null) {
+            columnStore.remove(id);
+        }
+    }
+
+
+    /**
+     * Replays a write-ahead log into this store, then keeps logging every
+     * later insert and delete to the same file. Replay happens before
+     * logging starts, so the replayed operations are not logged twice.
+     * After loadSnapshot, replay starts from the log position the
+     * snapshot recorded, skipping the entries it already holds.
+     *
+     * @param path
+     *            The path of the log file.
+     * @param commitWindowMillis
+     *            The group commit window in milliseconds; 0 forces every
+     *            entry to disk as it is logged.
+     * @return The number of log entries replayed.
+     * @throws Exception
+     *             If the log cannot be read or opened.
+     */
+    public int openWriteAheadLog(String path, long commitWindowMillis)
+        throws Exception {
+        int entries = WriteAheadLog.replay(path, snapshotLogPosition,
+            new WriteAheadLog.Replayer() {
+                @Override
+                public void insert(int id, byte[] serializedRecord)
+                    throws Exception {
+                    insertRecord(SeminarRecord.deserialize(serializedRecord),
+                        serializedRecord);
+                }
+
+
+                @Override
+                public void delete(int id) throws Exception {
+                    deleteRecord(id);
+                }
+
+
+                @Override
+                public void update(int id, byte[] serializedRecord)
+                    throws Exception {
+                    updateRecord(SeminarRecord.deserialize(serializedRecord),
+                        serializedRecord);
+                }
+            });
+        writeAheadLog = new WriteAheadLog(path, commitWindowMillis);
+        return entries;
+    }
+
+
+    /**
+     * Processes the "checkpoint" command to write a snapshot of the store.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @throws IOException
+     *             If the snapshot cannot be written.
+     */
+    private void processCheckpointCommand(String path) throws IOException {
+        long bytes = checkpoint(path);
+        System.out.println("Checkpoint written to " + path + ": " + bytes
+            + " bytes");
+    }
+
+
+    /**
+     * Sets the snapshot this store starts from, the only one whose
+     * checkpoints may empty the write-ahead log.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     */
+    public void setStartupSnapshot(String path) {
+        startupSnapshot = new File(path).getAbsoluteFile().toPath()
+            .normalize().toFile();
+    }
+
+
+    /**
+     * Writes a snapshot like writeSnapshot. When a write-ahead log is open
+     * and the snapshot goes to the startup snapshot's path, the log is
+     * emptied afterwards, since the store will restart from that snapshot
+     * and it already holds every logged change. A checkpoint to any other
+     * path keeps the log, and the snapshot records how much of the log it
+     * already holds.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @return The size of the snapshot in bytes.
+     * @throws IOException
+     *             If the snapshot cannot be written.
+     */
+    public synchronized long checkpoint(String path) throws IOException {
+        boolean startup = writeAheadLog != null && startupSnapshot != null
+            && startupSnapshot.equals(new File(path).getAbsoluteFile()
+                .toPath().normalize().toFile());
+        if (!startup) {
+            return writeSnapshot(path);
+        }
+        // Replay of the emptied log starts at its beginning
+        long bytes = writeSnapshot(path, 0);
+        writeAheadLog.reset();
+        return bytes;
+    }
+
+
+    /**
+     * Writes a snapshot of the live records, the hash table layout, the
+     * keyword dictionary, the secondary indexes and the position reached
+     * in any write-ahead log, leaving the log as it is. Inserts, updates,
+     * deletes and snapshots hold this store's lock, so a snapshot taken
+     * while another thread changes the store sees it between two changes.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @return The size of the snapshot in bytes.
+     * @throws IOException
+     *             If the snapshot cannot be written.
+     */
+    public synchronized long writeSnapshot(String path) throws IOException {
+        return writeSnapshot(path, writeAheadLog == null
+            ? 0
+            : writeAheadLog.getPosition());
+    }
+
+
+    private long writeSnapshot(String path, long logPosition)
+        throws IOException {
+        return Snapshot.write(path, hashTable, memoryManager,
+            new IndexSection(logPosition));
+    }
+
+
+    /**
+     * Replaces the contents of the store with a snapshot. The secondary
+     * indexes are read back from the snapshot, so no record is decoded
+     * unless the snapshot has no saved indexes or the column store is
+     * enabled here but was not saved.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @return The number of records loaded.
+     * @throws Exception
+     *             If the snapshot cannot be read.
+     */
+    public int loadSnapshot(String path) throws Exception {
+        IndexSection indexes = new IndexSection(0);
+        Snapshot snapshot = Snapshot.load(path, initialMemorySize, indexes);
+        keywordDictionary = indexes.loaded
+            ? indexes.dictionary
+            : new StringDictionary();
+        snapshotLogPosition = indexes.logPosition;
+        memoryManager.close();
+        memoryManager = snapshot.getMemoryManager();
+        hashTable = snapshot.getHashTable();
+        if (metricsName != null) {
+            registerMetrics(metricsName);
+        }
+        if (memoryBudget >= 0) {
+            memoryManager.setMemoryBudget(memoryBudget, spillPath);
+        }
+        setShrinkThresholds(tableShrinkLoad, poolShrinkThreshold);
+        boolean keepColumns = columnStore != null;
+        if (indexes.loaded) {
+            spatialIndex = indexes.spatial;
+            timeIndex = indexes.time;
+            costIndex = indexes.cost;
+            titleIndex = indexes.title;
+            descriptionIndex = indexes.description;
+            keywordIndex = indexes.keywords;
+            columnStore = null;
+        }
+        else {
+            createIndexes();
+        }
+        if (dedupIndex != null) {
+            dedupIndex = new DedupIndex();
+        }
+        for (HashTable.Entry entry : hashTable.table) {
+            if (entry != null && !entry.isTombstone) {
+                byte[] serializedRecord = dedupIndex == null
+                    ? null
+                    : readBytes(entry.value);
+                // Loaded records count towards any memory budget
+                memoryManager.adopt(entry.value);
+                if (dedupIndex != null) {
+                    dedupIndex.register(entry.value, serializedRecord);
+                }
+                if (!indexes.loaded) {
+                    addToIndexes(readRecord(entry.key, entry.value));
+                }
+            }
+        }
+        if (indexes.loaded && keepColumns) {
+            // Rebuilt from the records if the snapshot did not keep one
+            columnStore = indexes.columns;
+            setColumnStoreEnabled(true);
+        }
+        return snapshot.getRecordCount();
+    }
+
+
+    /**
+     * Caps the number of record bytes kept in the memory pool. Once the
+     * cap is exceeded the least recently accessed records are moved to a
+     * spill file and read back from it on demand. Only records inserted
+     * after this call are tracked, so it should be set before loading data.
+     *
+     * @param budget
+     *            The most record bytes to keep in the pool.
+     * @param path
+     *            The path of the spill file.
+     * @throws IOException
+     *             If the spill file cannot be created.
+     */
+    public void setMemoryBudget(long budget, String path) throws IOException {
+        memoryBudget = budget;
+        spillPath = path;
+        memoryManager.setMemoryBudget(budget, path);
+    }
+
+
+    /**
+     * Sets the low-water marks at which the hash table and memory pool give
+     * memory back after deletions. The table halves, but never below its
+     * initial size, once its load drops under {@code tableLoad}; the pool
+     * is compacted and truncated, but never below its initial size, once
+     * records fill less than {@code poolShare} of it. Both marks are
+     * capped well below the points at which the structures grow, so they
+     * do not flip between growing and shrinking.
+     *
+     * @param tableLoad
+     *            The table load below which it shrinks, at most 0.125, or
+     *            0 to never shrink.
+     * @param poolShare
+     *            The share of the pool below which it shrinks, at most
+     *            0.25, or 0 to never shrink.
+     */
+    public void setShrinkThresholds(double tableLoad, double poolShare) {
+        hashTable.setShrinkLoadFactor(tableLoad, initialHashSize);
+        memoryManager.setShrinkThreshold(poolShare, initialMemorySize);
+        tableShrinkLoad = tableLoad;
+        poolShrinkThreshold = poolShare;
+    }
+
+
+    /**
+     * Turns content deduplication on or off. While it is on, records whose
+     * serialized payloads are identical apart from the ID share one
+     * reference-counted block in the pool. Records already stored are not
+     * shared, so it should be set before loading data.
+     *
+     * @param enabled
+     *            Whether identical payloads should be stored once.
+     */
+    public void setDedupEnabled(boolean enabled) {
+        if (!enabled) {
+            dedupIndex = null;
+        }
+        else if (dedupIndex == null) {
+            dedupIndex = new DedupIndex();
+        }
+    }
+
+
+    /**
+     * Turns dictionary encoding of keywords in the memory pool on or off.
+     * Only records inserted afterwards are affected; records in either
+     * form can be read at any time.
+     *
+     * @param enabled
+     *            Whether keywords should be stored as dictionary codes.
+     */
+    public void setKeywordEncoding(boolean enabled) {
+        encodeKeywords = enabled;
+    }
+
+
+    /**
+     * Sets the codec used to compress the title and description of records
+     * inserted from now on. Records stored with compressed text can only be
+     * read while the same codec, with the same dictionary, is set.
+     *
+     * @param codec
+     *            The text codec, or {@code null} to store text plainly.
+     */
+    public void setTextCompression(TextCodec codec) {
+        textCodec = codec;
+    }
+
+
+    /**
+     * Sets the receiver told about every insert, update and delete applied
+     * to the store, with the same IDs and serialized records the
+     * write-ahead log records. It is called while the store's lock is
+     * held, after the change is made.
+     *
+     * @param listener
+     *            The receiver, or {@code null} for none.
+     */
+    public void setChangeListener(WriteAheadLog.Replayer listener) {
+        changeListener = listener;
+    }
+
+
+    /**
+     * Sets the listener told how long each command from a command file
+     * took to run.
+     *
+     * @param listener
+     *            The listener, or {@code null} for none.
+     */
+    public void setCommandListener(CommandListener listener) {
+        commandListener = listener;
+    }
+
+
+    /**
+     * Logs every command from a command file that takes at least the given
+     * time, together with its ID and the hash table probes, table resizes
+     * and pool expansions it caused.
+     *
+     * @param thresholdNanos
+     *            The threshold in nanoseconds, or -1 to stop logging.
+     * @param log
+     *            Where slow commands are written.
+     */
+    public void setSlowCommandLog(long thresholdNanos, PrintStream log) {
+        slowCommandNanos = thresholdNanos;
+        slowCommandLog = log;
+    }
+
+
+    /**
+     * Gets the latency histogram of each kind of command run so far.
+     *
+     * @return A map from command kind to its histogram of nanoseconds.
+     */
+    public Map<String, LatencyHistogram> getCommandStats() {
+        return Collections.unmodifiableMap(commandStats);
+    }
+
+
+    /**
+     * Gets the current size of the memory pool.
+     *
+     * @return The size of the memory pool in bytes.
+     */
+    public int getPoolSize() {
+        return memoryManager.getPoolSize();
+    }
+
+
+    /**
+     * Gets the current capacity of the hash table.
+     *
+     * @return The number of slots in the hash table.
+     */
+    public int getTableCapacity() {
+        return hashTable.getSize();
+    }
+
+
+    /**
+     * Gets the number of live records.
+     *
+     * @return The number of records.
+     */
+    public int getRecordCount() {
+        return hashTable.getRecordCount();
+    }
+
+
+    /**
+     * Publishes the hash table and memory pool metrics as MXBeans named
+     * {@code SemManager:type=HashTable,name=<name>} and
+     * {@code SemManager:type=MemManager,name=<name>}. Any beans this
+     * store published before are withdrawn first.
+     *
+     * @param name
+     *            The name that tells this store's beans apart.
+     * @throws Exception
+     *             If the beans cannot be registered, including when another
+     *             store has already published under the name.
+     */
+    public void registerMetrics(String name) throws Exception {
+        unregisterMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName tableName = metricsObjectName("HashTable", name);
+        server.registerMBean(hashTable, tableName);
+        try {
+            server.registerMBean(memoryManager, metricsObjectName(
+                "MemManager", name));
+        }
+        catch (Exception e) {
+            server.unregisterMBean(tableName);
+            throw e;
+        }
+        metricsName = name;
+    }
+
+
+    /**
+     * Flushes and closes the write-ahead log, if one is open, removes the
+     * spill file, if any, and withdraws any published metrics.
+     *
+     * @throws IOException
+     *             If the log cannot be written.
+     */
+    public void close() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+            writeAheadLog = null;
+        }
+        memoryManager.close();
+        try {
+            unregisterMetrics();
+        }
+        catch (Exception e) {
+            throw new IOException("Cannot withdraw metrics", e);
+        }
+    }
+
+
+    private void unregisterMetrics() throws Exception {
+        if (metricsName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (String type : new String[] { "HashTable", "MemManager" }) {
+            ObjectName objectName = metricsObjectName(type, metricsName);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        metricsName = null;
+    }
+
+
+    private static ObjectName metricsObjectName(
+        String type,
+        String name)
+        throws Exception {
+        return new ObjectName("SemManager:type=" + type + ",name="
+            + ObjectName.quote(name));
+    }
+
+
+    /**
+     * Processes the "search" command to find and display a seminar record.
+     *
+     * @param scanner
+     *            The scanner for reading input.
+     * @param id
+     *            The ID of the seminar record to search for.
+     * @throws Exception
+     *             If an error occurs during searching.
+     */
+    private void processSearchCommand(Scanner scanner, int id)
+        throws Exception {
+        // Search for the record in the hash table
+        Handle handle = hashTable.search(id);
+        if (handle != null) {
+            System.out.println("Found record with ID " + id + ":");
+            System.out.println(readRecord(id, handle).toString());
+        }
+        else {
+            System.out.println("Search FAILED -- There is no record with ID "
+                + id);
+        }
+    }
+
+
+    /**
+     * Processes the "search ids" command to look up several records at
+     * once, printing them in the order they were asked for.
+     *
+     * @param parts
+     *            The words of the command; the IDs start at index 2.
+     * @throws Exception
+     *             If an error occurs while reading the records.
+     */
+    private void processMultiSearchCommand(String[] parts) throws Exception {
+        int[] ids = new int[parts.length - 2];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Integer.parseInt(parts[i + 2]);
+        }
+        SeminarRecord[] records = multiGet(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (records[i] != null) {
+                System.out.println("Found record with ID " + ids[i] + ":");
+                System.out.println(records[i].toString());
+            }
+            else {
+                System.out.println(
+                    "Search FAILED -- There is no record with ID " + ids[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Looks up several records at once. Every handle is resolved through
+     * the hash table first, and the records are then read in order of
+     * their position in the memory pool, followed by any spilled records
+     * in order of their position in the spill file, so the pool is read in
+     * one forward sweep instead of random jumps.
+     *
+     * @param ids
+     *            The IDs of the records to look up.
+     * @return The records in the same order as the IDs, with {@code null}
+     *         for each ID that has no record.
+     * @throws Exception
+     *             If an error occurs while reading the records.
+     */
+    public SeminarRecord[] multiGet(int[] ids) throws Exception {
+        SeminarRecord[] records = new SeminarRecord[ids.length];
+        Handle[] handles = new Handle[ids.length];
+        Integer[] order = new Integer[ids.length];
+        int found = 0;
+        for (int i = 0; i < ids.length; i++) {
+            handles[i] = hashTable.search(ids[i]);
+            if (handles[i] != null) {
+                order[found++] = i;
+            }
+        }
+
+        Arrays.sort(order, 0, found, (a, b) -> {
+            Handle first = handles[a];
+            Handle second = handles[b];
+            if (first.isOnDisk() != second.isOnDisk()) {
+                return first.isOnDisk() ? 1 : -1;
+            }
+            return first.isOnDisk()
+                ? Long.compare(first.getDiskPosition(), second
+                    .getDiskPosition())
+                : Integer.compare(first.getStartingPosition(), second
+                    .getStartingPosition());
+        });
+        for (int k = 0; k < found; k++) {
+            int i = order[k];
+            records[i] = readRecord(ids[i], handles[i]);
+        }
+        return records;
+    }
+
+
+    /**
+     * Processes the "print records" command to print every live record in
+     * order of ID.
+     */
+    private void processPrintRecordsCommand() {
+        System.out.println("Records:");
+        stream(true, false).forEach(seminarRecord -> System.out.println(
+            seminarRecord.toString()));
+    }
+
+
+    /**
+     * Gets a spliterator over every live record. Records are decoded from
+     * the pool one at a time as the spliterator reaches them. The store
+     * must not be changed until the scan is finished.
+     *
+     * @param sortedById
+     *            {@code true} for increasing ID order, or {@code false} for
+     *            the cheaper hash table order.
+     * @return The spliterator.
+     */
+    public Spliterator<SeminarRecord> records(boolean sortedById) {
+        HashTable.Entry[] table = hashTable.table;
+        int[] ids = new int[table.length];
+        Handle[] handles = new Handle[table.length];
+        int count = 0;
+        for (HashTable.Entry entry : table) {
+            if (entry != null && !entry.isTombstone) {
+                ids[count] = entry.key;
+                handles[count] = entry.value;
+                count++;
+            }
+        }
+        if (sortedById) {
+            RecordSpliterator.sortById(ids, handles, count);
+        }
+        return new RecordSpliterator(ids, handles, count, sortedById,
+            this::readRecord);
+    }
+
+
+    /**
+     * Gets a stream over every live record, as {@link #records} does.
+     *
+     * @param sortedById
+     *            {@code true} for increasing ID order, or {@code false} for
+     *            hash table order.
+     * @param parallel
+     *            Whether the stream should be parallel.
+     * @return The stream.
+     */
+    public Stream<SeminarRecord> stream(boolean sortedById, boolean parallel) {
+        return StreamSupport.stream(records(sortedById), parallel);
+    }
+
+
+    /**
+     * Processes the "search region" command to list the seminars located in
+     * a rectangle.
+     *
+     * @param x
+     *            The X-coordinate of the rectangle corner.
+     * @param y
+     *            The Y-coordinate of the rectangle corner.
+     * @param w
+     *            The width of the rectangle.
+     * @param h
+     *            The height of the rectangle.
+     */
+    private void processRegionSearchCommand(int x, int y, int w, int h) {
+        ArrayList<Integer> ids = spatialIndex.regionSearch(x, y, w, h);
+        System.out.println("Seminars in region " + x + " " + y + " " + w + " "
+            + h + ":");
+        printIdList(ids);
+        System.out.println(spatialIndex.getNodesVisited()
+            + " nodes visited in this search");
+    }
+
+
+    /**
+     * Processes the "search near" command to list the seminars within a
+     * radius of a point.
+     *
+     * @param x
+     *            The X-coordinate of the query point.
+     * @param y
+     *            The Y-coordinate of the query point.
+     * @param radius
+     *            The search radius.
+     */
+    private void processNearSearchCommand(int x, int y, int radius) {
+        ArrayList<Integer> ids = spatialIndex.nearSearch(x, y, radius);
+        System.out.println("Seminars within " + radius + " of " + x + " " + y
+            + ":");
+        printIdList(ids);
+        System.out.println(spatialIndex.getNodesVisited()
+            + " nodes visited in this search");
+    }
+
+
+    /**
+     * Processes the "search dates" command to list the seminars whose time
+     * window overlaps the given range. Both ends of the range are
+     * inclusive.
+     *
+     * @param from
+     *            The start of the range in YYMMDDhhmm form.
+     * @param to
+     *            The end of the range in YYMMDDhhmm form.
+     */
+    private void processDatesSearchCommand(String from, String to) {
+        for (String bound : new String[] { from, to }) {
+            if (!SeminarRecord.isValidDateTime(bound)) {
+                System.out.println("Search FAILED -- Invalid date and time "
+                    + bound);
+                return;
+            }
+        }
+        ArrayList<Integer> ids = timeIndex.overlapSearch(SeminarRecord
+            .toMinutes(from), SeminarRecord.toMinutes(to) + 1);
+        System.out.println("Seminars between " + from + " and " + to + ":");
+        printIdList(ids);
+    }
+
+
+    /**
+     * Processes the "search overlapping" command to list the seminars that
+     * conflict in time with the given seminar.
+     *
+     * @param id
+     *            The ID of the seminar to check.
+     * @throws Exception
+     *             If an error occurs while reading the record.
+     */
+    private void processOverlapSearchCommand(int id) throws Exception {
+        Handle handle = hashTable.search(id);
+        if (handle == null) {
+            System.out.println("Search FAILED -- There is no record with ID "
+                + id);
+            return;
+        }
+        SeminarRecord seminarRecord = readRecord(id, handle);
+        ArrayList<Integer> ids = timeIndex.overlapSearch(seminarRecord
+            .getStartMinutes(), seminarRecord.getEndMinutes());
+        ids.remove(Integer.valueOf(id));
+        System.out.println("Seminars overlapping ID " + id + ":");
+        printIdList(ids);
+    }
+
+
+    /**
+     * Processes the "search cost" command to list the seminars whose cost
+     * falls in a range, cheapest first.
+     *
+     * @param minCost
+     *            The lowest cost to include.
+     * @param maxCost
+     *            The highest cost to include.
+     */
+    private void processCostSearchCommand(int minCost, int maxCost) {
+        System.out.println("Seminars with cost between " + minCost + " and "
+            + maxCost + ":");
+        printIds(costIndex.rangeSearch(minCost, maxCost));
+    }
+
+
+    /**
+     * Processes the "search cheapest" command to list the k cheapest
+     * seminars, cheapest first.
+     *
+     * @param k
+     *            The number of seminars to list.
+     */
+    private void processCheapestSearchCommand(int k) {
+        System.out.println("The " + k + " cheapest seminars:");
+        printIds(costIndex.cheapest(k));
+    }
+
+
+    /**
+     * Processes the "search title" command to list the seminars whose title
+     * starts with a prefix, in alphabetical order of title and capped at
+     * the title search limit.
+     *
+     * @param prefix
+     *            The title prefix to match.
+     */
+    private void processTitleSearchCommand(String prefix) {
+        System.out.println("Seminars with title starting \"" + prefix
+            + "\":");
+        printIds(titleIndex.prefixSearch(prefix, titleSearchLimit));
+    }
+
+
+    /**
+     * Processes the "print trie" command to report the size and estimated
+     * memory footprint of the title index.
+     */
+    private void processPrintTrieCommand() {
+        System.out.println("Title trie: " + titleIndex.getSize()
+            + " titles, " + titleIndex.getNodeCount() + " nodes, about "
+            + titleIndex.estimateMemory() + " bytes");
+    }
+
+
+    /**
+     * Processes the "search text" command to list the seminars whose
+     * description best matches the query terms, best match first.
+     *
+     * @param terms
+     *            The query terms.
+     */
+    private void processTextSearchCommand(String terms) {
+        System.out.println("Seminars matching \"" + terms + "\":");
+        printIds(descriptionIndex.search(terms, textSearchLimit));
+    }
+
+
+    /**
+     * Processes the "aggregate" command, which has the form
+     * {@code aggregate <count|sum|avg|min|max> <cost|length>} optionally
+     * followed by {@code by location} or {@code by date}.
+     *
+     * @param parts
+     *            The words of the command.
+     */
+    private void processAggregateCommand(String[] parts) {
+        if (columnStore == null) {
+            System.out.println(
+                "Aggregate FAILED -- The column store is disabled");
+            return;
+        }
+        if (parts.length < 3 || !parts[2].equals("cost") && !parts[2].equals(
+            "length")) {
+            System.out.println("Aggregate FAILED -- Unknown field");
+            return;
+        }
+        String function = parts[1];
+        String field = parts[2];
+        if (!isAggregateFunction(function)) {
+            System.out.println("Aggregate FAILED -- Unknown function "
+                + function);
+            return;
+        }
+
+        if (parts.length == 3) {
+            System.out.println("Aggregate " + function + " of " + field + ":");
+            System.out.println(formatAggregate(function, columnStore
+                .summarize(field)));
+            return;
+        }
+
+        if (parts.length != 5 || !parts[3].equals("by") || !parts[4].equals(
+            "location") && !parts[4].equals("date")) {
+            System.out.println("Aggregate FAILED -- Unknown grouping");
+            return;
+        }
+        String groupBy = parts[4];
+        System.out.println("Aggregate " + function + " of " + field + " by "
+            + groupBy + ":");
+        TreeMap<Long, long[]> groups = columnStore.summarizeBy(field,
+            groupBy);
+        for (Map.Entry<Long, long[]> group : groups.entrySet()) {
+            long key = group.getKey();
+            String label;
+            if (groupBy.equals("location")) {
+                label = (int)(key >> 32) + " " + (int)key;
+            }
+            else {
+                label = LocalDate.ofEpochDay(key).format(DateTimeFormatter
+                    .ofPattern("yyMMdd"));
+            }
+            System.out.println(label + ": " + formatAggregate(function, group
+                .getValue()));
+        }
+    }
+
+
+    /**
+     * Formats one aggregate value.
+     *
+     * @param function
+     *            The aggregate function: count, sum, avg, min or max.
+     * @param totals
+     *            The count, sum, minimum and maximum of the group.
+     * @return The formatted value.
+     */
+    private static String formatAggregate(String function, long[] totals) {
+        switch (function) {
+            case "count":
+                return String.valueOf(totals[0]);
+            case "sum":
+                return String.valueOf(totals[1]);
+            case "avg":
+                return totals[0] == 0
+                    ? "0.00"
+                    : String.format("%.2f", (double)totals[1] / totals[0]);
+            case "min":
+                return String.valueOf(totals[2]);
+            case "max":
+                return String.valueOf(totals[3]);
+            default:
+                throw new IllegalArgumentException(
+                    "Unknown aggregate function " + function);
+        }
+    }
+
+
+    /**
+     * Checks whether a word names an aggregate function.
+     *
+     * @param function
+     *            The word to check.
+     * @return {@code true} for count, sum, avg, min and max.
+     */
+    private static boolean isAggregateFunction(String function) {
+        switch (function) {
+            case "count":
+            case "sum":
+            case "avg":
+            case "min":
+            case "max":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Turns the column store on or off. Turning it on rebuilds it from the
+     * records in the memory pool; turning it off releases it.
+     *
+     * @param enabled
+     *            Whether the column store should be kept.
+     * @throws Exception
+     *             If an error occurs while reading the records.
+     */
+    public void setColumnStoreEnabled(boolean enabled) throws Exception {
+        if (!enabled) {
+            columnStore = null;
+            return;
+        }
+        if (columnStore == null) {
+            columnStore = new ColumnStore();
+            for (HashTable.Entry entry : hashTable.table) {
+                if (entry != null && !entry.isTombstone) {
+                    columnStore.add(readRecord(entry.key, entry.value));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Sets the maximum number of IDs returned by a full-text search.
+     *
+     * @param limit
+     *            The maximum number of IDs to return.
+     */
+    public void setTextSearchLimit(int limit) {
+        textSearchLimit = limit;
+    }
+
+
+    /**
+     * Sets the maximum number of IDs returned by a title prefix search.
+     *
+     * @param limit
+     *            The maximum number of IDs to return.
+     */
+    public void setTitleSearchLimit(int limit) {
+        titleSearchLimit = limit;
+    }
+
+
+    /**
+     * Prints a list of seminar IDs in ascending order on a single line.
+     *
+     * @param ids
+     *            The IDs to print.
+     */
+    private void printIdList(ArrayList<Integer> ids) {
+        Collections.sort(ids);
+        printIds(ids);
+    }
+
+
+    /**
+     * Prints a list of seminar IDs in the given order on a single line.
+     *
+     * @param ids
+     *            The IDs to print.
+     */
+    private void printIds(ArrayList<Integer> ids) {
+        StringBuilder line = new StringBuilder();
+        for (int id : ids) {
+            if (line.length() > 0) {
+                line.append(" ");
+            }
+            line.append(id);
+        }
+        System.out.println(line.toString());
+    }
+
+
+    /**
+     * Reads and deserializes the record referenced by a handle. The ID is
+     * taken from the hash table key rather than the stored bytes, because
+     * a deduplicated block is stored without its ID and shared by several
+     * records.
+     *
+     * @param id
+     *            The ID of the seminar record.
+     * @param handle
+     *            The handle to the record in the memory pool.
+     * @return The deserialized seminar record.
+     * @throws Exception
+     *             If an error occurs during deserialization.
+     */
+    private SeminarRecord readRecord(int id, Handle handle) throws Exception {
+        return SeminarRecord.deserialize(readBytes(handle), keywordDictionary,
+            textCodec).withId(id);
+    }
+
+
+    /**
+     * Rejects a record whose date and time cannot be placed in the time
+     * index, before any part of the store is changed.
+     *
+     * @param seminarRecord
+     *            The record.
+     */
+    private static void checkDateTime(SeminarRecord seminarRecord) {
+        if (!SeminarRecord.isValidDateTime(seminarRecord.getDateTime())) {
+            throw new IllegalArgumentException("Invalid date and time: "
+                + seminarRecord.getDateTime());
+        }
+    }
+
+
+    /**
+     * Reads the bytes referenced by a handle.
+     *
+     * @param handle
+     *            The handle to the record in the memory pool.
+     * @return The bytes of the record.
+     */
+    private byte[] readBytes(Handle handle) {
+        byte[] serializedRecord = new byte[handle.getRecordLength()];
+        // Reads may come from a parallel scan, and a read can move a
+        // spilled record back into the pool
+        synchronized (memoryManager) {
+            memoryManager.get(serializedRecord, handle,
+                serializedRecord.length);
+        }
+        return serializedRecord;
+    }
+
+
+    /**
+     * Checks if a number is a power of two.
+     *
+     * @param number
+     *            The number to check.
+     * @return {@code true} if the number is a power of two,
+     *         otherwise {@code false}.
+     */
+    public static boolean isPowerOfTwo(int number) {
+        if (number <= 0) {
+            return false;
+        }
+
+        // Check if the number has only one bit set to 1
+        // (i.e., it's a power of 2)
+        return (number & (number - 1)) == 0;
+    }
+
+    /**
+     * The IndexSection class saves the write-ahead log position, the
+     * keyword dictionary and the secondary indexes after the records of a
+     * snapshot and reads them back, so that loading a snapshot does not
+     * have to decode every record to rebuild them and the dictionary is
+     * covered by the same checksum.
+     */
+    private class IndexSection implements Snapshot.Section {
+        private long logPosition;
+        private StringDictionary dictionary;
+        private boolean loaded;
+        private PRQuadTree spatial;
+        private IntervalTree time;
+        private BPlusTree cost;
+        private RadixTrie title;
+        private TextIndex description;
+        private KeywordIndex keywords;
+        private ColumnStore columns; // null when not saved
+
+        IndexSection(long logPosition) {
+            this.logPosition = logPosition;
+            loaded = false;
+        }
+
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeLong(logPosition);
+            // The dictionary goes first so the keyword index can use it
+            keywordDictionary.write(out);
+            spatialIndex.write(out);
+            timeIndex.write(out);
+            costIndex.write(out);
+            titleIndex.write(out);
+            descriptionIndex.write(out);
+            keywordIndex.write(out);
+            out.writeBoolean(columnStore != null);
+            if (columnStore != null) {
+                columnStore.write(out);
+            }
+        }
+
+
+        @Override
+        public void read(DataInput in) throws IOException {
+            logPosition = in.readLong();
+            dictionary = StringDictionary.read(in);
+            spatial = PRQuadTree.read(in);
+            time = IntervalTree.read(in);
+            cost = BPlusTree.read(in);
+            title = RadixTrie.read(in);
+            description = TextIndex.read(in);
+            keywords = KeywordIndex.read(in, dictionary);
+            columns = in.readBoolean() ? ColumnStore.read(in) : null;
+            loaded = true;
+        }
+    }
+
+    /**
+     * The CommandListener interface is told about every command run from a
+     * command file, once it has finished.
+     */
+    public interface CommandListener {
+        /**
+         * Called after a command has run.
+         *
+         * @param command
+         *            The command line.
+         * @param nanos
+         *            How long the command took, in nanoseconds.
+         */
+        void commandFinished(String command, long nanos);
     }
 }
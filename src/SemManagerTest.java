@@ -1,3 +1,8 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
 import student.TestCase;
 import org.junit.Test;
 
@@ -40,4 +45,383 @@ public class SemManagerTest extends TestCase {
         assertFalse(SemManager.isPowerOfTwo(-8)); // Not a power of two
 
     }
+
+
+    /**
+     * Tests that a batch lookup returns records in the requested order,
+     * with null for missing IDs, even when the pool order differs.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultiGet() throws Exception {
+        SemManager semManager = new SemManager(64, 4);
+        for (int id : new int[] { 5, 1, 9 }) {
+            SeminarRecord record = new SeminarRecord(id, "Seminar " + id,
+                "0610051600", 90, (short)id, (short)id, 45, "About " + id,
+                new String[] { "VT" });
+            semManager.insertRecord(record, record.serialize());
+        }
+        SeminarRecord[] records = semManager.multiGet(new int[] { 9, 4, 1,
+            5, 9 });
+        assertEquals(9, records[0].getId());
+        assertNull(records[1]);
+        assertEquals(1, records[2].getId());
+        assertEquals("About 5", records[3].getDescription());
+        assertEquals(9, records[4].getId());
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that commands are timed by kind and that slow commands are
+     * logged with their ID.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCommandStats() throws Exception {
+        File commands = File.createTempFile("commands", ".txt");
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            out.println("insert 3");
+            out.println("Seminar three");
+            out.println("0610051600 90 10 10 45");
+            out.println("VT");
+            out.println("About three");
+            out.println("search 3");
+            out.println("search 4");
+            out.println("print stats");
+        }
+        SemManager semManager = new SemManager(64, 4);
+        ByteArrayOutputStream slow = new ByteArrayOutputStream();
+        semManager.setSlowCommandLog(0, new PrintStream(slow, true));
+        semManager.processCommands(commands.getPath());
+        commands.delete();
+
+        assertEquals(1, semManager.getCommandStats().get("insert")
+            .getTotalCount());
+        assertEquals(2, semManager.getCommandStats().get("search")
+            .getTotalCount());
+        assertEquals("print_stats", SemManager.commandKind("print stats"));
+        assertEquals("search_cost", SemManager.commandKind(
+            "search cost 1 2"));
+        assertTrue(systemOut().getHistory().contains(
+            "Command latency (microseconds):"));
+        assertTrue(slow.toString().contains("search 3 [id 3, probes 1,"));
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that seminars and date searches with dates that are not real
+     * are refused rather than misplaced in the time index.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalidDates() throws Exception {
+        File commands = File.createTempFile("commands", ".txt");
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            for (String date : new String[] { "0613051600", "06100516",
+                "061005160x", "0610051600" }) {
+                out.println("insert " + date.length());
+                out.println("Seminar");
+                out.println(date + " 90 10 10 45");
+                out.println("VT");
+                out.println("About");
+            }
+            out.println("search dates 0610010000 0610312359");
+            out.println("search dates 0610010000 0602300000");
+        }
+        SemManager semManager = new SemManager(64, 4);
+        semManager.processCommands(commands.getPath());
+        commands.delete();
+
+        String output = systemOut().getHistory();
+        assertTrue(output.contains(
+            "Insert FAILED - Invalid date and time 0613051600"));
+        assertTrue(output.contains(
+            "Insert FAILED - Invalid date and time 06100516"));
+        assertTrue(output.contains(
+            "Search FAILED -- Invalid date and time 0602300000"));
+        assertEquals(1, semManager.getRecordCount());
+        assertTrue(output.contains(
+            "Seminars between 0610010000 and 0610312359:\n10\n"));
+        try {
+            SeminarRecord bad = new SeminarRecord(1, "Seminar", "0613051600",
+                90, (short)10, (short)10, 45, "About", new String[] { "VT" });
+            semManager.insertRecord(bad, bad.serialize());
+            fail("Inserted a seminar with an invalid date");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, semManager.getRecordCount());
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that aggregates with an unknown function or a malformed grouping
+     * fail before printing any results.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAggregateValidation() throws Exception {
+        File commands = File.createTempFile("commands", ".txt");
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            out.println("insert 1");
+            out.println("Seminar");
+            out.println("0610051600 90 10 10 45");
+            out.println("VT");
+            out.println("About");
+            out.println("aggregate median cost by location");
+            out.println("aggregate sum cost near location");
+            out.println("aggregate sum cost by");
+            out.println("aggregate sum cost by location");
+        }
+        SemManager semManager = new SemManager(64, 4);
+        semManager.setColumnStoreEnabled(true);
+        semManager.processCommands(commands.getPath());
+        commands.delete();
+
+        String output = systemOut().getHistory();
+        assertTrue(output.contains(
+            "Aggregate FAILED -- Unknown function median\n"
+                + "Aggregate FAILED -- Unknown grouping\n"
+                + "Aggregate FAILED -- Unknown grouping\n"
+                + "Aggregate sum of cost by location:\n10 10: 45\n"));
+        assertFalse(output.contains("median of"));
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that a store loaded from a snapshot answers every kind of
+     * search as the store that wrote it, before and after further changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSnapshotKeepsIndexes() throws Exception {
+        SemManager original = new SemManager(64, 4);
+        String[] words = { "Graphs", "Databases", "Networks" };
+        for (int id = 1; id <= 40; id++) {
+            String date = String.format("06100%d1%d00", id % 9 + 1, id % 6);
+            SeminarRecord record = new SeminarRecord(id, words[id % 3] + " "
+                + id, date, 30 + id, (short)(id * 7 % 100),
+                (short)(id * 13 % 100), id * 3 % 50,
+                "About " + words[(id + 1) % 3] + " and " + words[id % 3],
+                new String[] { "VT", words[id % 3] });
+            original.insertRecord(record, record.serialize());
+        }
+        for (int id = 5; id <= 40; id += 9) {
+            original.deleteRecord(id);
+        }
+        File snapshot = File.createTempFile("semmanager", ".snap");
+        original.writeSnapshot(snapshot.getPath());
+        SemManager loaded = new SemManager(64, 4);
+        assertEquals(36, loaded.loadSnapshot(snapshot.getPath()));
+        snapshot.delete();
+
+        File commands = File.createTempFile("commands", ".txt");
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            out.println("search region 0 0 50 50");
+            out.println("search near 40 40 30");
+            out.println("search dates 0610030000 0610062359");
+            out.println("search overlapping 12");
+            out.println("search cost 10 30");
+            out.println("search cheapest 6");
+            out.println("search title graphs");
+            out.println("search keyword Networks");
+            out.println("search text about databases");
+            out.println("aggregate sum cost by location");
+        }
+        assertEquals(searchOutput(original, commands), searchOutput(loaded,
+            commands));
+
+        for (SemManager store : new SemManager[] { original, loaded }) {
+            store.deleteRecord(12);
+            SeminarRecord added = new SeminarRecord(50, "Graphs 50",
+                "0610040900", 60, (short)20, (short)20, 15, "About Networks",
+                new String[] { "Networks" });
+            store.insertRecord(added, added.serialize());
+        }
+        assertEquals(searchOutput(original, commands), searchOutput(loaded,
+            commands));
+        commands.delete();
+        original.close();
+        loaded.close();
+    }
+
+
+    private String searchOutput(SemManager store, File commands)
+        throws Exception {
+        int start = systemOut().getHistory().length();
+        store.processCommands(commands.getPath());
+        return systemOut().getHistory().substring(start);
+    }
+
+
+    /**
+     * Tests that the table and pool give memory back after a purge and
+     * that the remaining records can still be read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testShrinkAfterPurge() throws Exception {
+        SemManager semManager = new SemManager(64, 4);
+        semManager.setShrinkThresholds(0.125, 0.25);
+        for (int id = 1; id <= 200; id++) {
+            SeminarRecord record = new SeminarRecord(id, "Seminar " + id,
+                "0610051600", 90, (short)id, (short)id, 45, "About " + id,
+                new String[] { "VT" });
+            semManager.insertRecord(record, record.serialize());
+        }
+        int peakPool = semManager.getPoolSize();
+        int peakTable = semManager.getTableCapacity();
+        for (int id = 1; id <= 200; id++) {
+            if (id % 50 != 0) {
+                semManager.deleteRecord(id);
+            }
+        }
+        assertTrue(semManager.getPoolSize() < peakPool / 4);
+        assertTrue(semManager.getTableCapacity() < peakTable / 4);
+        SeminarRecord[] records = semManager.multiGet(new int[] { 50, 100,
+            150, 200 });
+        for (int i = 0; i < records.length; i++) {
+            assertEquals("About " + (i + 1) * 50, records[i]
+                .getDescription());
+        }
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that only a checkpoint to the startup snapshot empties the
+     * write-ahead log, and that starting from any other checkpoint
+     * replays just the changes it does not hold.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCheckpointKeepsLog() throws Exception {
+        File log = File.createTempFile("semmanager", ".wal");
+        File startup = File.createTempFile("startup", ".snap");
+        File other = File.createTempFile("other", ".snap");
+        startup.delete();
+        SemManager original = new SemManager(64, 4);
+        original.setStartupSnapshot(startup.getPath());
+        original.openWriteAheadLog(log.getPath(), 0);
+        for (int id = 1; id <= 3; id++) {
+            SeminarRecord record = new SeminarRecord(id, "Seminar " + id,
+                "0610051600", 90, (short)id, (short)id, 45, "About " + id,
+                new String[] { "VT" });
+            original.insertRecord(record, record.serialize());
+            if (id == 2) {
+                original.checkpoint(other.getPath());
+            }
+        }
+        original.deleteRecord(1);
+        original.close();
+        assertTrue(log.length() > 0);
+
+        SemManager restarted = new SemManager(64, 4);
+        assertEquals(2, restarted.loadSnapshot(other.getPath()));
+        assertEquals(2, restarted.openWriteAheadLog(log.getPath(), 0));
+        assertEquals(2, restarted.getRecordCount());
+        restarted.setStartupSnapshot(startup.getParent() + File.separator
+            + "." + File.separator + startup.getName());
+        restarted.checkpoint(startup.getPath());
+        assertEquals(0, log.length());
+        restarted.close();
+
+        SemManager fromStartup = new SemManager(64, 4);
+        assertEquals(2, fromStartup.loadSnapshot(startup.getPath()));
+        assertEquals(0, fromStartup.openWriteAheadLog(log.getPath(), 0));
+        assertNull(fromStartup.multiGet(new int[] { 1 })[0]);
+        fromStartup.close();
+        log.delete();
+        startup.delete();
+        other.delete();
+    }
+
+
+    /**
+     * Tests scanning every record in table order, in ID order, and in
+     * parallel.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRecordScan() throws Exception {
+        SemManager semManager = new SemManager(64, 8);
+        int[] ids = { 300, 7, 42, 65536, 0, 17 };
+        for (int id : ids) {
+            SeminarRecord record = new SeminarRecord(id, "Seminar " + id,
+                "0610051600", 90, (short)1, (short)1, 45, "About " + id,
+                new String[] { "VT" });
+            semManager.insertRecord(record, record.serialize());
+        }
+        semManager.deleteRecord(42);
+
+        assertEquals(5, semManager.stream(false, false).count());
+        Object[] sorted = semManager.stream(true, false).map(
+            SeminarRecord::getId).toArray();
+        assertEquals("[0, 7, 17, 300, 65536]", java.util.Arrays.toString(
+            sorted));
+        assertEquals(65536 + 300 + 17 + 7, semManager.stream(true, true)
+            .mapToInt(SeminarRecord::getId).sum());
+        assertNull(semManager.records(true).trySplit().trySplit()
+            .trySplit());
+        semManager.close();
+
+        int[] keys = { 5, -3, Integer.MIN_VALUE, 256, -1 };
+        Handle[] handles = new Handle[5];
+        for (int i = 0; i < keys.length; i++) {
+            handles[i] = new Handle(keys[i], 0);
+        }
+        RecordSpliterator.sortById(keys, handles, keys.length);
+        assertEquals("[-2147483648, -3, -1, 5, 256]", java.util.Arrays
+            .toString(keys));
+        assertEquals(-3, handles[1].getStartingPosition());
+    }
+
+
+    /**
+     * Tests that the table and pool metrics are published over JMX, are
+     * not taken over by another store and are withdrawn on close.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMetricsBeans() throws Exception {
+        SemManager semManager = new SemManager(64, 4);
+        semManager.registerMetrics("test");
+        javax.management.MBeanServer server = java.lang.management
+            .ManagementFactory.getPlatformMBeanServer();
+        javax.management.ObjectName table = new javax.management.ObjectName(
+            "SemManager:type=HashTable,name=\"test\"");
+        assertEquals(4, server.getAttribute(table, "Capacity"));
+        assertEquals(64, server.getAttribute(new javax.management.ObjectName(
+            "SemManager:type=MemManager,name=\"test\""), "PoolSize"));
+
+        // A second store may not take over the name
+        SemManager other = new SemManager(128, 8);
+        try {
+            other.registerMetrics("test");
+            fail("Registered metrics under a name already in use");
+        }
+        catch (javax.management.InstanceAlreadyExistsException e) {
+            // expected
+        }
+        assertEquals(4, server.getAttribute(table, "Capacity"));
+        other.close();
+        assertTrue(server.isRegistered(table));
+
+        semManager.close();
+        assertFalse(server.isRegistered(table));
+    }
 }
@@ -0,0 +1,539 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The SemServer class serves a SemManager over TCP using the same
+ *          text commands as a command file. A client sends a command line,
+ *          followed by the four lines of a seminar for inserts, updates and
+ *          upserts, and receives the command's output followed by a line
+ *          holding a single dot. Output lines that start with a dot get an
+ *          extra dot in front, as in SMTP, so the end of a response is
+ *          never ambiguous. The command "quit" closes the connection.
+ *
+ *          Requests may be pipelined: a client can send many commands
+ *          without waiting, and the answers come back in order. Responses
+ *          are flushed only once no further request is waiting to be read,
+ *          so a pipelined batch is answered with few writes.
+ *
+ *          Each connection runs on its own virtual thread when the runtime
+ *          has them (Java 21 and later), or on a thread from a cached pool
+ *          otherwise. Searches, prints and aggregates run on the connection
+ *          thread under a shared read lock, so reads from different clients
+ *          proceed together. Every other command is queued for a single
+ *          writer thread, which takes whatever has queued up and runs it
+ *          under the write lock in one go; the connection waits for its
+ *          answer before reading on, so a client always sees its own
+ *          writes. Statistics that reads update, such as probe and node
+ *          visit counts, are kept per thread or in concurrent counters, so
+ *          overlapping reads report their own.
+ *
+ *          Commands print their output, so while the server runs it
+ *          replaces System.out with a stream that sends each thread's
+ *          output to the response it is building, and anything printed by
+ *          other threads to the console.
+ *
+ *          A server can also stream its changes to read replicas (see
+ *          {@link ReplicationPrimary}), and a replica serves its copy with
+ *          the server set to read-only.
+ *
+ *          Usage: java SemServer [--port {port}] [--address {host}]
+ *          [--replicate-port {port}] {initial-memory-size}
+ *          {initial-hash-size}
+ */
+public class SemServer implements Closeable {
+    /**
+     * The line that ends each response.
+     */
+    public static final String END_OF_RESPONSE = ".";
+
+    /**
+     * The port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final int MAX_WRITE_BATCH = 256;
+    // Queued by close to tell the writer to finish
+    private static final WriteRequest STOP = new WriteRequest(null, null);
+
+    private SemManager semManager;
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+    private Set<Socket> openSockets;
+    private Thread acceptor;
+    private Thread writer;
+    private LinkedBlockingQueue<WriteRequest> writeQueue;
+    private ReentrantReadWriteLock lock;
+    private ThreadLocal<OutputStream> responseTarget;
+    private PrintStream console;
+    private volatile boolean running;
+    private volatile boolean readOnly;
+
+    /**
+     * Initializes a new instance of the SemServer class. The server does
+     * not listen until {@link #start} is called.
+     *
+     * @param semManager
+     *            The store to serve.
+     */
+    public SemServer(SemManager semManager) {
+        this.semManager = semManager;
+        writeQueue = new LinkedBlockingQueue<>();
+        lock = new ReentrantReadWriteLock();
+        responseTarget = new ThreadLocal<>();
+        openSockets = ConcurrentHashMap.newKeySet();
+    }
+
+
+    /**
+     * The entry point of the server. It runs until the process is stopped.
+     *
+     * @param args
+     *            Optional {@code --port}, {@code --address} and
+     *            {@code --replicate-port} flags followed by the initial
+     *            memory size and initial hash size.
+     * @throws Exception
+     *             If the server cannot start.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        InetAddress address = InetAddress.getLoopbackAddress();
+        int replicationPort = -1;
+        int next = 0;
+        while (next + 1 < args.length && args[next].startsWith("--")) {
+            if (args[next].equals("--port")) {
+                port = Integer.parseInt(args[next + 1]);
+            }
+            else if (args[next].equals("--address")) {
+                address = InetAddress.getByName(args[next + 1]);
+            }
+            else if (args[next].equals("--replicate-port")) {
+                replicationPort = Integer.parseInt(args[next + 1]);
+            }
+            else {
+                break;
+            }
+            next += 2;
+        }
+        if (args.length - next != 2) {
+            System.err.println("Usage: java SemServer [--port {port}]"
+                + " [--address {host}] [--replicate-port {port}]"
+                + " {initial-memory-size} {initial-hash-size}");
+            System.exit(1);
+        }
+
+        SemManager semManager = new SemManager(Integer.parseInt(args[next]),
+            Integer.parseInt(args[next + 1]));
+        semManager.registerMetrics("server");
+        SemServer server = new SemServer(semManager);
+        server.start(address, port);
+        System.out.println("Listening on " + address.getHostAddress() + ":"
+            + server.getPort());
+        ReplicationPrimary primary = null;
+        if (replicationPort >= 0) {
+            primary = new ReplicationPrimary(semManager);
+            primary.start(address, replicationPort);
+            System.out.println("Replicating on " + address.getHostAddress()
+                + ":" + primary.getPort());
+        }
+        ReplicationPrimary replication = primary;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (replication != null) {
+                    replication.close();
+                }
+                server.close();
+                semManager.close();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        server.acceptor.join();
+    }
+
+
+    /**
+     * Starts listening and serving connections.
+     *
+     * @param address
+     *            The address to listen on.
+     * @param port
+     *            The port to listen on, or 0 for any free port.
+     * @throws IOException
+     *             If the port cannot be opened.
+     */
+    public void start(InetAddress address, int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(address, port));
+        console = System.out;
+        System.setOut(new PrintStream(new RoutingOutputStream(), true));
+        connections = newConnectionExecutor();
+        running = true;
+
+        writer = new Thread(this::runWriter, "SemServer-writer");
+        writer.setDaemon(true);
+        writer.start();
+        acceptor = new Thread(this::acceptConnections, "SemServer-acceptor");
+        acceptor.start();
+    }
+
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+
+    /**
+     * Sets whether the server refuses commands that change the store, as a
+     * read replica does. Searches, prints and aggregates are still served.
+     *
+     * @param readOnly
+     *            {@code true} to refuse changes.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+
+    /**
+     * Runs a task under the write lock, so no command runs while it does.
+     * This is how changes that do not come from clients, such as those
+     * streamed to a replica, are applied to a store being served.
+     *
+     * @param <T>
+     *            The type of the task's result.
+     * @param task
+     *            The task.
+     * @return The task's result.
+     * @throws Exception
+     *             If the task fails.
+     */
+    public <T> T callExclusive(Callable<T> task) throws Exception {
+        lock.writeLock().lock();
+        try {
+            return task.call();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Stops accepting connections, closes the open ones and puts
+     * System.out back. Writes queued before the server closed are run
+     * first; no thread is interrupted while the store may be forcing its
+     * log or spilling records, unless a connection is still busy after
+     * five seconds.
+     *
+     * @throws IOException
+     *             If the listening socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            socket.close(); // wakes connections blocked reading
+        }
+        connections.shutdown();
+        try {
+            writeQueue.put(STOP);
+            writer.join();
+            acceptor.join();
+            if (!connections.awaitTermination(5, TimeUnit.SECONDS)) {
+                connections.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.setOut(console);
+    }
+
+
+    private void acceptConnections() {
+        try {
+            while (running) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                openSockets.add(socket);
+                connections.execute(() -> serve(socket));
+            }
+        }
+        catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                connection.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(connection
+                .getOutputStream())) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.trim().replaceAll("\\s+", " ");
+                if (command.isEmpty()) {
+                    continue;
+                }
+                if (command.equals("quit")) {
+                    break;
+                }
+                StringBuilder record = new StringBuilder();
+                for (int i = 0; i < SemManager.recordLineCount(command); i++) {
+                    String recordLine = in.readLine();
+                    if (recordLine == null) {
+                        return;
+                    }
+                    record.append(recordLine).append('\n');
+                }
+
+                byte[] response;
+                if (SemManager.isReadOnly(command)) {
+                    response = read(command, record.toString());
+                }
+                else if (readOnly) {
+                    response = "Write FAILED -- This server is read-only\n"
+                        .getBytes(StandardCharsets.UTF_8);
+                }
+                else {
+                    response = write(command, record.toString());
+                }
+                writeResponse(out, response);
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        }
+        catch (SocketException e) {
+            // The client went away
+        }
+        catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (CancellationException e) {
+            // The server closed before the writer ran this command
+        }
+        finally {
+            openSockets.remove(socket);
+        }
+    }
+
+
+    private byte[] read(String command, String record) {
+        lock.readLock().lock();
+        try {
+            return execute(command, record);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private byte[] write(String command, String record)
+        throws InterruptedException {
+        WriteRequest request = new WriteRequest(command, record);
+        writeQueue.put(request);
+        try {
+            return request.response.get();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    private void runWriter() {
+        ArrayList<WriteRequest> batch = new ArrayList<>();
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                batch.add(writeQueue.take());
+                writeQueue.drainTo(batch, MAX_WRITE_BATCH - 1);
+                lock.writeLock().lock();
+                try {
+                    for (WriteRequest request : batch) {
+                        if (request == STOP) {
+                            stopping = true;
+                        }
+                        else if (stopping) {
+                            request.response.cancel(false);
+                        }
+                        else {
+                            request.response.complete(execute(
+                                request.command, request.record));
+                        }
+                    }
+                }
+                finally {
+                    lock.writeLock().unlock();
+                }
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e) {
+            // Only STOP ends the writer, so keep the flag for the caller
+            Thread.currentThread().interrupt();
+        }
+        for (WriteRequest request : writeQueue) {
+            request.response.cancel(false);
+        }
+    }
+
+
+    /**
+     * Runs one command with this thread's output captured.
+     *
+     * @param command
+     *            The command line.
+     * @param record
+     *            The lines of the seminar that follow it, if any.
+     * @return The output of the command.
+     */
+    private byte[] execute(String command, String record) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        responseTarget.set(output);
+        try (Scanner scanner = new Scanner(record)) {
+            semManager.executeCommand(command, scanner);
+        }
+        catch (Exception e) {
+            System.out.println("Error: " + e);
+        }
+        finally {
+            System.out.flush();
+            responseTarget.remove();
+        }
+        return output.toByteArray();
+    }
+
+
+    private static void writeResponse(OutputStream out, byte[] response)
+        throws IOException {
+        boolean lineStart = true;
+        for (byte b : response) {
+            if (lineStart && b == '.') {
+                out.write('.');
+            }
+            out.write(b);
+            lineStart = b == '\n';
+        }
+        if (!lineStart) {
+            out.write('\n');
+        }
+        out.write(END_OF_RESPONSE.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+
+    /**
+     * Creates an executor that runs each connection on a new virtual
+     * thread, falling back to a cached thread pool on runtimes without
+     * virtual threads.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod(
+                "newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * The WriteRequest class is a command waiting for the writer thread.
+     */
+    private static class WriteRequest {
+        private String command;
+        private String record;
+        private CompletableFuture<byte[]> response;
+
+        WriteRequest(String command, String record) {
+            this.command = command;
+            this.record = record;
+            response = new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * The RoutingOutputStream class sends bytes to the response the
+     * current thread is building, or to the console if it is not serving
+     * a request.
+     */
+    private class RoutingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+
+
+        private OutputStream target() {
+            OutputStream target = responseTarget.get();
+            return target == null ? console : target;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The SemServerTest class contains test methods for the SemServer
+ *          class.
+ */
+public class SemServerTest extends TestCase {
+    private SemManager semManager;
+    private SemServer server;
+
+    /**
+     * Starts a server on a free loopback port. Each test closes it.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        semManager = new SemManager(64, 4);
+        server = new SemServer(semManager);
+        server.start(InetAddress.getLoopbackAddress(), 0);
+    }
+
+
+    /**
+     * Tests that pipelined requests are answered in order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+            server.getPort())) {
+            PrintWriter out = new PrintWriter(socket.getOutputStream());
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                socket.getInputStream(), StandardCharsets.UTF_8));
+            out.print(insertRequest(7));
+            out.print("search 7\n");
+            out.print("delete 7\n");
+            out.print("search 7\n");
+            out.print("insert x\n\n\n\n\n");
+            out.flush();
+
+            assertTrue(readResponse(in).get(0).startsWith(
+                "Successfully inserted record with ID 7"));
+            ArrayList<String> found = readResponse(in);
+            assertEquals("Found record with ID 7:", found.get(0));
+            assertTrue(found.contains("Description: About 7"));
+            assertEquals(1, readResponse(in).size());
+            assertEquals("Search FAILED -- There is no record with ID 7",
+                readResponse(in).get(0));
+            assertTrue(readResponse(in).get(0).startsWith("Error: "));
+            out.print("quit\n");
+            out.flush();
+            assertNull(in.readLine());
+        }
+        server.close();
+        semManager.close();
+    }
+
+
+    /**
+     * Tests that writes from several connections all reach the store.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentClients() throws Exception {
+        Thread[] clients = new Thread[4];
+        Exception[] failure = new Exception[1];
+        for (int c = 0; c < clients.length; c++) {
+            int first = c * 50;
+            clients[c] = new Thread(() -> {
+                try (Socket socket = new Socket(InetAddress
+                    .getLoopbackAddress(), server.getPort())) {
+                    OutputStream out = socket.getOutputStream();
+                    BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(),
+                            StandardCharsets.UTF_8));
+                    for (int id = first; id < first + 50; id++) {
+                        out.write((insertRequest(id) + "search " + id + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.flush();
+                    for (int i = 0; i < 100; i++) {
+                        readResponse(in);
+                    }
+                }
+                catch (Exception e) {
+                    failure[0] = e;
+                }
+            });
+            clients[c].start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        server.close();
+        semManager.close();
+        assertNull(failure[0]);
+        assertEquals(200, semManager.getRecordCount());
+    }
+
+
+    /**
+     * Tests that closing the server while writes are queued leaves the
+     * store's write-ahead log open and in step with the store.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCloseWithQueuedWrites() throws Exception {
+        File log = File.createTempFile("semserver", ".wal");
+        semManager.openWriteAheadLog(log.getPath(), 0);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+            server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            StringBuilder requests = new StringBuilder();
+            for (int id = 0; id < 300; id++) {
+                requests.append(insertRequest(id));
+            }
+            out.write(requests.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                socket.getInputStream(), StandardCharsets.UTF_8));
+            readResponse(in);
+            server.close();
+        }
+        SeminarRecord record = new SeminarRecord(1000, "Late", "0610051600",
+            90, (short)1, (short)1, 45, "After close", new String[] { "VT" });
+        assertTrue(semManager.insertRecord(record, record.serialize()));
+        semManager.close();
+
+        SemManager recovered = new SemManager(64, 4);
+        recovered.openWriteAheadLog(log.getPath(), 0);
+        assertEquals(semManager.getRecordCount(), recovered
+            .getRecordCount());
+        recovered.close();
+        log.delete();
+    }
+
+
+    private static String insertRequest(int id) {
+        return "insert " + id + "\nSeminar " + id + "\n0610051600 90 10 10 45"
+            + "\nVT\nAbout " + id + "\n";
+    }
+
+
+    private static ArrayList<String> readResponse(BufferedReader in)
+        throws Exception {
+        ArrayList<String> lines = new ArrayList<>();
+        String line;
+        while (!(line = in.readLine()).equals(SemServer.END_OF_RESPONSE)) {
+            lines.add(line.startsWith("..") ? line.substring(1) : line);
+        }
+        return lines;
+    }
+}
@@ -1,4 +1,7 @@
 import java.io.*;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * @author Aayush Bagrecha
@@ -10,6 +13,12 @@ import java.io.*;
  *          methods for serialization and deserialization.
  */
 public class SeminarRecord implements Serializable {
+    /**
+     * The first byte of a record in the compact layout. Object streams
+     * always start with 0xAC, so the two layouts cannot be confused.
+     */
+    public static final byte COMPACT_FORMAT = 0x5A;
+
     private int id;
     private String title;
     private String dateTime;
@@ -154,6 +163,101 @@ public class SeminarRecord implements Serializable {
     }
 
 
+    /**
+     * Returns this record with a different ID, or this record itself when
+     * the ID is unchanged.
+     *
+     * @param newId
+     *            The ID to use.
+     * @return A seminar record with the given ID and the same fields.
+     */
+    public SeminarRecord withId(int newId) {
+        if (newId == id) {
+            return this;
+        }
+        return new SeminarRecord(newId, title, dateTime, length, x, y, cost,
+            description, keywords);
+    }
+
+
+    /**
+     * Gets the start of the seminar as minutes since the epoch.
+     *
+     * @return The start of the seminar in minutes.
+     */
+    public long getStartMinutes() {
+        return toMinutes(dateTime);
+    }
+
+
+    /**
+     * Gets the end of the seminar (start plus length) as minutes since the
+     * epoch.
+     *
+     * @return The end of the seminar in minutes.
+     */
+    public long getEndMinutes() {
+        return toMinutes(dateTime) + length;
+    }
+
+
+    /**
+     * Checks whether a string is a date and time in the YYMMDDhhmm form
+     * used by the command file: ten digits naming a real calendar date and
+     * time of day.
+     *
+     * @param dateTime
+     *            The string to check.
+     * @return {@code true} if it is a valid date and time.
+     */
+    public static boolean isValidDateTime(String dateTime) {
+        try {
+            toMinutes(dateTime);
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Converts a date and time in the YYMMDDhhmm form used by the command
+     * file into minutes since the epoch, so that windows can be compared
+     * and added to numerically. Two digit years are taken as 20YY.
+     *
+     * @param dateTime
+     *            The date and time string, for example "0610051600".
+     * @return The date and time in minutes.
+     * @throws IllegalArgumentException
+     *             If the string is not a valid date and time; see
+     *             {@link #isValidDateTime}.
+     */
+    public static long toMinutes(String dateTime) {
+        boolean digits = dateTime != null && dateTime.length() == 10;
+        for (int i = 0; digits && i < dateTime.length(); i++) {
+            digits = dateTime.charAt(i) >= '0' && dateTime.charAt(i) <= '9';
+        }
+        if (!digits) {
+            throw new IllegalArgumentException("Invalid date and time: "
+                + dateTime);
+        }
+        int year = Integer.parseInt(dateTime.substring(0, 2));
+        int month = Integer.parseInt(dateTime.substring(2, 4));
+        int day = Integer.parseInt(dateTime.substring(4, 6));
+        int hour = Integer.parseInt(dateTime.substring(6, 8));
+        int minute = Integer.parseInt(dateTime.substring(8, 10));
+        try {
+            return LocalDateTime.of(2000 + year, month, day, hour, minute)
+                .toEpochSecond(ZoneOffset.UTC) / 60;
+        }
+        catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid date and time: "
+                + dateTime, e);
+        }
+    }
+
+
     /**
      * Deserializes a byte array into a SeminarRecord object.
      *
@@ -165,27 +269,112 @@ public class SeminarRecord implements Serializable {
      */
     public static SeminarRecord deserialize(byte[] inputbytes)
         throws Exception {
+        return deserialize(inputbytes, null);
+    }
+
+
+    /**
+     * Deserializes a byte array into a SeminarRecord object, decoding
+     * dictionary-encoded keywords.
+     *
+     * @param inputbytes
+     *            The byte array to deserialize.
+     * @param dictionary
+     *            The dictionary the keywords were encoded with, or
+     *            {@code null} if they are not encoded.
+     * @return The deserialized SeminarRecord object.
+     * @throws Exception
+     *             If an error occurs during deserialization, or the
+     *             keywords are encoded and no dictionary is given.
+     */
+    public static SeminarRecord deserialize(
+        byte[] inputbytes,
+        StringDictionary dictionary)
+        throws Exception {
+        return deserialize(inputbytes, dictionary, null);
+    }
+
+
+    /**
+     * Deserializes a byte array into a SeminarRecord object, decoding
+     * dictionary-encoded keywords and compressed text fields.
+     *
+     * @param inputbytes
+     *            The byte array to deserialize.
+     * @param dictionary
+     *            The dictionary the keywords were encoded with, or
+     *            {@code null} if they are not encoded.
+     * @param codec
+     *            The codec the text fields were compressed with, or
+     *            {@code null} if they are not compressed.
+     * @return The deserialized SeminarRecord object.
+     * @throws Exception
+     *             If an error occurs during deserialization, or the record
+     *             needs a dictionary or codec that is not given.
+     */
+    public static SeminarRecord deserialize(
+        byte[] inputbytes,
+        StringDictionary dictionary,
+        TextCodec codec)
+        throws Exception {
+        if (inputbytes.length > 0 && inputbytes[0] == COMPACT_FORMAT) {
+            if (codec == null) {
+                throw new IOException(
+                    "Record text is compressed but no codec given");
+            }
+            DataInputStream inputStream = new DataInputStream(
+                new ByteArrayInputStream(inputbytes, 1, inputbytes.length
+                    - 1));
+            return readFields(inputStream, dictionary, codec);
+        }
         ByteArrayInputStream bis = new ByteArrayInputStream(inputbytes);
         try (ObjectInputStream inputStream = new ObjectInputStream(bis)) {
-            int id = inputStream.readInt();
-            String title = inputStream.readUTF();
-            String date = inputStream.readUTF();
-            int length = inputStream.readInt();
-            short x = inputStream.readShort();
-            short y = inputStream.readShort();
-            int cost = inputStream.readInt();
-
-            int numKeywords = inputStream.readInt();
-            String[] keywords = new String[numKeywords];
+            return readFields(inputStream, dictionary, null);
+        }
+    }
+
+
+    private static SeminarRecord readFields(
+        DataInput inputStream,
+        StringDictionary dictionary,
+        TextCodec codec)
+        throws IOException {
+        int id = inputStream.readInt();
+        String title = codec == null
+            ? inputStream.readUTF()
+            : codec.read(inputStream);
+        String date = inputStream.readUTF();
+        int length = inputStream.readInt();
+        short x = inputStream.readShort();
+        short y = inputStream.readShort();
+        int cost = inputStream.readInt();
+
+        int numKeywords = inputStream.readInt();
+        String[] keywords;
+        if (numKeywords >= 0) {
+            keywords = new String[numKeywords];
             for (int i = 0; i < numKeywords; i++) {
                 keywords[i] = inputStream.readUTF();
             }
+        }
+        else {
+            // A negative count marks keywords stored as dictionary codes
+            if (dictionary == null) {
+                throw new IOException(
+                    "Record keywords are encoded but no dictionary given");
+            }
+            keywords = new String[-numKeywords - 1];
+            for (int i = 0; i < keywords.length; i++) {
+                keywords[i] = dictionary.decode(readVarInt(inputStream));
+            }
+        }
 
-            String desc = inputStream.readUTF();
+        String desc = codec == null
+            ? inputStream.readUTF()
+            : codec.read(inputStream);
 
-            return new SeminarRecord(id, title, date, length, x, y, cost, desc,
-                keywords);
-        }
+        return new SeminarRecord(id, title, date, length, x, y, cost, desc,
+            keywords);
     }
 
 
@@ -198,25 +387,142 @@ public class SeminarRecord implements Serializable {
      *             If an error occurs during serialization.
      */
     public byte[] serialize() throws Exception {
+        return serialize(null, null);
+    }
+
+
+    /**
+     * Serializes the SeminarRecord object into a byte array, optionally
+     * storing each keyword as a variable-length dictionary code instead of
+     * its text. Encoded records write the keyword count as
+     * {@code -(count + 1)} so that readers can tell the two forms apart.
+     *
+     * @param dictionary
+     *            The dictionary to encode keywords with, or {@code null} to
+     *            store them as text.
+     * @return The serialized byte array representation of the
+     *         SeminarRecord object.
+     * @throws Exception
+     *             If an error occurs during serialization.
+     */
+    public byte[] serialize(StringDictionary dictionary) throws Exception {
+        return serialize(dictionary, null);
+    }
+
+
+    /**
+     * Serializes the SeminarRecord object into a byte array, optionally
+     * encoding keywords and compressing the title and description. A
+     * record with compressed text uses a compact layout without the object
+     * stream header, marked by a leading {@link #COMPACT_FORMAT} byte that
+     * can never start an object stream.
+     *
+     * @param dictionary
+     *            The dictionary to encode keywords with, or {@code null} to
+     *            store them as text.
+     * @param codec
+     *            The codec to compress the title and description with, or
+     *            {@code null} to store them as text.
+     * @return The serialized byte array representation of the
+     *         SeminarRecord object.
+     * @throws Exception
+     *             If an error occurs during serialization.
+     */
+    public byte[] serialize(StringDictionary dictionary, TextCodec codec)
+        throws Exception {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (codec != null) {
+            out.write(COMPACT_FORMAT);
+            writeFields(new DataOutputStream(out), dictionary, codec);
+            return out.toByteArray();
+        }
         try (ObjectOutputStream outputStream = new ObjectOutputStream(out)) {
-            outputStream.writeInt(id);
+            writeFields(outputStream, dictionary, null);
+        }
+        return out.toByteArray();
+    }
+
+
+    private void writeFields(
+        DataOutput outputStream,
+        StringDictionary dictionary,
+        TextCodec codec)
+        throws IOException {
+        outputStream.writeInt(id);
+        if (codec == null) {
             outputStream.writeUTF(title);
-            outputStream.writeUTF(dateTime);
-            outputStream.writeInt(length);
-            outputStream.writeShort(x);
-            outputStream.writeShort(y);
-            outputStream.writeInt(cost);
+        }
+        else {
+            codec.write(outputStream, title);
+        }
+        outputStream.writeUTF(dateTime);
+        outputStream.writeInt(length);
+        outputStream.writeShort(x);
+        outputStream.writeShort(y);
+        outputStream.writeInt(cost);
 
-            // Write the number of keywords and then each keyword
+        // Write the number of keywords and then each keyword
+        if (dictionary == null) {
             outputStream.writeInt(keywords.length);
             for (String keyword : keywords) {
                 outputStream.writeUTF(keyword);
             }
+        }
+        else {
+            outputStream.writeInt(-keywords.length - 1);
+            for (String keyword : keywords) {
+                writeVarInt(outputStream, dictionary.encode(keyword));
+            }
+        }
 
+        if (codec == null) {
             outputStream.writeUTF(description);
         }
-        return out.toByteArray();
+        else {
+            codec.write(outputStream, description);
+        }
+    }
+
+
+    /**
+     * Writes a non-negative integer in seven-bit groups, low group first.
+     *
+     * @param out
+     *            The output to write to.
+     * @param value
+     *            The value to write.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+
+    /**
+     * Reads an integer written by {@link #writeVarInt}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The value.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
     }
 
 
@@ -0,0 +1,485 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The Snapshot class writes and reads a compact binary image of a
+ *          HashTable and the live records of its MemManager. The layout is
+ *
+ *          <pre>
+ *          int  magic ("SEMS")
+ *          int  format version
+ *          int  memory pool size
+ *          int  hash table capacity
+ *          int  number of slot entries
+ *          long number of record bytes
+ *          slot entries: int slot, int key, int tombstone, long offset,
+ *                        int length
+ *          record bytes, packed back to back
+ *          int  1 if a section follows, else 0
+ *          section bytes, written and read by a {@link Section}
+ *          long CRC32 of everything above
+ *          </pre>
+ *
+ *          Tombstones are kept so the restored table has exactly the same
+ *          probe chains, and a block shared by several entries is stored
+ *          once and shared again on load. The image is streamed to a
+ *          temporary file through a fixed-size buffer, with the checksum
+ *          kept as it goes, so a snapshot may be larger than the heap or
+ *          than 2 GB. The temporary file then replaces the old snapshot, so
+ *          a crash during a checkpoint leaves the previous snapshot intact.
+ *          Loading checks the file in chunks, then maps the record bytes
+ *          and copies them into the new pool in one bulk copy; those must
+ *          fit in a single pool. The optional section after the records
+ *          lets a store save state that would otherwise have to be rebuilt
+ *          from every record, such as its secondary indexes, under the
+ *          same checksum.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x53454D53;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 5 * 4 + 8;
+    private static final int SLOT_SIZE = 4 * 4 + 8;
+    private static final int CHECKSUM_SIZE = 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private HashTable hashTable;
+    private MemManager memoryManager;
+    private int recordCount;
+
+    private Snapshot(
+        HashTable hashTable,
+        MemManager memoryManager,
+        int recordCount) {
+        this.hashTable = hashTable;
+        this.memoryManager = memoryManager;
+        this.recordCount = recordCount;
+    }
+
+
+    /**
+     * Gets the restored hash table.
+     *
+     * @return The hash table.
+     */
+    public HashTable getHashTable() {
+        return hashTable;
+    }
+
+
+    /**
+     * Gets the restored memory pool.
+     *
+     * @return The memory manager.
+     */
+    public MemManager getMemoryManager() {
+        return memoryManager;
+    }
+
+
+    /**
+     * Gets the number of live records in the snapshot.
+     *
+     * @return The number of records.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+
+    /**
+     * Writes a snapshot of a hash table and the records it points to.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @param hashTable
+     *            The hash table to save.
+     * @param memoryManager
+     *            The memory pool holding the records.
+     * @return The number of bytes written.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public static long write(
+        String path,
+        HashTable hashTable,
+        MemManager memoryManager)
+        throws IOException {
+        return write(path, hashTable, memoryManager, null);
+    }
+
+
+    /**
+     * Writes a snapshot of a hash table and the records it points to,
+     * followed by a section of the caller's own.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @param hashTable
+     *            The hash table to save.
+     * @param memoryManager
+     *            The memory pool holding the records.
+     * @param section
+     *            The section to write after the records, or {@code null}
+     *            for none.
+     * @return The number of bytes written.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public static long write(
+        String path,
+        HashTable hashTable,
+        MemManager memoryManager,
+        Section section)
+        throws IOException {
+        HashTable.Entry[] table = hashTable.table;
+        // Blocks shared by several entries are written once
+        IdentityHashMap<Handle, Long> offsets = new IdentityHashMap<>();
+        int slots = 0;
+        long dataLength = 0;
+        for (HashTable.Entry entry : table) {
+            if (entry != null) {
+                slots++;
+                if (!entry.isTombstone && !offsets.containsKey(entry.value)) {
+                    offsets.put(entry.value, dataLength);
+                    dataLength += entry.value.getRecordLength();
+                }
+            }
+        }
+
+        Path target = Paths.get(path);
+        Path temporary = Paths.get(path + ".tmp");
+        CRC32 crc = new CRC32();
+        long total;
+        try (FileOutputStream file = new FileOutputStream(temporary
+            .toFile())) {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(file, crc),
+                    BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(memoryManager.getPoolSize());
+            out.writeInt(table.length);
+            out.writeInt(slots);
+            out.writeLong(dataLength);
+
+            for (int i = 0; i < table.length; i++) {
+                HashTable.Entry entry = table[i];
+                if (entry != null) {
+                    out.writeInt(i);
+                    out.writeInt(entry.key);
+                    out.writeInt(entry.isTombstone ? 1 : 0);
+                    out.writeLong(entry.isTombstone
+                        ? 0
+                        : offsets.get(entry.value));
+                    out.writeInt(entry.isTombstone
+                        ? 0
+                        : entry.value.getRecordLength());
+                }
+            }
+
+            byte[] record = new byte[0];
+            IdentityHashMap<Handle, Boolean> written = new IdentityHashMap<>();
+            // Readers of the store lock the pool too; peeking leaves spilled
+            // records on disk rather than pulling the whole store back in
+            synchronized (memoryManager) {
+                for (HashTable.Entry entry : table) {
+                    if (entry != null && !entry.isTombstone && written.put(
+                        entry.value, true) == null) {
+                        int length = entry.value.getRecordLength();
+                        if (record.length < length) {
+                            record = new byte[length];
+                        }
+                        memoryManager.peek(record, entry.value, length);
+                        out.write(record, 0, length);
+                    }
+                }
+            }
+            out.writeInt(section == null ? 0 : 1);
+            if (section != null) {
+                section.write(out);
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+            out.flush();
+            file.getChannel().force(true);
+            total = file.getChannel().size();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        return total;
+    }
+
+
+    /**
+     * Reads a snapshot back into a new hash table and memory pool.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @param minimumPoolSize
+     *            The smallest pool to create, used when the saved pool was
+     *            smaller.
+     * @return The restored snapshot.
+     * @throws IOException
+     *             If the file cannot be read or is not a valid snapshot.
+     */
+    public static Snapshot load(String path, int minimumPoolSize)
+        throws IOException {
+        return load(path, minimumPoolSize, null);
+    }
+
+
+    /**
+     * Reads a snapshot back into a new hash table and memory pool, handing
+     * the section after the records, if the snapshot has one, to the
+     * caller's reader. The whole file is checked before any of it is read.
+     *
+     * @param path
+     *            The path of the snapshot file.
+     * @param minimumPoolSize
+     *            The smallest pool to create, used when the saved pool was
+     *            smaller.
+     * @param section
+     *            The reader for the section after the records, or
+     *            {@code null} to skip it.
+     * @return The restored snapshot.
+     * @throws IOException
+     *             If the file cannot be read or is not a valid snapshot.
+     */
+    public static Snapshot load(
+        String path,
+        int minimumPoolSize,
+        Section section)
+        throws IOException {
+        try (FileChannel in = FileChannel.open(Paths.get(path),
+            StandardOpenOption.READ)) {
+            long body = in.size() - CHECKSUM_SIZE;
+            if (body < HEADER_SIZE) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            ByteBuffer stored = ByteBuffer.allocate(CHECKSUM_SIZE);
+            while (stored.hasRemaining()) {
+                in.read(stored, body + stored.position());
+            }
+            if (stored.getLong(0) != checksum(in, body)) {
+                throw new IOException("Snapshot " + path + " is corrupt");
+            }
+
+            DataInputStream image = open(in, 0);
+            if (image.readInt() != MAGIC || image.readInt() != VERSION) {
+                throw new IOException(path + " is not a snapshot file");
+            }
+            int poolSize = image.readInt();
+            int capacity = image.readInt();
+            int slots = image.readInt();
+            long dataLength = image.readLong();
+            if (dataLength > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " holds "
+                    + dataLength + " record bytes, more than a pool can");
+            }
+
+            // The records are mapped and copied into the pool in one go
+            MemManager memoryManager = new MemManager(Math.max(Math.max(
+                poolSize, minimumPoolSize), Math.max((int)dataLength, 1)));
+            long dataStart = HEADER_SIZE + (long)slots * SLOT_SIZE;
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY,
+                dataStart, dataLength);
+            int base = memoryManager.bulkLoad(data, (int)dataLength);
+
+            HashTable hashTable = new HashTable(capacity);
+            // New blocks come in offset order, so a block shared with an
+            // earlier entry is found by a binary search of those seen so far
+            long[] blockOffsets = new long[slots];
+            Handle[] blockHandles = new Handle[slots];
+            int blocks = 0;
+            long nextOffset = 0;
+            int records = 0;
+            for (int i = 0; i < slots; i++) {
+                int slot = image.readInt();
+                int key = image.readInt();
+                boolean isTombstone = image.readInt() != 0;
+                long offset = image.readLong();
+                int length = image.readInt();
+                Handle handle = null;
+                if (!isTombstone && offset == nextOffset) {
+                    handle = new Handle(base + (int)offset, length);
+                    blockOffsets[blocks] = offset;
+                    blockHandles[blocks++] = handle;
+                    nextOffset += length;
+                }
+                else if (!isTombstone) {
+                    int block = Arrays.binarySearch(blockOffsets, 0, blocks,
+                        offset);
+                    if (block < 0) {
+                        throw new IOException("Snapshot " + path
+                            + " is corrupt");
+                    }
+                    handle = blockHandles[block];
+                }
+                hashTable.restoreEntry(slot, key, handle, isTombstone);
+                if (!isTombstone) {
+                    records++;
+                }
+            }
+
+            DataInputStream rest = open(in, dataStart + dataLength);
+            if (rest.readInt() != 0 && section != null) {
+                section.read(rest);
+            }
+            return new Snapshot(hashTable, memoryManager, records);
+        }
+    }
+
+
+    /**
+     * Opens a buffered stream over a file starting at a position.
+     *
+     * @param in
+     *            The file.
+     * @param position
+     *            The position of the first byte to read.
+     * @return The stream.
+     * @throws IOException
+     *             If the file cannot be positioned.
+     */
+    private static DataInputStream open(FileChannel in, long position)
+        throws IOException {
+        return new DataInputStream(new ChannelInput(in, position));
+    }
+
+
+    /**
+     * Computes the CRC32 of the start of a file, reading it in chunks so
+     * that files larger than one buffer or mapping can be checked.
+     *
+     * @param in
+     *            The file.
+     * @param length
+     *            The number of bytes to check.
+     * @return The checksum.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    private static long checksum(FileChannel in, long length)
+        throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = 0;
+        while (position < length) {
+            buffer.clear();
+            buffer.limit((int)Math.min(buffer.capacity(), length - position));
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Snapshot ended while checking it");
+            }
+            position += read;
+            buffer.flip();
+            crc.update(buffer);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The Section interface writes and reads the part of a snapshot that
+     * follows the records.
+     */
+    public interface Section {
+        /**
+         * Writes the section.
+         *
+         * @param out
+         *            The output to write to.
+         * @throws IOException
+         *             If the output cannot be written.
+         */
+        void write(DataOutput out) throws IOException;
+
+
+        /**
+         * Reads the section back.
+         *
+         * @param in
+         *            The input to read from.
+         * @throws IOException
+         *             If the input cannot be read.
+         */
+        void read(DataInput in) throws IOException;
+    }
+
+    /**
+     * The ChannelInput class is a buffered stream over part of a file. It
+     * reads with positioned reads and, unlike a BufferedInputStream, takes
+     * no lock per byte, which matters when a snapshot is read one field
+     * at a time.
+     */
+    private static class ChannelInput extends InputStream {
+        private FileChannel channel;
+        private long position;
+        private ByteBuffer buffer;
+
+        ChannelInput(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+        }
+
+
+        @Override
+        public int read() throws IOException {
+            if (!buffer.hasRemaining() && !fill()) {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+            throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining() && !fill()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+
+        private boolean fill() throws IOException {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            buffer.flip();
+            if (read <= 0) {
+                return false;
+            }
+            position += read;
+            return true;
+        }
+    }
+}
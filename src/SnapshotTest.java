@@ -0,0 +1,122 @@
+import student.TestCase;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The SnapshotTest class contains test methods for the Snapshot
+ *          class.
+ */
+public class SnapshotTest extends TestCase {
+    private File snapshotFile;
+    private HashTable ht;
+    private MemManager memManager;
+
+    /**
+     * Sets up the test environment before running test cases.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        snapshotFile = File.createTempFile("semmanager", ".snap");
+        snapshotFile.deleteOnExit();
+        ht = new HashTable(8);
+        memManager = new MemManager(512);
+        for (int id = 1; id <= 3; id++) {
+            SeminarRecord record = new SeminarRecord(id, "Seminar " + id,
+                "0610051600", 60, (short)id, (short)id, 10 * id,
+                "Description " + id, new String[] { "VT" });
+            byte[] serialized = record.serialize();
+            ht.insert(id, memManager.insert(serialized, serialized.length));
+        }
+        ht.delete(2);
+    }
+
+
+    /**
+     * Tests that a snapshot restores the records and the exact table
+     * layout, tombstones included.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        Snapshot.write(snapshotFile.getPath(), ht, memManager);
+        Snapshot snapshot = Snapshot.load(snapshotFile.getPath(), 64);
+        assertEquals(2, snapshot.getRecordCount());
+
+        HashTable restored = snapshot.getHashTable();
+        assertEquals(8, restored.getSize());
+        assertEquals(ht.find(3), restored.find(3));
+        assertTrue(restored.table[ht.find(1) + 1].isTombstone);
+        assertNull(restored.search(2));
+
+        Handle handle = restored.search(3);
+        byte[] bytes = new byte[handle.getRecordLength()];
+        snapshot.getMemoryManager().get(bytes, handle, bytes.length);
+        assertEquals("Seminar 3", SeminarRecord.deserialize(bytes)
+            .getTitle());
+    }
+
+
+    /**
+     * Tests that a snapshot larger than the write buffer is streamed out in
+     * several chunks and checks out when loaded.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultiChunkSnapshot() throws Exception {
+        HashTable table = new HashTable(8);
+        MemManager pool = new MemManager(1024);
+        char[] text = new char[1000];
+        Arrays.fill(text, 'x');
+        for (int id = 1; id <= 2000; id++) {
+            byte[] serialized = new SeminarRecord(id, "Seminar " + id,
+                "0610051600", 60, (short)id, (short)id, id, new String(text),
+                new String[] { "VT" }).serialize();
+            table.insert(id, pool.insert(serialized, serialized.length));
+        }
+        long bytes = Snapshot.write(snapshotFile.getPath(), table, pool);
+        assertTrue(bytes > 2 << 20);
+        assertEquals(bytes, snapshotFile.length());
+
+        Snapshot snapshot = Snapshot.load(snapshotFile.getPath(), 64);
+        assertEquals(2000, snapshot.getRecordCount());
+        Handle handle = snapshot.getHashTable().search(1999);
+        byte[] record = new byte[handle.getRecordLength()];
+        snapshot.getMemoryManager().get(record, handle, record.length);
+        assertEquals(1999, SeminarRecord.deserialize(record).getCost());
+    }
+
+
+    /**
+     * Tests that a damaged snapshot is rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        Snapshot.write(snapshotFile.getPath(), ht, memManager);
+        try (RandomAccessFile file = new RandomAccessFile(snapshotFile,
+            "rw")) {
+            file.seek(30);
+            file.write(0xff);
+        }
+        try {
+            Snapshot.load(snapshotFile.getPath(), 64);
+            fail("corrupt snapshot was loaded");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupt"));
+        }
+    }
+}
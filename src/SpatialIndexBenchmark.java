@@ -0,0 +1,87 @@
+import java.util.Random;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The SpatialIndexBenchmark class compares region searches on the
+ *          PRQuadTree against a linear scan over the same points. It runs a
+ *          fixed number of small region queries at growing dataset sizes so
+ *          the per-query cost of the tree can be seen to grow much slower
+ *          than the size of the data.
+ *
+ *          Usage: java SpatialIndexBenchmark {max-records} {queries}
+ */
+public class SpatialIndexBenchmark {
+    private static final int QUERY_SIZE = 256;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args
+     *            Optional maximum number of records and number of queries.
+     */
+    public static void main(String[] args) {
+        int maxRecords = args.length > 0 ? Integer.parseInt(args[0]) : 4000000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        System.out.println("records,tree_ns_per_query,scan_ns_per_query,"
+            + "avg_nodes_visited,avg_matches");
+        for (int n = 10000; n <= maxRecords; n *= 4) {
+            run(n, queries);
+        }
+    }
+
+
+    private static void run(int n, int queries) {
+        Random random = new Random(n);
+        short[] xs = new short[n];
+        short[] ys = new short[n];
+        PRQuadTree tree = new PRQuadTree();
+        for (int i = 0; i < n; i++) {
+            xs[i] = (short)random.nextInt(1 << 16);
+            ys[i] = (short)random.nextInt(1 << 16);
+            tree.insert(xs[i], ys[i], i);
+        }
+
+        int[] qx = new int[queries];
+        int[] qy = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            qx[i] = Short.MIN_VALUE + random.nextInt((1 << 16) - QUERY_SIZE);
+            qy[i] = Short.MIN_VALUE + random.nextInt((1 << 16) - QUERY_SIZE);
+        }
+
+        long matches = 0;
+        long visited = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            matches += tree.regionSearch(qx[i], qy[i], QUERY_SIZE, QUERY_SIZE)
+                .size();
+            visited += tree.getNodesVisited();
+        }
+        long treeTime = System.nanoTime() - start;
+
+        long scanMatches = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            int x2 = qx[i] + QUERY_SIZE;
+            int y2 = qy[i] + QUERY_SIZE;
+            for (int j = 0; j < n; j++) {
+                if (xs[j] >= qx[i] && xs[j] < x2 && ys[j] >= qy[i]
+                    && ys[j] < y2) {
+                    scanMatches++;
+                }
+            }
+        }
+        long scanTime = System.nanoTime() - start;
+
+        if (scanMatches != matches) {
+            System.err.println("Mismatch at " + n + ": tree found " + matches
+                + ", scan found " + scanMatches);
+        }
+        System.out.println(n + "," + (treeTime / queries) + "," + (scanTime
+            / queries) + "," + (visited / queries) + "," + (matches
+                / queries));
+    }
+}
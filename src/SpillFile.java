@@ -0,0 +1,138 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The SpillFile class is an append-only scratch file that holds
+ *          records moved out of the memory pool. Records are written at the
+ *          end of the file and read back with positional reads, so readers
+ *          never move a shared file pointer. Space of records that are
+ *          promoted back or deleted is not reused; it is only counted. The
+ *          file is temporary and is deleted when closed.
+ */
+public class SpillFile implements Closeable {
+    private Path path;
+    private FileChannel channel;
+    private long end;
+    private long deadBytes;
+
+    /**
+     * Creates an empty spill file, replacing any file already at the path.
+     *
+     * @param path
+     *            The path of the spill file.
+     * @throws IOException
+     *             If the file cannot be created.
+     */
+    public SpillFile(String path) throws IOException {
+        this.path = Paths.get(path);
+        channel = FileChannel.open(this.path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        end = 0;
+        deadBytes = 0;
+    }
+
+
+    /**
+     * Appends a record to the end of the file.
+     *
+     * @param data
+     *            The array holding the record.
+     * @param offset
+     *            The position of the record in the array.
+     * @param length
+     *            The length of the record.
+     * @return The file position the record was written at.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public synchronized long append(byte[] data, int offset, int length)
+        throws IOException {
+        long position = end;
+        ByteBuffer source = ByteBuffer.wrap(data, offset, length);
+        while (source.hasRemaining()) {
+            channel.write(source, position + source.position() - offset);
+        }
+        end += length;
+        return position;
+    }
+
+
+    /**
+     * Reads a record back from the file.
+     *
+     * @param position
+     *            The file position of the record.
+     * @param output
+     *            The array to read the record into.
+     * @param length
+     *            The length of the record.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    public void read(long position, byte[] output, int length)
+        throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(output, 0, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Spill file ends before position "
+                    + (position + length));
+            }
+        }
+    }
+
+
+    /**
+     * Records that a spilled record is no longer needed.
+     *
+     * @param length
+     *            The length of the record.
+     */
+    public synchronized void release(int length) {
+        deadBytes += length;
+    }
+
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return The number of bytes written to the file.
+     */
+    public synchronized long getSize() {
+        return end;
+    }
+
+
+    /**
+     * Gets the number of bytes in the file that no longer hold a live
+     * record.
+     *
+     * @return The number of dead bytes.
+     */
+    public synchronized long getDeadBytes() {
+        return deadBytes;
+    }
+
+
+    /**
+     * Closes and deletes the file.
+     *
+     * @throws IOException
+     *             If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The StringDictionary class assigns a small integer code to each
+ *          distinct string it sees, so that frequently repeated strings such
+ *          as keywords can be stored and compared as codes. Codes are handed
+ *          out in order starting at 0 and never change or get reused.
+ *
+ *          The saved form is an int count followed by each string in code
+ *          order as modified UTF-8 with a two byte length, so codes are
+ *          implied by position and not stored.
+ */
+public class StringDictionary {
+    private HashMap<String, Integer> codeOf;
+    private ArrayList<String> strings;
+
+    /**
+     * Initializes a new, empty instance of the StringDictionary class.
+     */
+    public StringDictionary() {
+        codeOf = new HashMap<>();
+        strings = new ArrayList<>();
+    }
+
+
+    /**
+     * Gets the code of a string, assigning a new code if the string has
+     * not been seen before.
+     *
+     * @param value
+     *            The string to encode.
+     * @return The code of the string.
+     */
+    public int encode(String value) {
+        Integer code = codeOf.get(value);
+        if (code == null) {
+            code = strings.size();
+            codeOf.put(value, code);
+            strings.add(value);
+        }
+        return code;
+    }
+
+
+    /**
+     * Gets the code of a string without assigning one.
+     *
+     * @param value
+     *            The string to look up.
+     * @return The code of the string, or -1 if it has no code.
+     */
+    public int lookup(String value) {
+        Integer code = codeOf.get(value);
+        return code == null ? -1 : code;
+    }
+
+
+    /**
+     * Gets the string for a code.
+     *
+     * @param code
+     *            The code to decode.
+     * @return The string with that code.
+     */
+    public String decode(int code) {
+        return strings.get(code);
+    }
+
+
+    /**
+     * Gets the number of strings in the dictionary.
+     *
+     * @return The number of strings.
+     */
+    public int getSize() {
+        return strings.size();
+    }
+
+
+    /**
+     * Writes the dictionary to a stream.
+     *
+     * @param out
+     *            The stream to write to.
+     * @throws IOException
+     *             If the stream cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(strings.size());
+        for (String value : strings) {
+            out.writeUTF(value);
+        }
+    }
+
+
+    /**
+     * Reads a dictionary written by write.
+     *
+     * @param in
+     *            The stream to read from.
+     * @return The dictionary.
+     * @throws IOException
+     *             If the stream cannot be read.
+     */
+    public static StringDictionary read(DataInput in) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            dictionary.encode(in.readUTF());
+        }
+        return dictionary;
+    }
+}
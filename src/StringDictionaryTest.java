@@ -0,0 +1,130 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The StringDictionaryTest class contains test methods for the
+ *          StringDictionary and KeywordIndex classes and for dictionary
+ *          encoded seminar records.
+ */
+public class StringDictionaryTest extends TestCase {
+    private StringDictionary dictionary;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        dictionary = new StringDictionary();
+    }
+
+
+    /**
+     * Tests that codes are stable and survive a save and load.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEncodeAndReload() throws Exception {
+        assertEquals(0, dictionary.encode("HPC"));
+        assertEquals(1, dictionary.encode("CSE"));
+        assertEquals(0, dictionary.encode("HPC"));
+        assertEquals(-1, dictionary.lookup("VT"));
+        assertEquals(2, dictionary.getSize());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        dictionary.write(new DataOutputStream(bytes));
+        StringDictionary loaded = StringDictionary.read(new DataInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(2, loaded.getSize());
+        assertEquals("CSE", loaded.decode(1));
+        assertEquals(0, loaded.lookup("HPC"));
+    }
+
+
+    /**
+     * Tests that a record with encoded keywords reads back unchanged and
+     * takes less space than the plain form.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEncodedRecord() throws Exception {
+        SeminarRecord record = new SeminarRecord(3, "HPC", "0703301125", 35,
+            (short)0, (short)0, 25, "Learn", new String[] {
+                "high_performance_computing", "computer_science" });
+        byte[] plain = record.serialize();
+        byte[] encoded = record.serialize(dictionary);
+        assertTrue(encoded.length < plain.length);
+
+        SeminarRecord copy = SeminarRecord.deserialize(encoded, dictionary);
+        assertEquals(record.toString(), copy.toString());
+        assertEquals(record.toString(), SeminarRecord.deserialize(plain,
+            dictionary).toString());
+        Exception thrown = null;
+        try {
+            SeminarRecord.deserialize(encoded);
+        }
+        catch (Exception e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+
+    /**
+     * Tests keyword lookups, including after removal.
+     */
+    @Test
+    public void testKeywordIndex() {
+        KeywordIndex index = new KeywordIndex(dictionary);
+        index.insert(new String[] { "HPC", "VT" }, 5);
+        index.insert(new String[] { "VT" }, 2);
+        ArrayList<Integer> ids = index.search("VT");
+        assertEquals(2, ids.size());
+        assertTrue(ids.contains(2) && ids.contains(5));
+        assertEquals(0, index.search("CSE").size());
+
+        index.remove(new String[] { "HPC", "VT" }, 5);
+        assertEquals(0, index.search("HPC").size());
+        assertEquals(1, index.search("VT").size());
+    }
+
+
+    /**
+     * Tests that a snapshot of a store with encoded keywords carries its
+     * own dictionary, so no file is written next to it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSnapshotKeepsDictionary() throws Exception {
+        SemManager original = new SemManager(64, 4);
+        original.setKeywordEncoding(true);
+        SeminarRecord record = new SeminarRecord(3, "HPC", "0703301125", 35,
+            (short)0, (short)0, 25, "Learn", new String[] {
+                "high_performance_computing", "computer_science" });
+        original.insertRecord(record, record.serialize());
+        File snapshot = File.createTempFile("semmanager", ".snap");
+        original.writeSnapshot(snapshot.getPath());
+        assertFalse(new File(snapshot.getPath() + ".dict").exists());
+
+        SemManager loaded = new SemManager(64, 4);
+        assertEquals(1, loaded.loadSnapshot(snapshot.getPath()));
+        snapshot.delete();
+        assertEquals(record.toString(), loaded.multiGet(new int[] { 3 })[0]
+            .toString());
+        original.close();
+        loaded.close();
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The TextCodec class compresses the long text fields of a seminar
+ *          record with Deflate. Texts shorter than a threshold, or that do
+ *          not get smaller, are stored as plain UTF-8. Each text is written
+ *          as a variable-length header holding its stored length shifted
+ *          left by one, with the low bit set when the bytes are compressed,
+ *          followed for compressed texts by the original length.
+ *
+ *          A preset dictionary of common words, trained from sample texts,
+ *          can be given so that short descriptions compress well on their
+ *          own. Every record compressed with a dictionary must be read back
+ *          with the same dictionary.
+ */
+public class TextCodec {
+    /**
+     * The default size, in bytes, below which texts are not compressed.
+     */
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    /**
+     * The default size, in bytes, of a trained dictionary.
+     */
+    public static final int DEFAULT_DICTIONARY_SIZE = 4096;
+
+    private int threshold;
+    private byte[] dictionary;
+    private Deflater deflater;
+    private Inflater inflater;
+    private byte[] buffer;
+
+    /**
+     * Initializes a new instance of the TextCodec class.
+     *
+     * @param threshold
+     *            The size in bytes below which texts are stored plainly.
+     * @param dictionary
+     *            The preset dictionary, or {@code null} for none.
+     */
+    public TextCodec(int threshold, byte[] dictionary) {
+        this.threshold = threshold;
+        this.dictionary = dictionary;
+        deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        inflater = new Inflater();
+        buffer = new byte[256];
+    }
+
+
+    /**
+     * Gets the preset dictionary.
+     *
+     * @return The dictionary, or {@code null} if there is none.
+     */
+    public byte[] getDictionary() {
+        return dictionary;
+    }
+
+
+    /**
+     * Writes a text, compressing it if it is long enough to benefit.
+     *
+     * @param out
+     *            The output to write to.
+     * @param text
+     *            The text to write.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public synchronized void write(DataOutput out, String text)
+        throws IOException {
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+        if (plain.length >= threshold) {
+            int compressedLength = deflate(plain);
+            if (compressedLength < plain.length) {
+                SeminarRecord.writeVarInt(out, (compressedLength << 1) | 1);
+                SeminarRecord.writeVarInt(out, plain.length);
+                out.write(buffer, 0, compressedLength);
+                return;
+            }
+        }
+        SeminarRecord.writeVarInt(out, plain.length << 1);
+        out.write(plain);
+    }
+
+
+    /**
+     * Reads a text written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The text.
+     * @throws IOException
+     *             If the input cannot be read or the compressed bytes are
+     *             invalid for this codec's dictionary.
+     */
+    public synchronized String read(DataInput in) throws IOException {
+        int header = SeminarRecord.readVarInt(in);
+        byte[] stored = new byte[header >>> 1];
+        if ((header & 1) == 0) {
+            in.readFully(stored);
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        byte[] plain = new byte[SeminarRecord.readVarInt(in)];
+        in.readFully(stored);
+        inflate(stored, plain);
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Builds a preset dictionary from sample texts. The most frequent words
+     * are packed into the dictionary with the most frequent last, where
+     * Deflate can reach them with the shortest distances.
+     *
+     * @param samples
+     *            The sample texts, such as existing descriptions.
+     * @param size
+     *            The largest dictionary size in bytes.
+     * @return The dictionary.
+     */
+    public static byte[] train(Iterable<String> samples, int size) {
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (String sample : samples) {
+            for (String word : sample.split("\\s+")) {
+                if (word.length() > 2) {
+                    counts.merge(word + " ", 1, Integer::sum);
+                }
+            }
+        }
+        ArrayList<String> words = new ArrayList<>(counts.keySet());
+        // Rank by the bytes each word would save across the samples
+        words.sort((a, b) -> Long.compare((long)counts.get(b) * b.length(),
+            (long)counts.get(a) * a.length()));
+
+        ArrayList<byte[]> chosen = new ArrayList<>();
+        int total = 0;
+        for (String word : words) {
+            if (counts.get(word) < 2) {
+                break;
+            }
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            if (total + bytes.length > size) {
+                continue;
+            }
+            chosen.add(bytes);
+            total += bytes.length;
+        }
+
+        byte[] result = new byte[total];
+        int pos = total;
+        for (byte[] bytes : chosen) {
+            pos -= bytes.length;
+            System.arraycopy(bytes, 0, result, pos, bytes.length);
+        }
+        return result;
+    }
+
+
+    /**
+     * Reads a dictionary file.
+     *
+     * @param path
+     *            The path of the dictionary file.
+     * @return The dictionary bytes.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    public static byte[] loadDictionary(String path) throws IOException {
+        return Files.readAllBytes(Paths.get(path));
+    }
+
+
+    /**
+     * Writes a dictionary file.
+     *
+     * @param path
+     *            The path of the dictionary file.
+     * @param dictionary
+     *            The dictionary bytes.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public static void saveDictionary(String path, byte[] dictionary)
+        throws IOException {
+        Files.write(Paths.get(path), dictionary);
+    }
+
+
+    private int deflate(byte[] plain) {
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(plain);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return length;
+    }
+
+
+    private void inflate(byte[] stored, byte[] plain) throws IOException {
+        inflater.reset();
+        inflater.setInput(stored);
+        try {
+            int length = 0;
+            while (length < plain.length) {
+                int read = inflater.inflate(plain, length, plain.length
+                    - length);
+                if (read == 0 && inflater.needsDictionary()) {
+                    if (dictionary == null) {
+                        throw new IOException(
+                            "Text needs a dictionary but none is set");
+                    }
+                    inflater.setDictionary(dictionary);
+                }
+                else if (read == 0 && (inflater.finished() || inflater
+                    .needsInput())) {
+                    throw new IOException("Compressed text is truncated");
+                }
+                length += read;
+            }
+        }
+        catch (DataFormatException | IllegalArgumentException e) {
+            throw new IOException("Compressed text is invalid", e);
+        }
+    }
+}
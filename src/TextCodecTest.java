@@ -0,0 +1,95 @@
+import java.util.Arrays;
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The TextCodecTest class contains test methods for the TextCodec
+ *          class and for seminar records with compressed text.
+ */
+public class TextCodecTest extends TestCase {
+    private static final String DESCRIPTION = "Learn what kind of research "
+        + "is done on HPC and CSE at VT, and what kind of research is done "
+        + "on HPC and CSE elsewhere";
+
+    private SeminarRecord record;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        record = new SeminarRecord(10, "Overview of HPC and CSE Research at VT",
+            "0703301125", 35, (short)0, (short)0, 25, DESCRIPTION,
+            new String[] { "HPC", "CSE" });
+    }
+
+
+    /**
+     * Tests that compressed records are smaller and read back unchanged.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCompressedRecord() throws Exception {
+        TextCodec codec = new TextCodec(32, null);
+        byte[] plain = record.serialize();
+        byte[] compressed = record.serialize(null, codec);
+        assertEquals(SeminarRecord.COMPACT_FORMAT, compressed[0]);
+        assertTrue(compressed.length < plain.length);
+        assertEquals(record.toString(), SeminarRecord.deserialize(compressed,
+            null, codec).toString());
+        // Plain records are still read when a codec is set
+        assertEquals(record.toString(), SeminarRecord.deserialize(plain, null,
+            codec).toString());
+    }
+
+
+    /**
+     * Tests that a trained dictionary improves short texts and that the
+     * wrong dictionary is rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDictionary() throws Exception {
+        byte[] dictionary = TextCodec.train(Arrays.asList(DESCRIPTION,
+            DESCRIPTION), TextCodec.DEFAULT_DICTIONARY_SIZE);
+        assertTrue(dictionary.length > 0);
+        TextCodec trained = new TextCodec(0, dictionary);
+        byte[] withDictionary = record.serialize(null, trained);
+        assertTrue(withDictionary.length < record.serialize(null,
+            new TextCodec(0, null)).length);
+        assertEquals(record.toString(), SeminarRecord.deserialize(
+            withDictionary, null, trained).toString());
+
+        Exception thrown = null;
+        try {
+            SeminarRecord.deserialize(withDictionary, null, new TextCodec(0,
+                "something else".getBytes()));
+        }
+        catch (Exception e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+
+    /**
+     * Tests that short texts below the threshold are stored plainly.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testThreshold() throws Exception {
+        TextCodec codec = new TextCodec(1000, null);
+        byte[] stored = record.serialize(null, codec);
+        assertTrue(new String(stored, "UTF-8").contains("Learn what kind"));
+        assertEquals(record.toString(), SeminarRecord.deserialize(stored,
+            null, codec).toString());
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The TextCompressionBenchmark class measures how much the
+ *          TextCodec shrinks serialized seminar records and what it costs
+ *          to decode them, as every search does for each record it prints.
+ *          It compares plain records, Deflate on its own and Deflate with a
+ *          dictionary trained on half of the generated descriptions, using
+ *          the other half for the measurement.
+ *
+ *          Usage: java TextCompressionBenchmark {records} {dictionary-file}
+ *          where the optional dictionary file receives the trained
+ *          dictionary for use with SemManager's --text-dictionary flag.
+ */
+public class TextCompressionBenchmark {
+    private static final String[] VOCABULARY = { "the", "research", "of",
+        "and", "computer", "science", "seminar", "learn", "about", "data",
+        "systems", "performance", "high", "computing", "students", "faculty",
+        "Virginia", "Tech", "lab", "algorithms", "machine", "learning",
+        "networks", "security", "graphics", "human", "interaction",
+        "software", "engineering", "parallel", "distributed", "in", "to",
+        "with", "new", "work", "department", "talk", "will", "present",
+        "recent", "results", "from", "group", "on", "how", "we", "design" };
+    private static final int ROUNDS = 5;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args
+     *            Optional number of records and dictionary output file.
+     * @throws Exception
+     *             If serialization fails or the dictionary cannot be saved.
+     */
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Random random = new Random(records);
+        ArrayList<String> training = new ArrayList<>();
+        SeminarRecord[] samples = new SeminarRecord[records];
+        for (int i = 0; i < records; i++) {
+            training.add(description(random));
+            samples[i] = new SeminarRecord(i, description(random).substring(
+                0, 20), "0610071600", 90, (short)10, (short)10, 45,
+                description(random), new String[] { "HPC", "CSE" });
+        }
+        byte[] dictionary = TextCodec.train(training,
+            TextCodec.DEFAULT_DICTIONARY_SIZE);
+        if (args.length > 1) {
+            TextCodec.saveDictionary(args[1], dictionary);
+        }
+
+        System.out.println("mode,records,avg_bytes,size_ratio,"
+            + "decode_ns_per_record");
+        long plain = run("plain", samples, null, 0);
+        run("deflate", samples, new TextCodec(TextCodec.DEFAULT_THRESHOLD,
+            null), plain);
+        run("deflate_dictionary", samples, new TextCodec(
+            TextCodec.DEFAULT_THRESHOLD, dictionary), plain);
+    }
+
+
+    private static long run(
+        String mode,
+        SeminarRecord[] samples,
+        TextCodec codec,
+        long plainBytes)
+        throws Exception {
+        byte[][] stored = new byte[samples.length][];
+        long bytes = 0;
+        for (int i = 0; i < samples.length; i++) {
+            stored[i] = samples[i].serialize(null, codec);
+            bytes += stored[i].length;
+        }
+
+        // The first round warms up the JIT and is not counted
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (byte[] record : stored) {
+                SeminarRecord.deserialize(record, null, codec);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+
+        double ratio = plainBytes == 0 ? 1.0 : (double)bytes / plainBytes;
+        System.out.printf("%s,%d,%.1f,%.3f,%d%n", mode, samples.length,
+            (double)bytes / samples.length, ratio, best / samples.length);
+        return bytes;
+    }
+
+
+    private static String description(Random random) {
+        StringBuilder text = new StringBuilder();
+        int words = 15 + random.nextInt(40);
+        for (int i = 0; i < words; i++) {
+            // Squaring skews the picks towards the front of the vocabulary
+            double pick = random.nextDouble();
+            text.append(VOCABULARY[(int)(pick * pick * VOCABULARY.length)]);
+            text.append(' ');
+        }
+        return text.toString().trim();
+    }
+}
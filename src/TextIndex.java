@@ -0,0 +1,331 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The TextIndex class is an inverted index over seminar
+ *          descriptions. Each term keeps a postings list of (ID, term
+ *          frequency) pairs sorted by ID. Queries are scored with BM25 one
+ *          document at a time by merging the postings of the query terms,
+ *          and only the best {@code k} documents are kept in a bounded heap,
+ *          so the full set of matches is never held in memory at once.
+ */
+public class TextIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private HashMap<String, Postings> postings;
+    private HashMap<Integer, Integer> documentLengths;
+    private long totalLength;
+
+    /**
+     * Initializes a new, empty instance of the TextIndex class.
+     */
+    public TextIndex() {
+        postings = new HashMap<>();
+        documentLengths = new HashMap<>();
+        totalLength = 0;
+    }
+
+
+    /**
+     * Adds a seminar description to the index.
+     *
+     * @param text
+     *            The description of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     */
+    public void insert(String text, int id) {
+        String[] terms = tokenize(text);
+        HashMap<String, Integer> frequencies = countTerms(terms);
+        for (String term : frequencies.keySet()) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                list = new Postings();
+                postings.put(term, list);
+            }
+            list.add(id, frequencies.get(term));
+        }
+        documentLengths.put(id, terms.length);
+        totalLength += terms.length;
+    }
+
+
+    /**
+     * Removes a seminar description from the index. The text must be the
+     * same text that was inserted for the ID.
+     *
+     * @param text
+     *            The description of the seminar.
+     * @param id
+     *            The ID of the seminar record.
+     * @return {@code true} if the document was found and removed,
+     *         otherwise {@code false}.
+     */
+    public boolean remove(String text, int id) {
+        Integer length = documentLengths.remove(id);
+        if (length == null) {
+            return false;
+        }
+        totalLength -= length;
+        for (String term : countTerms(tokenize(text)).keySet()) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(id) && list.count == 0) {
+                postings.remove(term);
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Finds the seminars that best match the query terms by BM25 score.
+     *
+     * @param query
+     *            The query text.
+     * @param k
+     *            The maximum number of IDs to return.
+     * @return The IDs of up to {@code k} seminars, best match first.
+     */
+    public ArrayList<Integer> search(String query, int k) {
+        ArrayList<Integer> result = new ArrayList<>();
+        int documents = documentLengths.size();
+        if (k <= 0 || documents == 0) {
+            return result;
+        }
+
+        ArrayList<Postings> lists = new ArrayList<>();
+        ArrayList<Double> weights = new ArrayList<>();
+        for (String term : countTerms(tokenize(query)).keySet()) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                lists.add(list);
+                weights.add(Math.log(1 + (documents - list.count + 0.5)
+                    / (list.count + 0.5)));
+            }
+        }
+        double averageLength = (double)totalLength / documents;
+
+        // Min-heap on score holding the best k documents seen so far
+        PriorityQueue<ScoredId> best = new PriorityQueue<>();
+        int[] cursors = new int[lists.size()];
+        while (true) {
+            int id = Integer.MAX_VALUE;
+            boolean any = false;
+            for (int t = 0; t < lists.size(); t++) {
+                Postings list = lists.get(t);
+                if (cursors[t] < list.count && list.ids[cursors[t]] <= id) {
+                    id = list.ids[cursors[t]];
+                    any = true;
+                }
+            }
+            if (!any) {
+                break;
+            }
+
+            double norm = K1 * (1 - B + B * documentLengths.get(id)
+                / averageLength);
+            double score = 0;
+            for (int t = 0; t < lists.size(); t++) {
+                Postings list = lists.get(t);
+                if (cursors[t] < list.count && list.ids[cursors[t]] == id) {
+                    int tf = list.frequencies[cursors[t]];
+                    score += weights.get(t) * tf * (K1 + 1) / (tf + norm);
+                    cursors[t]++;
+                }
+            }
+
+            ScoredId candidate = new ScoredId(id, score);
+            if (best.size() < k) {
+                best.add(candidate);
+            }
+            else if (candidate.compareTo(best.peek()) > 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+
+        while (!best.isEmpty()) {
+            result.add(0, best.poll().id);
+        }
+        return result;
+    }
+
+
+    /**
+     * Gets the number of distinct terms in the index.
+     *
+     * @return The number of terms.
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+
+    /**
+     * Splits text into lower case terms made of letters and digits.
+     *
+     * @param text
+     *            The text to split.
+     * @return The terms in order of appearance.
+     */
+    public static String[] tokenize(String text) {
+        String cleaned = text.toLowerCase().replaceAll("[^a-z0-9]+", " ")
+            .trim();
+        if (cleaned.isEmpty()) {
+            return new String[0];
+        }
+        return cleaned.split(" ");
+    }
+
+
+    /**
+     * Writes the postings and document lengths, so that {@link #read} can
+     * restore the index without tokenizing the descriptions again.
+     *
+     * @param out
+     *            The output to write to.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(documentLengths.size());
+        for (Map.Entry<Integer, Integer> entry : documentLengths
+            .entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(postings.size());
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            Postings list = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(list.count);
+            for (int i = 0; i < list.count; i++) {
+                out.writeInt(list.ids[i]);
+                out.writeInt(list.frequencies[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads an index written by {@link #write}.
+     *
+     * @param in
+     *            The input to read from.
+     * @return The index.
+     * @throws IOException
+     *             If the input cannot be read.
+     */
+    public static TextIndex read(DataInput in) throws IOException {
+        TextIndex index = new TextIndex();
+        int documents = in.readInt();
+        // Sized up front so the maps never rehash while loading
+        index.documentLengths = new HashMap<>(documents * 4 / 3 + 1);
+        for (int i = 0; i < documents; i++) {
+            int id = in.readInt();
+            int length = in.readInt();
+            index.documentLengths.put(id, length);
+            index.totalLength += length;
+        }
+        int terms = in.readInt();
+        index.postings = new HashMap<>(terms * 4 / 3 + 1);
+        for (int t = 0; t < terms; t++) {
+            String term = in.readUTF();
+            Postings list = new Postings();
+            list.count = in.readInt();
+            list.ids = new int[Math.max(list.count, 2)];
+            list.frequencies = new int[list.ids.length];
+            for (int i = 0; i < list.count; i++) {
+                list.ids[i] = in.readInt();
+                list.frequencies[i] = in.readInt();
+            }
+            index.postings.put(term, list);
+        }
+        return index;
+    }
+
+
+    private static HashMap<String, Integer> countTerms(String[] terms) {
+        HashMap<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * The Postings class is the list of documents containing one term,
+     * kept as parallel primitive arrays sorted by ID.
+     */
+    private static class Postings {
+        int[] ids = new int[2];
+        int[] frequencies = new int[2];
+        int count;
+
+        void add(int id, int frequency) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                frequencies = Arrays.copyOf(frequencies, count * 2);
+            }
+            // IDs usually arrive in increasing order, so this is normally
+            // an append
+            int pos = count;
+            if (count > 0 && ids[count - 1] > id) {
+                pos = -Arrays.binarySearch(ids, 0, count, id) - 1;
+                System.arraycopy(ids, pos, ids, pos + 1, count - pos);
+                System.arraycopy(frequencies, pos, frequencies, pos + 1, count
+                    - pos);
+            }
+            ids[pos] = id;
+            frequencies[pos] = frequency;
+            count++;
+        }
+
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, count, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, count - pos - 1);
+            System.arraycopy(frequencies, pos + 1, frequencies, pos, count
+                - pos - 1);
+            count--;
+            return true;
+        }
+    }
+
+    /**
+     * The ScoredId class pairs a seminar ID with its score. Higher scores
+     * compare greater, with the lower ID winning a tie.
+     */
+    private static class ScoredId implements Comparable<ScoredId> {
+        final int id;
+        final double score;
+
+        ScoredId(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+
+        @Override
+        public int compareTo(ScoredId other) {
+            if (score != other.score) {
+                return score < other.score ? -1 : 1;
+            }
+            return Integer.compare(other.id, id);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import student.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The TextIndexTest class contains test methods for the TextIndex
+ *          class.
+ */
+public class TextIndexTest extends TestCase {
+    private TextIndex index;
+
+    /**
+     * Sets up the test environment before running test cases.
+     */
+    @Before
+    public void setUp() {
+        index = new TextIndex();
+        index.insert("This seminar will present an overview of HCI research "
+            + "at VT", 1);
+        index.insert("Introduction to   bioinformatics and computation "
+            + "biology", 2);
+        index.insert("Seminar about the Computing systems research at VT", 3);
+        index.insert("Learn what kind of research is done on HPC and CSE at "
+            + "VT. Research, research!", 10);
+    }
+
+
+    /**
+     * Tests tokenizing on case and punctuation.
+     */
+    @Test
+    public void testTokenize() {
+        assertEquals(3, TextIndex.tokenize("  HPC, and-CSE! ").length);
+        assertEquals("hpc", TextIndex.tokenize("HPC")[0]);
+        assertEquals(0, TextIndex.tokenize(" ... ").length);
+    }
+
+
+    /**
+     * Tests that ranking favours rarer terms and higher term frequency and
+     * that the result is capped at k.
+     */
+    @Test
+    public void testSearch() {
+        assertEquals("[2]", index.search("biology", 10).toString());
+        assertEquals(10, (int)index.search("research", 10).get(0));
+        assertEquals(3, index.search("research", 10).size());
+        assertEquals("[10]", index.search("research", 1).toString());
+        assertEquals(2, index.search("bioinformatics overview", 10)
+            .size());
+        assertEquals("[]", index.search("nothing", 10).toString());
+        assertEquals("[]", index.search("research", 0).toString());
+    }
+
+
+    /**
+     * Tests that removed documents stop matching.
+     */
+    @Test
+    public void testRemove() {
+        assertTrue(index.remove("Introduction to bioinformatics and "
+            + "computation biology", 2));
+        assertFalse(index.remove("anything", 2));
+        assertEquals("[]", index.search("biology", 10).toString());
+        index.insert("More biology", 2);
+        assertEquals("[2]", index.search("biology", 10).toString());
+    }
+}
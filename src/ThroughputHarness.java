@@ -0,0 +1,155 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ThroughputHarness class replays a command file through a
+ *          SemManager with the normal output discarded and reports how it
+ *          went: overall throughput, latency percentiles for every command
+ *          and for each kind of command, the peak heap use and the final
+ *          sizes of the memory pool and hash table. Results are printed as
+ *          "metric,value" lines.
+ *
+ *          The peak heap is the sum of the peak use of each heap memory
+ *          pool over the run, so it can be a little above the true peak.
+ *
+ *          Usage: java ThroughputHarness {initial-memory-size}
+ *          {initial-hash-size} {command-file}
+ */
+public class ThroughputHarness implements SemManager.CommandListener {
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private TreeMap<String, long[]> latencies;
+    private TreeMap<String, Integer> counts;
+
+    private ThroughputHarness() {
+        latencies = new TreeMap<>();
+        counts = new TreeMap<>();
+    }
+
+
+    /**
+     * The entry point of the harness.
+     *
+     * @param args
+     *            The initial memory size, initial hash size and command
+     *            file.
+     * @throws Exception
+     *             If the commands cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: java ThroughputHarness"
+                + " {initial-memory-size} {initial-hash-size} {command-file}");
+            System.exit(1);
+        }
+        ThroughputHarness harness = new ThroughputHarness();
+        SemManager semManager = new SemManager(Integer.parseInt(args[0]),
+            Integer.parseInt(args[1]));
+        semManager.setCommandListener(harness);
+
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory
+            .getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            semManager.processCommands(args[2]);
+        }
+        finally {
+            System.setOut(console);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory
+            .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        int total = 0;
+        for (int count : harness.counts.values()) {
+            total += count;
+        }
+        System.out.println("metric,value");
+        System.out.println("commands," + total);
+        System.out.printf("elapsed_ms,%.1f%n", elapsed / 1e6);
+        System.out.printf("commands_per_second,%.0f%n", total * 1e9
+            / elapsed);
+        harness.report("all", harness.merged());
+        for (String kind : harness.latencies.keySet()) {
+            harness.report(kind, Arrays.copyOf(harness.latencies.get(kind),
+                harness.counts.get(kind)));
+        }
+        System.out.println("peak_heap_bytes," + peakHeap);
+        System.out.println("pool_bytes," + semManager.getPoolSize());
+        System.out.println("table_capacity," + semManager.getTableCapacity());
+        System.out.println("records," + semManager.getRecordCount());
+        semManager.close();
+    }
+
+
+    @Override
+    public void commandFinished(String command, long nanos) {
+        String kind = SemManager.commandKind(command);
+        long[] times = latencies.get(kind);
+        int count = counts.getOrDefault(kind, 0);
+        if (times == null) {
+            times = new long[1024];
+        }
+        else if (count == times.length) {
+            times = Arrays.copyOf(times, count * 2);
+        }
+        times[count] = nanos;
+        latencies.put(kind, times);
+        counts.put(kind, count + 1);
+    }
+
+
+    private long[] merged() {
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (String kind : latencies.keySet()) {
+            int count = counts.get(kind);
+            System.arraycopy(latencies.get(kind), 0, all, pos, count);
+            pos += count;
+        }
+        return all;
+    }
+
+
+    private void report(String kind, long[] times) {
+        if (times.length == 0) {
+            return;
+        }
+        Arrays.sort(times);
+        System.out.println(kind + "_count," + times.length);
+        for (double percentile : PERCENTILES) {
+            int rank = (int)Math.ceil(percentile / 100 * times.length) - 1;
+            System.out.printf("%s_p%s_us,%.2f%n", kind, percentile == Math
+                .rint(percentile)
+                    ? String.valueOf((int)percentile)
+                    : String.valueOf(percentile), times[Math.max(rank, 0)]
+                        / 1e3);
+        }
+        System.out.printf("%s_max_us,%.2f%n", kind, times[times.length - 1]
+            / 1e3);
+    }
+}
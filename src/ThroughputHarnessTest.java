@@ -0,0 +1,61 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import student.TestCase;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The ThroughputHarnessTest class contains test methods for the
+ *          ThroughputHarness class.
+ */
+public class ThroughputHarnessTest extends TestCase {
+    /**
+     * Tests that the harness reports every command it ran, by kind, and
+     * the records left in the store.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReportsCommandCounts() throws Exception {
+        File commands = File.createTempFile("commands", ".txt");
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setCommands(400);
+        generator.setMix(50, 40, 10);
+        generator.setIdRange(150);
+        generator.setSeed(3);
+        try (PrintWriter out = new PrintWriter(new FileWriter(commands))) {
+            generator.generate(out);
+        }
+        SemManager expected = new SemManager(64, 4);
+        expected.processCommands(commands.getPath());
+
+        int start = systemOut().getHistory().length();
+        ThroughputHarness.main(new String[] { "64", "4", commands
+            .getPath() });
+        commands.delete();
+        HashMap<String, String> metrics = new HashMap<>();
+        for (String line : systemOut().getHistory().substring(start).split(
+            "\\R")) {
+            String[] parts = line.split(",");
+            if (parts.length == 2) {
+                metrics.put(parts[0], parts[1]);
+            }
+        }
+
+        assertEquals("400", metrics.get("commands"));
+        assertEquals("400", metrics.get("all_count"));
+        int byKind = Integer.parseInt(metrics.get("insert_count")) + Integer
+            .parseInt(metrics.get("search_count")) + Integer.parseInt(metrics
+                .get("delete_count"));
+        assertEquals(400, byKind);
+        assertEquals(String.valueOf(expected.getRecordCount()), metrics.get(
+            "records"));
+        assertTrue(Double.parseDouble(metrics.get("commands_per_second")) > 0);
+        expected.close();
+    }
+}
@@ -0,0 +1,352 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The WorkloadGenerator class writes synthetic command files in the
+ *          SemManager input format. It controls the mix of insert, search
+ *          and delete commands, how IDs are chosen (sequentially, uniformly
+ *          or with a Zipfian skew towards low IDs), how often an insert
+ *          reuses an ID that is already present, the size of the word
+ *          vocabulary and the length of the descriptions. The same seed
+ *          always produces the same file.
+ *
+ *          Usage: java WorkloadGenerator [--commands {n}]
+ *          [--mix {insert}:{search}:{delete}]
+ *          [--ids sequential|uniform|zipf] [--id-range {n}]
+ *          [--zipf-exponent {s}] [--duplicates {rate}]
+ *          [--vocabulary {n}] [--text-words {n}] [--seed {n}]
+ *          {output-file}
+ */
+public class WorkloadGenerator {
+    private static final String[] SYLLABLES = { "ba", "ce", "di", "fo", "gu",
+        "ha", "je", "ki", "lo", "mu", "na", "pe", "ri", "so", "tu", "va",
+        "we", "xi", "yo", "za" };
+    private static final int MAX_KEYWORDS = 5;
+    private static final int MAX_TITLE_WORDS = 6;
+
+    private int commands = 100000;
+    private int insertWeight = 60;
+    private int searchWeight = 30;
+    private int deleteWeight = 10;
+    private String idDistribution = "uniform";
+    private int idRange = -1; // defaults to the number of commands
+    private double zipfExponent = 1.0;
+    private double duplicateRate = 0.0;
+    private int vocabularySize = 500;
+    private int textWords = 20;
+    private long seed = 1;
+
+    private Random random;
+    private double[] zipfCumulative;
+    private String[] vocabulary;
+    private ArrayList<Integer> inserted;
+    private int nextId;
+
+    /**
+     * The entry point of the generator.
+     *
+     * @param args
+     *            Optional flags followed by the output file.
+     * @throws IOException
+     *             If the output file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        int next = 0;
+        while (next + 1 < args.length && args[next].startsWith("--")) {
+            String value = args[next + 1];
+            switch (args[next]) {
+                case "--commands":
+                    generator.setCommands(Integer.parseInt(value));
+                    break;
+                case "--mix":
+                    String[] parts = value.split(":");
+                    generator.setMix(Integer.parseInt(parts[0]), Integer
+                        .parseInt(parts[1]), Integer.parseInt(parts[2]));
+                    break;
+                case "--ids":
+                    generator.setIdDistribution(value);
+                    break;
+                case "--id-range":
+                    generator.setIdRange(Integer.parseInt(value));
+                    break;
+                case "--zipf-exponent":
+                    generator.setZipfExponent(Double.parseDouble(value));
+                    break;
+                case "--duplicates":
+                    generator.setDuplicateRate(Double.parseDouble(value));
+                    break;
+                case "--vocabulary":
+                    generator.setVocabularySize(Integer.parseInt(value));
+                    break;
+                case "--text-words":
+                    generator.setTextWords(Integer.parseInt(value));
+                    break;
+                case "--seed":
+                    generator.setSeed(Long.parseLong(value));
+                    break;
+                default:
+                    next = args.length;
+                    continue;
+            }
+            next += 2;
+        }
+        if (args.length - next != 1) {
+            System.err.println("Usage: java WorkloadGenerator [--commands {n}]"
+                + " [--mix {insert}:{search}:{delete}]"
+                + " [--ids sequential|uniform|zipf] [--id-range {n}]"
+                + " [--zipf-exponent {s}] [--duplicates {rate}]"
+                + " [--vocabulary {n}] [--text-words {n}] [--seed {n}]"
+                + " {output-file}");
+            System.exit(1);
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(args[next]))) {
+            generator.generate(out);
+        }
+    }
+
+
+    /**
+     * Sets the number of commands to write.
+     *
+     * @param commands
+     *            The number of commands.
+     */
+    public void setCommands(int commands) {
+        this.commands = commands;
+    }
+
+
+    /**
+     * Sets the relative weights of the command types.
+     *
+     * @param insert
+     *            The weight of insert commands.
+     * @param search
+     *            The weight of search commands.
+     * @param delete
+     *            The weight of delete commands.
+     */
+    public void setMix(int insert, int search, int delete) {
+        insertWeight = insert;
+        searchWeight = search;
+        deleteWeight = delete;
+    }
+
+
+    /**
+     * Sets how IDs are chosen: "sequential" inserts IDs in increasing order
+     * and looks up IDs already inserted, "uniform" picks any ID in the range
+     * with equal chance, and "zipf" favours low IDs.
+     *
+     * @param distribution
+     *            The name of the distribution.
+     */
+    public void setIdDistribution(String distribution) {
+        if (!distribution.equals("sequential") && !distribution.equals(
+            "uniform") && !distribution.equals("zipf")) {
+            throw new IllegalArgumentException("Unknown ID distribution "
+                + distribution);
+        }
+        idDistribution = distribution;
+    }
+
+
+    /**
+     * Sets the number of distinct IDs for the uniform and Zipfian
+     * distributions.
+     *
+     * @param range
+     *            The number of IDs, starting at 0.
+     */
+    public void setIdRange(int range) {
+        idRange = range;
+    }
+
+
+    /**
+     * Sets the skew of the Zipfian distribution.
+     *
+     * @param exponent
+     *            The exponent; larger values favour low IDs more.
+     */
+    public void setZipfExponent(double exponent) {
+        zipfExponent = exponent;
+    }
+
+
+    /**
+     * Sets the share of inserts that reuse an ID already inserted.
+     *
+     * @param rate
+     *            The share, between 0 and 1.
+     */
+    public void setDuplicateRate(double rate) {
+        duplicateRate = rate;
+    }
+
+
+    /**
+     * Sets the number of distinct words used in titles, keywords and
+     * descriptions.
+     *
+     * @param size
+     *            The number of words.
+     */
+    public void setVocabularySize(int size) {
+        vocabularySize = size;
+    }
+
+
+    /**
+     * Sets the average number of words in a description.
+     *
+     * @param words
+     *            The average number of words.
+     */
+    public void setTextWords(int words) {
+        textWords = words;
+    }
+
+
+    /**
+     * Sets the random seed.
+     *
+     * @param seed
+     *            The seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+
+    /**
+     * Writes the commands.
+     *
+     * @param out
+     *            The writer to write the commands to.
+     */
+    public void generate(PrintWriter out) {
+        random = new Random(seed);
+        int range = idRange > 0 ? idRange : Math.max(commands, 1);
+        zipfCumulative = idDistribution.equals("zipf")
+            ? zipfTable(range, zipfExponent)
+            : null;
+        vocabulary = new String[vocabularySize];
+        for (int i = 0; i < vocabularySize; i++) {
+            vocabulary[i] = word(i);
+        }
+        inserted = new ArrayList<>();
+        nextId = 0;
+
+        int total = insertWeight + searchWeight + deleteWeight;
+        for (int i = 0; i < commands; i++) {
+            int pick = random.nextInt(total);
+            if (pick < insertWeight) {
+                writeInsert(out, range);
+            }
+            else if (pick < insertWeight + searchWeight) {
+                out.println("search " + existingId(range));
+            }
+            else {
+                out.println("delete " + existingId(range));
+            }
+        }
+    }
+
+
+    private void writeInsert(PrintWriter out, int range) {
+        int id;
+        if (!inserted.isEmpty() && random.nextDouble() < duplicateRate) {
+            id = inserted.get(random.nextInt(inserted.size()));
+        }
+        else if (idDistribution.equals("sequential")) {
+            id = nextId++;
+        }
+        else {
+            id = sample(range);
+        }
+        inserted.add(id);
+
+        out.println("insert " + id);
+        out.println(capitalize(words(1 + random.nextInt(MAX_TITLE_WORDS))));
+        out.printf("%02d%02d%02d%02d%02d %d %d %d %d%n", 6 + random.nextInt(
+            4), 1 + random.nextInt(12), 1 + random.nextInt(28), 8 + random
+                .nextInt(10), random.nextInt(4) * 15, 30 + random.nextInt(
+                    150), random.nextInt(1024), random.nextInt(1024), random
+                        .nextInt(200));
+        out.println(words(1 + random.nextInt(MAX_KEYWORDS)));
+        out.println(capitalize(words(Math.max(1, textWords / 2 + random
+            .nextInt(textWords + 1)))));
+    }
+
+
+    private int existingId(int range) {
+        if (idDistribution.equals("sequential")) {
+            return nextId == 0 ? 0 : random.nextInt(nextId);
+        }
+        return sample(range);
+    }
+
+
+    private int sample(int range) {
+        if (zipfCumulative == null) {
+            return random.nextInt(range);
+        }
+        int index = Arrays.binarySearch(zipfCumulative, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, range - 1);
+    }
+
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            // Squaring skews the picks towards the common words
+            double pick = random.nextDouble();
+            text.append(vocabulary[(int)(pick * pick * vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+
+    private static String word(int index) {
+        StringBuilder word = new StringBuilder();
+        int rest = index;
+        do {
+            word.append(SYLLABLES[rest % SYLLABLES.length]);
+            rest /= SYLLABLES.length;
+        }
+        while (rest > 0);
+        return word.append("n").toString();
+    }
+
+
+    private static double[] zipfTable(int range, double exponent) {
+        double[] cumulative = new double[range];
+        double sum = 0;
+        for (int k = 0; k < range; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < range; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,92 @@
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import student.TestCase;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The WorkloadGeneratorTest class contains test methods for the
+ *          WorkloadGenerator class.
+ */
+public class WorkloadGeneratorTest extends TestCase {
+    /**
+     * Tests that the commands follow the requested mix and that
+     * sequential IDs are inserted in order and only looked up once
+     * inserted.
+     */
+    @Test
+    public void testMix() {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setCommands(5000);
+        generator.setMix(60, 30, 10);
+        generator.setIdDistribution("sequential");
+        generator.setSeed(42);
+        String[] lines = generate(generator).split("\n");
+
+        int inserts = 0;
+        int searches = 0;
+        int deletes = 0;
+        int i = 0;
+        while (i < lines.length) {
+            String[] words = lines[i].split(" ");
+            if (words[0].equals("insert")) {
+                assertEquals(inserts, Integer.parseInt(words[1]));
+                inserts++;
+                i += 4; // the four lines of the seminar follow
+            }
+            else {
+                assertTrue(Integer.parseInt(words[1]) < Math.max(inserts,
+                    1));
+                if (words[0].equals("search")) {
+                    searches++;
+                }
+                else {
+                    assertEquals("delete", words[0]);
+                    deletes++;
+                }
+            }
+            i++;
+        }
+        assertEquals(5000, inserts + searches + deletes);
+        assertEquals(0.6, inserts / 5000.0, 0.02);
+        assertEquals(0.3, searches / 5000.0, 0.02);
+        assertEquals(0.1, deletes / 5000.0, 0.02);
+    }
+
+
+    /**
+     * Tests that a seed always produces the same commands and that
+     * another seed produces different ones.
+     */
+    @Test
+    public void testSeed() {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setCommands(300);
+        generator.setIdDistribution("zipf");
+        generator.setDuplicateRate(0.2);
+        generator.setSeed(7);
+        String first = generate(generator);
+        assertEquals(first, generate(generator));
+        generator.setSeed(8);
+        assertFalse(first.equals(generate(generator)));
+    }
+
+
+    /**
+     * Writes a generator's commands to a string.
+     *
+     * @param generator
+     *            The generator.
+     * @return The commands.
+     */
+    private static String generate(WorkloadGenerator generator) {
+        StringWriter text = new StringWriter();
+        try (PrintWriter out = new PrintWriter(text)) {
+            generator.generate(out);
+        }
+        return text.toString().replace("\r\n", "\n");
+    }
+}
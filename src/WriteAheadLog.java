@@ -0,0 +1,398 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The WriteAheadLog class is an append-only log of the insert and
+ *          delete operations applied to a SemManager, used to rebuild the
+ *          store after a crash. Each entry is laid out as
+ *
+ *          <pre>
+ *          int   payload length
+ *          byte  type (INSERT, DELETE or UPDATE)
+ *          int   seminar ID
+ *          byte[] payload (the serialized record for an insert or
+ *                 update)
+ *          long  CRC32 of type, ID and payload
+ *          </pre>
+ *
+ *          Appends go into an in-memory buffer and are forced to disk in
+ *          groups: at most once per commit window, or on every append when
+ *          the window is 0. A background thread forces any entries left
+ *          waiting when the log goes quiet, so an entry is durable at most
+ *          one window after it was logged.
+ */
+public class WriteAheadLog implements Closeable {
+    /**
+     * Entry type for an inserted record.
+     */
+    public static final byte INSERT = 1;
+
+    /**
+     * Entry type for a deleted record.
+     */
+    public static final byte DELETE = 2;
+
+    /**
+     * Entry type for a record replaced by a new version.
+     */
+    public static final byte UPDATE = 3;
+
+    private static final int HEADER_SIZE = 4 + 1 + 4;
+    private static final int CHECKSUM_SIZE = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long commitWindowMillis;
+    private long lastSync;
+    private boolean dirty;
+    private long syncCount;
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Opens a log for appending, creating the file if needed.
+     *
+     * @param path
+     *            The path of the log file.
+     * @param commitWindowMillis
+     *            The longest time, in milliseconds, an entry may wait before
+     *            it is forced to disk. 0 forces every entry as it is logged.
+     * @throws IOException
+     *             If the file cannot be opened.
+     */
+    public WriteAheadLog(String path, long commitWindowMillis)
+        throws IOException {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.commitWindowMillis = commitWindowMillis;
+        lastSync = System.currentTimeMillis();
+        dirty = false;
+        syncCount = 0;
+
+        if (commitWindowMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::syncQuietly,
+                commitWindowMillis, commitWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * Logs the insertion of a record.
+     *
+     * @param id
+     *            The ID of the seminar record.
+     * @param serializedRecord
+     *            The serialized record.
+     * @throws IOException
+     *             If the log cannot be written.
+     */
+    public synchronized void logInsert(int id, byte[] serializedRecord)
+        throws IOException {
+        append(INSERT, id, serializedRecord);
+    }
+
+
+    /**
+     * Logs the deletion of a record.
+     *
+     * @param id
+     *            The ID of the seminar record.
+     * @throws IOException
+     *             If the log cannot be written.
+     */
+    public synchronized void logDelete(int id) throws IOException {
+        append(DELETE, id, new byte[0]);
+    }
+
+
+    /**
+     * Logs the replacement of a record by a new version.
+     *
+     * @param id
+     *            The ID of the seminar record.
+     * @param serializedRecord
+     *            The serialized new version of the record.
+     * @throws IOException
+     *             If the log cannot be written.
+     */
+    public synchronized void logUpdate(int id, byte[] serializedRecord)
+        throws IOException {
+        append(UPDATE, id, serializedRecord);
+    }
+
+
+    /**
+     * Writes out the buffered entries and forces them to disk.
+     *
+     * @throws IOException
+     *             If the log cannot be written.
+     */
+    public synchronized void sync() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        writeBuffer();
+        channel.force(false);
+        lastSync = System.currentTimeMillis();
+        dirty = false;
+        syncCount++;
+    }
+
+
+    /**
+     * Discards every entry in the log, as after a checkpoint that already
+     * holds their effects.
+     *
+     * @throws IOException
+     *             If the log cannot be truncated.
+     */
+    public synchronized void reset() throws IOException {
+        buffer.clear();
+        dirty = false;
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+
+    /**
+     * Gets the length of the log in bytes, counting entries that are
+     * still buffered. A snapshot records this so a later replay can skip
+     * the entries it already holds.
+     *
+     * @return The length of the log.
+     * @throws IOException
+     *             If the log's position cannot be read.
+     */
+    public synchronized long getPosition() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+
+    /**
+     * Gets the number of times the log has been forced to disk.
+     *
+     * @return The number of forces.
+     */
+    public synchronized long getSyncCount() {
+        return syncCount;
+    }
+
+
+    /**
+     * Forces any buffered entries to disk and closes the log.
+     *
+     * @throws IOException
+     *             If the log cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        synchronized (this) {
+            sync();
+            channel.close();
+        }
+    }
+
+
+    /**
+     * Reads a log from the start and hands every valid entry to a
+     * replayer. Reading stops at the first entry that is cut short or
+     * fails its checksum, which is where a crash interrupted a write, and
+     * the file is truncated there so later appends follow the last good
+     * entry.
+     *
+     * @param path
+     *            The path of the log file.
+     * @param replayer
+     *            The receiver of the entries.
+     * @return The number of entries replayed.
+     * @throws Exception
+     *             If the file cannot be read or the replayer fails.
+     */
+    public static int replay(String path, Replayer replayer)
+        throws Exception {
+        return replay(path, 0, replayer);
+    }
+
+
+    /**
+     * Reads a log like replay(path, replayer), but only hands the replayer
+     * the entries that start at or after a position, as returned by
+     * getPosition when a snapshot was taken. Earlier entries are still
+     * checked, so a damaged log is truncated the same way.
+     *
+     * @param path
+     *            The path of the log file.
+     * @param from
+     *            The position of the first entry to replay.
+     * @param replayer
+     *            The receiver of the entries.
+     * @return The number of entries replayed.
+     * @throws Exception
+     *             If the file cannot be read or the replayer fails.
+     */
+    public static int replay(String path, long from, Replayer replayer)
+        throws Exception {
+        if (!Paths.get(path).toFile().exists()) {
+            return 0;
+        }
+        int entries = 0;
+        try (FileChannel in = FileChannel.open(Paths.get(path),
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in
+                .size());
+            long validEnd = 0;
+            while (data.remaining() >= HEADER_SIZE) {
+                int length = data.getInt();
+                if (length < 0 || data.remaining() < 1 + 4 + length
+                    + CHECKSUM_SIZE) {
+                    break;
+                }
+                byte type = data.get();
+                int id = data.getInt();
+                byte[] payload = new byte[length];
+                data.get(payload);
+                if (data.getLong() != checksum(type, id, payload)) {
+                    break;
+                }
+
+                // Entries before from are already held by a snapshot
+                if (validEnd >= from) {
+                    if (type == INSERT) {
+                        replayer.insert(id, payload);
+                    }
+                    else if (type == DELETE) {
+                        replayer.delete(id);
+                    }
+                    else if (type == UPDATE) {
+                        replayer.update(id, payload);
+                    }
+                    entries++;
+                }
+                validEnd = data.position();
+            }
+            if (validEnd < in.size()) {
+                in.truncate(validEnd);
+            }
+        }
+        return entries;
+    }
+
+
+    private void append(byte type, int id, byte[] payload)
+        throws IOException {
+        int entrySize = HEADER_SIZE + payload.length + CHECKSUM_SIZE;
+        if (entrySize > buffer.remaining()) {
+            writeBuffer();
+            if (entrySize > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(entrySize);
+            }
+        }
+        buffer.putInt(payload.length);
+        buffer.put(type);
+        buffer.putInt(id);
+        buffer.put(payload);
+        buffer.putLong(checksum(type, id, payload));
+        dirty = true;
+
+        if (System.currentTimeMillis() - lastSync >= commitWindowMillis) {
+            sync();
+        }
+    }
+
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+    private void syncQuietly() {
+        try {
+            sync();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    private static long checksum(byte type, int id, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(4).putInt(id).array());
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    /**
+     * The Replayer interface receives the entries read back from a log.
+     */
+    public interface Replayer {
+        /**
+         * Applies a logged insertion.
+         *
+         * @param id
+         *            The ID of the seminar record.
+         * @param serializedRecord
+         *            The serialized record.
+         * @throws Exception
+         *             If the record cannot be applied.
+         */
+        void insert(int id, byte[] serializedRecord) throws Exception;
+
+
+        /**
+         * Applies a logged deletion.
+         *
+         * @param id
+         *            The ID of the seminar record.
+         * @throws Exception
+         *             If the deletion cannot be applied.
+         */
+        void delete(int id) throws Exception;
+
+
+        /**
+         * Applies a logged update. By default the old record is deleted and
+         * the new one inserted.
+         *
+         * @param id
+         *            The ID of the seminar record.
+         * @param serializedRecord
+         *            The serialized new version of the record.
+         * @throws Exception
+         *             If the update cannot be applied.
+         */
+        default void update(int id, byte[] serializedRecord)
+            throws Exception {
+            delete(id);
+            insert(id, serializedRecord);
+        }
+    }
+}
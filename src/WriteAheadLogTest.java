@@ -0,0 +1,131 @@
+import student.TestCase;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Aayush Bagrecha
+ * @author Yash Shrikant
+ * @version 1.0
+ *
+ *          The WriteAheadLogTest class contains test methods for the
+ *          WriteAheadLog class.
+ */
+public class WriteAheadLogTest extends TestCase {
+    private File logFile;
+    private ArrayList<String> replayed;
+    private WriteAheadLog.Replayer replayer;
+
+    /**
+     * Sets up the test environment before running test cases.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        logFile = File.createTempFile("semmanager", ".wal");
+        logFile.deleteOnExit();
+        replayed = new ArrayList<>();
+        replayer = new WriteAheadLog.Replayer() {
+            @Override
+            public void insert(int id, byte[] serializedRecord) {
+                replayed.add("insert " + id + " " + serializedRecord.length);
+            }
+
+
+            @Override
+            public void delete(int id) {
+                replayed.add("delete " + id);
+            }
+        };
+    }
+
+
+    /**
+     * Tests that logged operations are replayed in order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReplay() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(logFile.getPath(), 0)) {
+            log.logInsert(1, new byte[] { 1, 2, 3 });
+            log.logDelete(1);
+            log.logInsert(2, new byte[70000]);
+            assertEquals(3, log.getSyncCount());
+        }
+        assertEquals(3, WriteAheadLog.replay(logFile.getPath(), replayer));
+        assertEquals("[insert 1 3, delete 1, insert 2 70000]", replayed
+            .toString());
+    }
+
+
+    /**
+     * Tests that an update replays as a delete and an insert unless the
+     * replayer handles updates itself.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateReplay() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(logFile.getPath(), 0)) {
+            log.logInsert(1, new byte[] { 1, 2, 3 });
+            log.logUpdate(1, new byte[] { 4, 5 });
+        }
+        assertEquals(2, WriteAheadLog.replay(logFile.getPath(), replayer));
+        assertEquals("[insert 1 3, delete 1, insert 1 2]", replayed
+            .toString());
+    }
+
+
+    /**
+     * Tests that a torn or corrupted tail is dropped and that appends
+     * continue after the last good entry.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTornTail() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(logFile.getPath(), 1000)) {
+            log.logInsert(1, new byte[] { 1, 2, 3 });
+            log.logInsert(2, new byte[] { 4, 5, 6 });
+        }
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.setLength(file.length() - 2);
+        }
+        assertEquals(1, WriteAheadLog.replay(logFile.getPath(), replayer));
+
+        try (WriteAheadLog log = new WriteAheadLog(logFile.getPath(), 0)) {
+            log.logDelete(1);
+        }
+        replayed.clear();
+        assertEquals(2, WriteAheadLog.replay(logFile.getPath(), replayer));
+        assertEquals("[insert 1 3, delete 1]", replayed.toString());
+    }
+
+
+    /**
+     * Tests that replay can start from a position taken while logging.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReplayFromPosition() throws Exception {
+        long position;
+        try (WriteAheadLog log = new WriteAheadLog(logFile.getPath(), 1000)) {
+            log.logInsert(1, new byte[] { 1, 2, 3 });
+            position = log.getPosition();
+            log.logDelete(1);
+            log.logInsert(2, new byte[] { 4 });
+        }
+        assertEquals(2, WriteAheadLog.replay(logFile.getPath(), position,
+            replayer));
+        assertEquals("[delete 1, insert 2 1]", replayed.toString());
+        replayed.clear();
+        assertEquals(0, WriteAheadLog.replay(logFile.getPath(), logFile
+            .length(), replayer));
+        assertEquals(3, WriteAheadLog.replay(logFile.getPath(), replayer));
+    }
+}